@@ -1,9 +1,12 @@
 package jsui;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,7 +23,7 @@ import jsui.Context.Callable;
 public final class App {
     public final ui.Target contentId;
     public String Language;
-    public final List<String> HTMLHead = new ArrayList<>();
+    public final List<String> HTMLHead = new HeadList();
 
     private final java.util.concurrent.ConcurrentHashMap<String, Callable> routes = new java.util.concurrent.ConcurrentHashMap<>();
     private final java.util.concurrent.ConcurrentHashMap<Callable, String> reverse = new java.util.concurrent.ConcurrentHashMap<>();
@@ -28,6 +31,41 @@ public final class App {
     private boolean debugEnabled = false;
     private boolean smoothNav = false;
 
+    /** Head list that counts structural and in-place modifications. */
+    private static final class HeadList extends ArrayList<String> {
+        private int sets;
+
+        int version() {
+            return modCount + sets;
+        }
+
+        @Override
+        public String set(int index, String element) {
+            sets++;
+            return super.set(index, element);
+        }
+    }
+
+    /** Minified head markup, rebuilt only when HTMLHead or smooth navigation changes. */
+    private static final class Shell {
+        final int version;
+        final boolean smoothNav;
+        final String head;
+        /** Everything from the end of the title to the start of the body, and its UTF-8 bytes. */
+        final String bodyStart;
+        final byte[] bodyStartUtf8;
+
+        Shell(int version, boolean smoothNav, String head, String contentId) {
+            this.version = version;
+            this.smoothNav = smoothNav;
+            this.head = head;
+            this.bodyStart = "</title>" + head + "</head><body id=\"" + contentId + "\" class=\"relative\">";
+            this.bodyStartUtf8 = bodyStart.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private volatile Shell shell;
+
     static final class sessRec {
         volatile long lastSeen;
         final java.util.concurrent.ConcurrentHashMap<String, Runnable> targets = new java.util.concurrent.ConcurrentHashMap<>();
@@ -50,6 +88,27 @@ public final class App {
 
     final List<AssetCfg> assets = new ArrayList<>();
 
+    /** Mount path of the framework's own fingerprinted scripts and styles. */
+    static final String BUILTIN_MOUNT = "/__jsui";
+    private static final long BUILTIN_MAX_AGE = 365L * 24 * 60 * 60;
+
+    static final class BuiltinAsset {
+        final byte[] body;
+        final String contentType;
+        final String externalTag;
+        final String inlineTag;
+
+        BuiltinAsset(byte[] body, String contentType, String externalTag, String inlineTag) {
+            this.body = body;
+            this.contentType = contentType;
+            this.externalTag = externalTag;
+            this.inlineTag = inlineTag;
+        }
+    }
+
+    final java.util.concurrent.ConcurrentHashMap<String, BuiltinAsset> builtins = new java.util.concurrent.ConcurrentHashMap<>();
+    private boolean inlineAssets = false;
+
     public enum TailwindMode {
         CDN, // Default: load from jsdelivr CDN
         NONE, // No Tailwind (custom CSS only)
@@ -58,6 +117,126 @@ public final class App {
 
     private TailwindMode tailwindMode = TailwindMode.CDN;
 
+    private volatile java.util.concurrent.ExecutorService renderPool;
+
+    /** Daemon pool running {@link Context#Parallel} sections. */
+    java.util.concurrent.ExecutorService renderPool() {
+        java.util.concurrent.ExecutorService pool = renderPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = renderPool;
+                if (pool == null) {
+                    java.util.concurrent.atomic.AtomicInteger counter = new java.util.concurrent.atomic.AtomicInteger();
+                    pool = java.util.concurrent.Executors.newCachedThreadPool(r -> {
+                        Thread t = new Thread(r, "jsui-render-" + counter.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    renderPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    private int jobWorkers = 2;
+    private int jobCapacity = 100;
+    private int jobsPerSession = 1;
+    private volatile Jobs jobs;
+
+    /** Queue running {@link Context#Job} tasks, created on first use. */
+    Jobs jobs() {
+        Jobs queue = jobs;
+        if (queue == null) {
+            synchronized (this) {
+                queue = jobs;
+                if (queue == null) {
+                    queue = new Jobs(jobWorkers, jobCapacity, jobsPerSession);
+                    jobs = queue;
+                }
+            }
+        }
+        return queue;
+    }
+
+    /** Path prefix of one-time download URLs served by the server. */
+    static final String DOWNLOAD_PATH = BUILTIN_MOUNT + "/download/";
+    private volatile long downloadTtlMillis = 5 * 60 * 1000L;
+
+    /** A file or stream waiting to be fetched once by the session that registered it. */
+    static final class Download {
+        final String sessionId;
+        final String name;
+        final String contentType;
+        final long length;
+        final Context.DownloadSource source;
+        final Runnable cleanup;
+        final long expiresAt;
+
+        Download(String sessionId, String name, String contentType, long length, Context.DownloadSource source,
+                Runnable cleanup, long ttlMillis) {
+            this.sessionId = sessionId;
+            this.name = name;
+            this.contentType = contentType;
+            this.length = length;
+            this.source = source;
+            this.cleanup = cleanup;
+            this.expiresAt = System.currentTimeMillis() + ttlMillis;
+        }
+
+        void discard() {
+            if (cleanup != null) {
+                try {
+                    cleanup.run();
+                } catch (Throwable ignored) {
+                }
+            }
+        }
+    }
+
+    private final java.util.concurrent.ConcurrentHashMap<String, Download> downloads = new java.util.concurrent.ConcurrentHashMap<>();
+
+    /** Registers a download for one fetch and returns its URL. */
+    String registerDownload(String sessionId, String name, String contentType, long length, Context.DownloadSource source,
+            Runnable cleanup) {
+        purgeDownloads();
+        String token = UUID.randomUUID().toString().replace("-", "");
+        downloads.put(token, new Download(sessionId, name, contentType, length, source, cleanup, downloadTtlMillis));
+        return DOWNLOAD_PATH + token;
+    }
+
+    /**
+     * Removes and returns the download for {@code token} if it belongs to the
+     * session and has not expired. The caller must {@link Download#discard} it.
+     */
+    Download takeDownload(String sessionId, String token) {
+        Download download = token != null ? downloads.remove(token) : null;
+        if (download == null) {
+            return null;
+        }
+        if (!java.util.Objects.equals(download.sessionId, sessionId)) {
+            downloads.putIfAbsent(token, download);
+            return null;
+        }
+        if (download.expiresAt < System.currentTimeMillis()) {
+            download.discard();
+            return null;
+        }
+        return download;
+    }
+
+    /** Drops expired downloads and releases what they hold. */
+    void purgeDownloads() {
+        long now = System.currentTimeMillis();
+        downloads.entrySet().removeIf(entry -> {
+            if (entry.getValue().expiresAt < now) {
+                entry.getValue().discard();
+                return true;
+            }
+            return false;
+        });
+    }
+
     private long sessionTtlMillis = 30 * 60 * 1000L;
     private long cleanupIntervalMillis = 5 * 60 * 1000L;
     private volatile boolean cleanupEnabled = true;
@@ -86,9 +265,7 @@ public final class App {
 
         String coreJs = loadResource("jsui/jsui-core.js");
         if (coreJs != null) {
-            HTMLHead.add("""
-                    <script>%s</script>
-                    """.formatted(coreJs));
+            HTMLHead.add(builtinAsset("jsui-core", "js", coreJs));
         } else {
             HTMLHead.add(
                     """
@@ -304,7 +481,7 @@ public final class App {
                                             }catch(e3){}
                                         }
                                     },50);
-                                    fetch(href,{method:'GET'}).then(function(resp){
+                                    fetch(href,{method:'GET',headers:{'X-Jsui-Nav':'1'}}).then(function(resp){
                                         if(!resp.ok){throw new Error('HTTP '+resp.status);}
                                         return resp.text();
                                     }).then(function(html){
@@ -381,6 +558,54 @@ public final class App {
         }
     }
 
+    /**
+     * Registers a framework script or stylesheet under a content-fingerprinted
+     * path below {@link #BUILTIN_MOUNT} and returns the head tag referencing it.
+     * The fingerprint changes with the content, so the asset is served with an
+     * immutable cache policy and browsers fetch it once.
+     */
+    String builtinAsset(String name, String ext, String content) {
+        byte[] body = content.getBytes(StandardCharsets.UTF_8);
+        String path = "%s/%s.%s.%s".formatted(BUILTIN_MOUNT, name, fingerprint(body), ext);
+        boolean css = "css".equals(ext);
+        String external = css ? "<link rel=\"stylesheet\" href=\"%s\">".formatted(path)
+                : "<script src=\"%s\"></script>".formatted(path);
+        String inline = css ? "<style>%s</style>".formatted(content) : "<script>%s</script>".formatted(content);
+        builtins.put(path, new BuiltinAsset(body, contentTypeOf(path), external, inline));
+        return inlineAssets ? inline : external;
+    }
+
+    /**
+     * Inlines the framework scripts and styles into every page instead of
+     * referencing them from {@link #BUILTIN_MOUNT}. Use this when pages are
+     * served by something other than {@link Server} and the built-in asset
+     * endpoint is not reachable.
+     */
+    public App inlineAssets(boolean enable) {
+        if (this.inlineAssets == enable)
+            return this;
+        this.inlineAssets = enable;
+        for (BuiltinAsset a : builtins.values()) {
+            String from = enable ? a.externalTag : a.inlineTag;
+            String to = enable ? a.inlineTag : a.externalTag;
+            HTMLHead.replaceAll(item -> from.equals(item) ? to : item);
+        }
+        return this;
+    }
+
+    private static String fingerprint(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            StringBuilder sb = new StringBuilder(12);
+            for (int i = 0; i < 6; i++) {
+                sb.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(java.util.Arrays.hashCode(body));
+        }
+    }
+
     public void debug(boolean enable) {
         this.debugEnabled = enable;
     }
@@ -398,6 +623,25 @@ public final class App {
         return this;
     }
 
+    /** How long a download link from {@link Context#DownloadAs} stays valid; defaults to five minutes. */
+    public App downloadTtl(long millis) {
+        this.downloadTtlMillis = Math.max(1_000L, millis);
+        return this;
+    }
+
+    /**
+     * Sizes the {@link Context#Job} queue: {@code workers} jobs run at once,
+     * at most {@code capacity} wait, and one session runs at most
+     * {@code perSession} jobs at a time. Defaults to 2, 100 and 1. Must be
+     * called before the first job is submitted.
+     */
+    public synchronized App jobs(int workers, int capacity, int perSession) {
+        this.jobWorkers = Math.max(1, workers);
+        this.jobCapacity = Math.max(1, capacity);
+        this.jobsPerSession = Math.max(1, perSession);
+        return this;
+    }
+
     /** Sets the session cleanup interval in milliseconds. */
     public App sessionCleanupInterval(long intervalMillis) {
         this.cleanupIntervalMillis = Math.max(30_000L, intervalMillis);
@@ -427,6 +671,7 @@ public final class App {
                         }
                         return false;
                     });
+                    purgeDownloads();
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     break;
@@ -453,6 +698,24 @@ public final class App {
         rec.targets.put(targetId, clear);
     }
 
+    /**
+     * Like {@link #registerClear}, but keeps a cleanup already registered for
+     * the target: both run, the earlier one first.
+     */
+    void chainClear(String sessionId, String targetId, Runnable clear) {
+        if (sessionId == null || sessionId.isEmpty() || targetId == null || targetId.isEmpty() || clear == null)
+            return;
+        sessRec rec = sessions.computeIfAbsent(sessionId, k -> new sessRec());
+        rec.lastSeen = System.currentTimeMillis();
+        rec.targets.merge(targetId, clear, (first, then) -> () -> {
+            try {
+                first.run();
+            } catch (Throwable ignore) {
+            }
+            then.run();
+        });
+    }
+
     void triggerClear(String sessionId, String targetId) {
         if (sessionId == null || sessionId.isEmpty() || targetId == null || targetId.isEmpty())
             return;
@@ -512,48 +775,106 @@ public final class App {
     public String HTMLBody(String cls) {
         if (cls == null || cls.isEmpty())
             cls = "bg-gray-200";
-        String head = String.join(" ", HTMLHead);
-        return String.join(" ",
-                "<!DOCTYPE html>",
-                """
-                        <html lang="%s" class="%s">
-                        """.formatted(Language, cls),
-                """
-                          <head>%s</head>
-                        """.formatted(head),
-                """
-                          <body id="%s" class="relative"></body>
-                        """.formatted(contentId.id),
-                "</html>");
+        return """
+                <!DOCTYPE html><html lang="%s" class="%s"><head>%s</head><body id="%s" class="relative"></body></html>\
+                """.formatted(Language, cls, head(), contentId.id);
     }
 
     public String HTML(String title, String bodyClass, String body) {
+        String prefix = documentPrefix(title, bodyClass);
+        String bodyStart = shell().bodyStart;
+        String bodyContent = body != null ? body : "";
+        return new StringBuilder(prefix.length() + bodyStart.length() + bodyContent.length() + DOCUMENT_END.length())
+                .append(prefix)
+                .append(bodyStart)
+                .append(bodyContent)
+                .append(DOCUMENT_END)
+                .toString();
+    }
+
+    /**
+     * Renders a page whose body is produced by {@code sections} in order.
+     *
+     * When the request is served by {@link Server}, the document start
+     * (including the whole head) is flushed before the first section runs and
+     * every section is sent as a chunk as soon as it has rendered, so the
+     * browser starts fetching scripts and styles while slow sections are still
+     * working. The method then returns an empty string. Without a streaming
+     * response the sections are concatenated into a regular document.
+     */
+    public String HTML(Context ctx, String title, String bodyClass, Callable... sections) throws Exception {
+        String prefix = documentPrefix(title, bodyClass);
+        Shell s = shell();
+        Context.ResponseStream stream = ctx != null ? ctx.stream : null;
+        if (stream == null) {
+            StringBuilder sb = new StringBuilder(prefix.length() + s.bodyStart.length() + 1024)
+                    .append(prefix).append(s.bodyStart);
+            if (sections != null) {
+                for (Callable section : sections) {
+                    String html = section != null ? section.handle(ctx) : null;
+                    if (html != null) {
+                        sb.append(html);
+                    }
+                }
+            }
+            return sb.append(DOCUMENT_END).toString();
+        }
+        // The head is encoded once per change of HTMLHead; only the title and class are encoded per page
+        stream.write(prefix.getBytes(StandardCharsets.UTF_8), s.bodyStartUtf8);
+        if (sections != null) {
+            for (Callable section : sections) {
+                String html = section != null ? section.handle(ctx) : null;
+                if (html != null && !html.isEmpty()) {
+                    stream.write(html);
+                }
+            }
+        }
+        stream.write(DOCUMENT_END_UTF8);
+        return "";
+    }
+
+    private static final String DOCUMENT_END = "</body></html>";
+    private static final byte[] DOCUMENT_END_UTF8 = DOCUMENT_END.getBytes(StandardCharsets.UTF_8);
+
+    /** Document start up to and including the title text; the rest comes from {@link Shell#bodyStart}. */
+    private String documentPrefix(String title, String bodyClass) {
         String cls = ui.Classes(bodyClass);
         if (cls == null || cls.isEmpty()) {
             cls = "bg-gray-200";
         }
-        StringBuilder head = new StringBuilder();
-        head.append("<title>");
-        head.append(title != null ? HtmlUtils.escape(ui.Trim(title)) : "");
-        head.append("</title>");
-        for (String item : HTMLHead) {
-            if (item != null) {
-                head.append(item);
+        String titleEscaped = title != null ? HtmlUtils.escape(ui.Trim(title)) : "";
+        return new StringBuilder(192)
+                .append("<!DOCTYPE html><html lang=\"").append(Language).append("\" class=\"").append(cls)
+                .append("\"><head><title>").append(titleEscaped)
+                .toString();
+    }
+
+    private String head() {
+        return shell().head;
+    }
+
+    /**
+     * Returns the minified head markup and the document parts built from it.
+     * Trimming and encoding run once per change of {@link #HTMLHead}; page
+     * bodies are written as-is.
+     */
+    private Shell shell() {
+        Shell s = shell;
+        int version = ((HeadList) HTMLHead).version();
+        if (s == null || s.version != version || s.smoothNav != smoothNav) {
+            StringBuilder head = new StringBuilder();
+            for (String item : HTMLHead) {
+                if (item != null) {
+                    head.append(item);
+                }
             }
+            if (smoothNav) {
+                head.append(__smoothnav());
+            }
+            s = new Shell(version, smoothNav, ui.Trim(head.toString()), contentId.id);
+            shell = s;
         }
-        if (smoothNav) {
-            head.append(__smoothnav());
-        }
-        String titleEscaped = title != null ? HtmlUtils.escape(ui.Trim(title)) : "";
-        String headStr = head.toString();
-        String bodyContent = body != null ? body : "";
-        return ui.Trim("""
-                <!DOCTYPE html>
-                <html lang="%s" class="%s">
-                <head>%s%s</head>
-                <body id="%s" class="relative">%s</body>
-                </html>""".formatted(Language, cls, "<title>" + titleEscaped + "</title>", headStr, contentId.id,
-                bodyContent));
+        return s;
     }
 
     /** Enables or disables smooth client-side navigation. */
@@ -567,6 +888,29 @@ public final class App {
         return this.smoothNav;
     }
 
+    private volatile long streamedDeferMillis = 0L;
+
+    /**
+     * Delivers {@link Context#Defer} results inside the page response: the
+     * response stays open (chunked) and every finished job is appended as a
+     * template plus swap script, in completion order. Jobs still running after
+     * 30 seconds fall back to WebSocket patches.
+     */
+    public App streamedDefer(boolean enable) {
+        return streamedDefer(enable, 30_000L);
+    }
+
+    /** Same as {@link #streamedDefer(boolean)} with a custom limit on how long the response stays open. */
+    public App streamedDefer(boolean enable, long maxOpenMillis) {
+        this.streamedDeferMillis = enable ? Math.max(1L, maxOpenMillis) : 0L;
+        return this;
+    }
+
+    /** Milliseconds a page response may stay open for deferred results; 0 when disabled. */
+    long streamedDeferMillis() {
+        return streamedDeferMillis;
+    }
+
     private String __smoothnav() {
         return ui
                 .Script("""
@@ -628,17 +972,26 @@ public final class App {
         final InputStream stream;
         final String contentType;
         final long maxAgeSeconds;
+        final boolean immutable;
 
         ResolvedAsset(InputStream s, String ct, long age) {
+            this(s, ct, age, false);
+        }
+
+        ResolvedAsset(InputStream s, String ct, long age, boolean immutable) {
             stream = s;
             contentType = ct;
             maxAgeSeconds = age;
+            this.immutable = immutable;
         }
     }
 
     ResolvedAsset resolveAsset(String path) {
         if (path == null || path.isEmpty())
             return null;
+        BuiltinAsset builtin = builtins.get(path);
+        if (builtin != null)
+            return new ResolvedAsset(new ByteArrayInputStream(builtin.body), builtin.contentType, BUILTIN_MAX_AGE, true);
         for (AssetCfg cfg : assets) {
             if (!path.startsWith("%s/".formatted(cfg.mountPath)) && !path.equals(cfg.mountPath))
                 continue;
@@ -718,6 +1071,17 @@ public final class App {
         return callable;
     }
 
+    /** Removes a route registered by {@link #Callable}; used for one-shot handlers. */
+    void unregister(Callable callable) {
+        if (callable == null) {
+            return;
+        }
+        String path = reverse.remove(callable);
+        if (path != null) {
+            routes.remove(path, callable);
+        }
+    }
+
     public String pathOf(Callable c) {
         return reverse.get(c);
     }
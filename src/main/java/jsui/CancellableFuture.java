@@ -0,0 +1,76 @@
+package jsui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Future of work started on a pool, used by the async loaders of {@link Data}
+ * and by {@link Context#Parallel}. Cancelling it interrupts the thread running
+ * the work and runs the registered cancel hooks.
+ */
+final class CancellableFuture<V> extends CompletableFuture<V> {
+    interface Body<V> {
+        V run(CancellableFuture<V> future) throws Exception;
+    }
+
+    private final List<Runnable> hooks = new ArrayList<>();
+    private Thread runner;
+
+    static <V> CancellableFuture<V> start(Executor pool, Body<V> body) {
+        CancellableFuture<V> future = new CancellableFuture<>();
+        pool.execute(() -> {
+            synchronized (future) {
+                if (future.isDone()) {
+                    return;
+                }
+                future.runner = Thread.currentThread();
+            }
+            try {
+                future.complete(body.run(future));
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            } finally {
+                synchronized (future) {
+                    future.runner = null;
+                    Thread.interrupted();
+                }
+            }
+        });
+        return future;
+    }
+
+    /** Runs {@code hook} on cancel, or right away when already cancelled. */
+    void onCancel(Runnable hook) {
+        synchronized (this) {
+            if (!isCancelled()) {
+                hooks.add(hook);
+                return;
+            }
+        }
+        hook.run();
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        List<Runnable> run;
+        synchronized (this) {
+            if (cancelled && mayInterruptIfRunning && runner != null) {
+                runner.interrupt();
+            }
+            run = new ArrayList<>(hooks);
+            hooks.clear();
+        }
+        if (cancelled) {
+            for (Runnable hook : run) {
+                try {
+                    hook.run();
+                } catch (RuntimeException ignored) {
+                }
+            }
+        }
+        return cancelled;
+    }
+}
@@ -27,9 +27,13 @@ public final class Context {
     public final byte[] body;
     public final Map<String, String> query;
     public final String queryString;
-    public final List<String> append = new ArrayList<>();
+    public final List<String> append = Collections.synchronizedList(new ArrayList<>());
     private final PatchSender patchSender;
     private final long pageGeneration;
+    /** Chunked response of the current page request, or null when the response is buffered. */
+    ResponseStream stream;
+    /** Deferred results waiting to be written into the page response; see {@link App#streamedDefer}. */
+    final DeferStream deferred = new DeferStream();
 
     public Context(App app, String sessionID) {
         this(app, sessionID, "GET", "/", Collections.emptyMap(), new byte[0], Collections.emptyMap(), "", null);
@@ -293,6 +297,45 @@ public final class Context {
         append.add(patchScriptInline(target.id, swap, html));
     }
 
+    /**
+     * Renders {@code view} inside a {@code display:contents} wrapper and keeps it
+     * live: whenever a {@link State} read by the view changes, only this
+     * fragment is re-rendered and patched over the WebSocket. The binding ends
+     * when the session navigates to another page.
+     */
+    public String Bind(Callable view) throws Exception {
+        if (view == null) {
+            return "";
+        }
+        ui.Target target = ui.Target();
+        State.Binding binding = new State.Binding(this, target.id, view);
+        String html = binding.render();
+        if (app != null) {
+            app.registerClear(sessionID, target.id, binding::dispose);
+        }
+        return ui.div("", target.id(), ui.Attr.of().style("display:contents")).render(html);
+    }
+
+    /** Sends a patch over the WebSocket only; returns false when it could not be delivered. */
+    boolean sendPatch(String id, ui.Swap swap, String html) {
+        if (patchSender == null || id == null || html == null) {
+            return false;
+        }
+        String json = "{\"type\":\"patch\",\"id\":\"%s\",\"swap\":\"%s\",\"html\":\"%s\"}"
+                .formatted(ui.Normalize(id), swap != null ? swap.name() : ui.Swap.inline.name(), ui.EscapeJson(html));
+        try {
+            patchSender.send(sessionID, json);
+            return true;
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+
+    /** True once the session has moved on to another page since this context was created. */
+    boolean stale() {
+        return app != null && app.currentSessionGeneration(sessionID) != pageGeneration;
+    }
+
     public void Defer(ui.Action target, Callable job) {
         Defer(target, job, null);
     }
@@ -300,13 +343,24 @@ public final class Context {
     public void Defer(ui.Action target, Callable job, Runnable clear) {
         if (job == null || target == null)
             return;
+        // Smooth navigation reads the whole body before swapping, so it gets its results over the WebSocket
+        final boolean streamed = stream != null && app != null && app.streamedDeferMillis() > 0
+                && header("X-Jsui-Nav") == null && deferred.open();
         Thread t = new Thread(() -> {
+            boolean delivered = false;
             try {
                 String result = job.handle(this);
                 if (result != null) {
                     if (app != null && app.currentSessionGeneration(sessionID) != pageGeneration) {
                         return;
                     }
+                    if (streamed) {
+                        String swap = target.swap != null ? target.swap.name() : ui.Swap.inline.name();
+                        delivered = deferred.offer(streamedFragment(target.id, swap, result));
+                        if (delivered) {
+                            return;
+                        }
+                    }
                     // Retry sending the patch until WebSocket is connected or thread is interrupted
                     int maxRetries = 50; // Max 5 seconds (50 * 100ms)
                     int retryCount = 0;
@@ -335,6 +389,10 @@ public final class Context {
             } catch (InterruptedException ex) {
                 Thread.currentThread().interrupt();
             } catch (Exception ignored) {
+            } finally {
+                if (streamed && !delivered) {
+                    deferred.skip();
+                }
             }
         }, "jsui-defer");
         if (app != null) {
@@ -493,31 +551,269 @@ public final class Context {
         t.start();
     }
 
+    /**
+     * Renders independent sections concurrently and joins the results in
+     * order, the same way {@code ui.div(...).render(...)} joins children. Page
+     * latency becomes that of the slowest section instead of their sum. The
+     * first section to fail, or an interrupt of the calling thread, cancels
+     * the others.
+     */
+    public String Parallel(Callable... sections) throws Exception {
+        return Parallel(0L, ui.SkeletonType.component, sections);
+    }
+
+    /**
+     * Like {@link #Parallel(Callable...)}, but sections still running after
+     * {@code timeoutMillis} are rendered as a skeleton of the given type and
+     * patched in with {@link #Defer} once they finish.
+     */
+    public String Parallel(long timeoutMillis, ui.SkeletonType fallback, Callable... sections) throws Exception {
+        if (sections == null || sections.length == 0) {
+            return "";
+        }
+        List<java.util.concurrent.CompletableFuture<String>> futures = new ArrayList<>(sections.length);
+        java.util.concurrent.CompletableFuture<String> failed = new java.util.concurrent.CompletableFuture<>();
+        for (Callable section : sections) {
+            if (section == null) {
+                futures.add(java.util.concurrent.CompletableFuture.completedFuture(""));
+            } else if (app == null) {
+                futures.add(java.util.concurrent.CompletableFuture.completedFuture(section.handle(this)));
+            } else {
+                java.util.concurrent.CompletableFuture<String> future = CancellableFuture.start(app.renderPool(),
+                        running -> section.handle(this));
+                // The first failure ends the wait, whichever section it comes from.
+                future.whenComplete((html, ex) -> {
+                    if (ex != null) {
+                        failed.completeExceptionally(ex);
+                    }
+                });
+                futures.add(future);
+            }
+        }
+        java.util.concurrent.CompletableFuture<Object> done = java.util.concurrent.CompletableFuture.anyOf(
+                java.util.concurrent.CompletableFuture.allOf(futures.toArray(new java.util.concurrent.CompletableFuture[0])),
+                failed);
+        String[] parts = new String[futures.size()];
+        try {
+            if (timeoutMillis > 0) {
+                try {
+                    done.get(timeoutMillis, java.util.concurrent.TimeUnit.MILLISECONDS);
+                } catch (java.util.concurrent.TimeoutException ex) {
+                    // Sections still running are deferred below.
+                }
+            } else {
+                done.get();
+            }
+            for (int i = 0; i < parts.length; i++) {
+                java.util.concurrent.CompletableFuture<String> future = futures.get(i);
+                if (future.isDone()) {
+                    parts[i] = future.get();
+                    continue;
+                }
+                ui.Target late = ui.Target();
+                parts[i] = late.Skeleton(fallback);
+                Defer(late.Replace, ctx -> future.get(), () -> future.cancel(true));
+            }
+        } catch (java.util.concurrent.ExecutionException | InterruptedException ex) {
+            // The page fails (or its request thread was stopped): the other sections are not needed any more.
+            for (java.util.concurrent.CompletableFuture<String> future : futures) {
+                future.cancel(true);
+            }
+            if (ex instanceof java.util.concurrent.ExecutionException && ex.getCause() instanceof Exception e) {
+                throw e;
+            }
+            throw ex;
+        }
+        return ui.Nodes((Object[]) parts).render();
+    }
+
+    public String Lazy(ui.Target target, Callable job) {
+        return Lazy(target, ui.SkeletonType.component, job);
+    }
+
+    /**
+     * Renders a skeleton for {@code target} and runs {@code job} only once the
+     * placeholder nears the viewport. The result replaces the skeleton, so give
+     * it {@code target.id()} if it should stay addressable. The job runs at most
+     * once; if the session navigates away first it never runs.
+     */
+    public String Lazy(ui.Target target, ui.SkeletonType type, Callable job) {
+        if (target == null) {
+            return "";
+        }
+        String skeleton = target.Skeleton(type);
+        if (job == null || app == null) {
+            return skeleton;
+        }
+        final Callable[] route = new Callable[1];
+        route[0] = app.Callable(ctx -> {
+            app.unregister(route[0]);
+            return job.handle(ctx);
+        });
+        // The target may already carry a Defer, Repeat or Patch cleanup; keep it.
+        app.chainClear(sessionID, target.id, () -> app.unregister(route[0]));
+        return skeleton + ui.Script("__lazy('%s','%s','%s');"
+                .formatted(ui.Normalize(target.id), app.pathOf(route[0]), ui.Swap.outline.name()));
+    }
+
+    public String Job(ui.Target target, Jobs.Task task) {
+        return Job(target, Jobs.Priority.NORMAL, task);
+    }
+
+    /**
+     * Queues {@code task} on the app's job queue (see {@link App#jobs}) and
+     * returns a placeholder for {@code target}. Progress reported by the task is
+     * patched into the target as a progress bar and its result replaces the bar
+     * when it finishes. Clearing the session's targets, e.g. by navigating away,
+     * cancels the job. Returns an empty string and shows an error when the
+     * queue is full.
+     */
+    public String Job(ui.Target target, Jobs.Priority priority, Jobs.Task task) {
+        if (target == null || task == null || app == null) {
+            return "";
+        }
+        final long[] last = { 0L, -1L };
+        Jobs.Progress progress = new Jobs.Progress(sessionID, priority, (done, total) -> {
+            long percent = total > 0 ? Math.min(100L, Math.max(0L, done * 100 / total)) : 0L;
+            long now = System.currentTimeMillis();
+            if (percent == last[1] || now - last[0] < 250) {
+                return;
+            }
+            last[0] = now;
+            last[1] = percent;
+            sendPatch(target.id, ui.Swap.inline, jobProgress((int) percent,
+                    total > 0 ? percent + "%" : String.valueOf(done)));
+        });
+        Jobs queue = app.jobs();
+        boolean queued = queue.submit(progress, p -> {
+            String html;
+            try {
+                html = task.run(p);
+            } catch (InterruptedException ex) {
+                return;
+            } catch (Exception ex) {
+                html = ui.div("text-red-700").render(Escape.html(ex.getMessage() != null ? ex.getMessage() : "Job failed"));
+            }
+            // Retry until the WebSocket is connected, as Defer does
+            for (int attempt = 0; html != null && attempt < 50 && !p.cancelled() && !stale(); attempt++) {
+                if (sendPatch(target.id, ui.Swap.inline, html)) {
+                    return;
+                }
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        });
+        if (!queued) {
+            Error("Too many jobs are waiting, please try again later.");
+            return "";
+        }
+        app.registerClear(sessionID, target.id, () -> queue.cancel(progress));
+        return ui.div("", target.id()).render(jobProgress(0, "Queued"));
+    }
+
+    private static String jobProgress(int percent, String label) {
+        return ui.ProgressBar().Value(percent).Striped(true).Animated(true).Label(label).Render();
+    }
+
+    /**
+     * Offers {@code stream} as a download. The stream is read to the end during
+     * this call into a temporary file, which is served from a one-time URL and
+     * deleted afterwards, so the caller may close the stream as before.
+     */
     public void DownloadAs(InputStream stream, String contentType, String name) throws IOException {
         if (stream == null)
             return;
-        try (java.io.ByteArrayOutputStream buf = new java.io.ByteArrayOutputStream()) {
-            byte[] tmp = new byte[8192];
-            int r;
-            while ((r = stream.read(tmp)) != -1)
-                buf.write(tmp, 0, r);
-            DownloadAs(buf.toByteArray(), contentType, name);
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("jsui-download-", ".tmp");
+        try {
+            java.nio.file.Files.copy(stream, file, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            DownloadFile(file, contentType, (name == null || name.isEmpty()) ? "download" : name, true);
+        } catch (IOException | RuntimeException ex) {
+            java.nio.file.Files.deleteIfExists(file);
+            throw ex;
         }
     }
 
+    /** Offers {@code content} as a download served with its length from a one-time URL. */
     public void DownloadAs(byte[] content, String contentType, String name) {
         if (content == null)
             return;
         String ct = (contentType == null || contentType.isEmpty()) ? "application/octet-stream" : contentType;
         String filename = (name == null || name.isEmpty()) ? "download" : name;
-        String base64 = java.util.Base64.getEncoder().encodeToString(content);
-        String href = "data:" + ct + ";base64," + base64;
-        String normalizedHref = ui.Normalize(href);
-        String normalizedFilename = ui.Normalize(filename);
+        if (app == null) {
+            String base64 = java.util.Base64.getEncoder().encodeToString(content);
+            downloadScript("data:" + ct + ";base64," + base64, filename);
+            return;
+        }
+        String href = app.registerDownload(sessionID, filename, ct, content.length,
+                () -> new java.io.ByteArrayInputStream(content), null);
+        downloadScript(href, filename);
+    }
+
+    /**
+     * Offers a download whose bytes are produced only when the browser fetches
+     * the one-time URL. They are streamed with chunked encoding unless
+     * {@code length} is not negative, in which case it is sent as Content-Length.
+     */
+    public void DownloadAs(DownloadSource source, long length, String contentType, String name) {
+        if (source == null || app == null)
+            return;
+        String ct = (contentType == null || contentType.isEmpty()) ? "application/octet-stream" : contentType;
+        String filename = (name == null || name.isEmpty()) ? "download" : name;
+        String href = app.registerDownload(sessionID, filename, ct, length, source, null);
+        downloadScript(href, filename);
+    }
+
+    /** Offers {@code file} as a download streamed from disk. */
+    public void DownloadAs(java.nio.file.Path file, String contentType, String name) throws IOException {
+        DownloadFile(file, contentType, name, false);
+    }
+
+    /**
+     * Serves {@code file} from a one-time, session-bound URL and makes the
+     * browser fetch it; the bytes are streamed from disk, never held in memory.
+     * With {@code delete} the file is removed once sent or when the link expires.
+     */
+    void DownloadFile(java.nio.file.Path file, String contentType, String name, boolean delete) throws IOException {
+        String href = DownloadLink(file, contentType, name, delete);
+        if (href != null) {
+            downloadScript(href, (name == null || name.isEmpty()) ? file.getFileName().toString() : name);
+        }
+    }
+
+    /**
+     * Registers {@code file} like {@link #DownloadFile} but returns its one-time
+     * URL instead of starting the download, e.g. for a link patched in by a
+     * background {@link #Job}. Returns null without an app.
+     */
+    String DownloadLink(java.nio.file.Path file, String contentType, String name, boolean delete) throws IOException {
+        if (file == null)
+            return null;
+        String ct = (contentType == null || contentType.isEmpty()) ? "application/octet-stream" : contentType;
+        String filename = (name == null || name.isEmpty()) ? file.getFileName().toString() : name;
+        Runnable cleanup = delete ? () -> {
+            try {
+                java.nio.file.Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+        } : null;
+        if (app == null) {
+            if (cleanup != null) {
+                cleanup.run();
+            }
+            return null;
+        }
+        return app.registerDownload(sessionID, filename, ct, java.nio.file.Files.size(file),
+                () -> java.nio.file.Files.newInputStream(file), cleanup);
+    }
+
+    private void downloadScript(String href, String filename) {
         String js = """
                 (function(){var a=document.createElement('a');a.href='%s';a.download='%s';document.body.appendChild(a);a.click();\
                 setTimeout(function(){try{document.body.removeChild(a);}catch(_){}},0);})();"""
-                .formatted(normalizedHref, normalizedFilename);
+                .formatted(ui.Normalize(href), ui.Normalize(filename));
         append.add(ui.Script(js));
     }
 
@@ -534,10 +830,95 @@ public final class Context {
         return ui.Script(s);
     }
 
+    private String streamedFragment(String id, String swap, String html) {
+        String templateId = "jsui_tpl_" + ui.RandomString(12);
+        return "<template id=\"" + templateId + "\">" + html + "</template>" + ui.Script(
+                "(function(){var t=document.getElementById('%s');if(!t)return;t.remove();__applySwap('%s','%s',t.innerHTML);})();"
+                        .formatted(templateId, ui.Normalize(id), swap));
+    }
+
+    /**
+     * Completed {@link #Defer} results queued for the open page response. Jobs
+     * register while the page renders; once the server closes the stream,
+     * {@link #offer} refuses and the job falls back to a WebSocket patch.
+     */
+    static final class DeferStream {
+        private final java.util.ArrayDeque<String> ready = new java.util.ArrayDeque<>();
+        private int pending;
+        private boolean closed;
+
+        synchronized boolean open() {
+            if (closed) {
+                return false;
+            }
+            pending++;
+            return true;
+        }
+
+        synchronized boolean offer(String fragment) {
+            if (closed) {
+                return false;
+            }
+            pending--;
+            ready.add(fragment);
+            notifyAll();
+            return true;
+        }
+
+        synchronized void skip() {
+            if (!closed) {
+                pending--;
+                notifyAll();
+            }
+        }
+
+        synchronized boolean waiting() {
+            return pending > 0 || !ready.isEmpty();
+        }
+
+        /** Waits until a result is ready; returns null when nothing is left or the deadline passed. */
+        synchronized String next(long deadline) throws InterruptedException {
+            while (ready.isEmpty() && pending > 0) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) {
+                    return null;
+                }
+                wait(left);
+            }
+            return ready.poll();
+        }
+
+        /** Stops accepting results and returns the ones not yet written. */
+        synchronized List<String> close() {
+            closed = true;
+            List<String> rest = new ArrayList<>(ready);
+            ready.clear();
+            return rest;
+        }
+    }
+
     public interface PatchSender {
         void send(String sessionId, String message) throws Exception;
     }
 
+    /** Opens the bytes of a download when the browser requests it. */
+    public interface DownloadSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Response body that is sent to the client while the page is still being
+     * rendered. The first write commits the status line and headers.
+     */
+    interface ResponseStream {
+        void write(String html) throws IOException;
+
+        /** Writes already encoded {@code utf8} parts as one piece of the body. */
+        void write(byte[]... utf8) throws IOException;
+
+        boolean committed();
+    }
+
     private void displayMessage(String message, String color) {
         String escapedMessage = escapeJs(message != null ? message : "");
         String escapedColor = escapeJs(color != null ? color : "");
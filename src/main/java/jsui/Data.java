@@ -1,26 +1,33 @@
 package jsui;
 
-import java.io.ByteArrayOutputStream;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 /**
  * Java port of key data helpers from t-sui/ui.data.ts.
@@ -32,22 +39,54 @@ public final class Data {
     private Data() {
     }
 
+    private static final String[][] FOLD_PAIRS = new String[][] {
+            { "á", "a" }, { "ä", "a" }, { "à", "a" }, { "â", "a" }, { "ã", "a" }, { "å", "a" }, { "æ", "ae" },
+            { "č", "c" }, { "ć", "c" }, { "ç", "c" }, { "ď", "d" }, { "đ", "d" }, { "é", "e" }, { "ë", "e" },
+            { "è", "e" }, { "ê", "e" }, { "ě", "e" }, { "í", "i" }, { "ï", "i" }, { "ì", "i" }, { "î", "i" },
+            { "ľ", "l" }, { "ĺ", "l" }, { "ł", "l" }, { "ň", "n" }, { "ń", "n" }, { "ñ", "n" }, { "ó", "o" },
+            { "ö", "o" }, { "ò", "o" }, { "ô", "o" }, { "õ", "o" }, { "ø", "o" }, { "œ", "oe" }, { "ř", "r" },
+            { "ŕ", "r" }, { "š", "s" }, { "ś", "s" }, { "ş", "s" }, { "ș", "s" }, { "ť", "t" }, { "ț", "t" },
+            { "ú", "u" }, { "ü", "u" }, { "ù", "u" }, { "û", "u" }, { "ů", "u" }, { "ý", "y" }, { "ÿ", "y" },
+            { "ž", "z" }, { "ź", "z" }, { "ż", "z" }
+    };
+
+    /** Lower-case ASCII replacement per accented character, indexed by char. */
+    private static final String[] FOLD = new String[0x220];
+    static {
+        for (String[] kv : FOLD_PAIRS) {
+            FOLD[kv[0].charAt(0)] = kv[1];
+        }
+    }
+
+    /** Lower-cases and strips the diacritics listed in FOLD_PAIRS in a single pass. */
     public static String NormalizeForSearch(String input) {
-        String s = (input == null ? "" : input).toLowerCase(Locale.ROOT);
-        String[][] repl = new String[][] {
-                { "á", "a" }, { "ä", "a" }, { "à", "a" }, { "â", "a" }, { "ã", "a" }, { "å", "a" }, { "æ", "ae" },
-                { "č", "c" }, { "ć", "c" }, { "ç", "c" }, { "ď", "d" }, { "đ", "d" }, { "é", "e" }, { "ë", "e" },
-                { "è", "e" }, { "ê", "e" }, { "ě", "e" }, { "í", "i" }, { "ï", "i" }, { "ì", "i" }, { "î", "i" },
-                { "ľ", "l" }, { "ĺ", "l" }, { "ł", "l" }, { "ň", "n" }, { "ń", "n" }, { "ñ", "n" }, { "ó", "o" },
-                { "ö", "o" }, { "ò", "o" }, { "ô", "o" }, { "õ", "o" }, { "ø", "o" }, { "œ", "oe" }, { "ř", "r" },
-                { "ŕ", "r" }, { "š", "s" }, { "ś", "s" }, { "ş", "s" }, { "ș", "s" }, { "ť", "t" }, { "ț", "t" },
-                { "ú", "u" }, { "ü", "u" }, { "ù", "u" }, { "û", "u" }, { "ů", "u" }, { "ý", "y" }, { "ÿ", "y" },
-                { "ž", "z" }, { "ź", "z" }, { "ż", "z" }
-        };
-        for (String[] kv : repl) {
-            s = s.replace(kv[0], kv[1]);
+        if (input == null || input.isEmpty()) {
+            return "";
+        }
+        String s = input.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (c < FOLD.length && FOLD[c] != null) {
+                break;
+            }
+            i++;
         }
-        return s;
+        if (i == s.length()) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 4);
+        sb.append(s, 0, i);
+        for (; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String folded = c < FOLD.length ? FOLD[c] : null;
+            if (folded != null) {
+                sb.append(folded);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
     }
 
     public static final int BOOL = 0;
@@ -93,6 +132,28 @@ public final class Data {
         public String Order = "";
         public String Search = "";
         public List<TField> Filter = new ArrayList<>();
+        /**
+         * Keyset cursor: sort key values of the last row already shown, in
+         * {@link LoadResult#cursor} order. Empty for the first page; when set,
+         * loaders should seek past it instead of skipping {@code Offset} rows.
+         */
+        public List<String> Cursor = new ArrayList<>();
+        /** Sort direction the cursor was taken in, {@code asc} or {@code desc}. */
+        public String CursorDirection = "";
+        /**
+         * Filter fields to count values of, returned in {@link LoadResult#facets}.
+         * Loaders without facet support ignore it.
+         */
+        public List<String> Facets = new ArrayList<>();
+
+        public boolean hasCursor() {
+            return Cursor != null && !Cursor.isEmpty();
+        }
+
+        /** Comparison for a seek query, e.g. {@code WHERE (created, id) < (?, ?)}. */
+        public String seekOperator() {
+            return "desc".equalsIgnoreCase(CursorDirection) ? "<" : ">";
+        }
     }
 
     @lombok.Data
@@ -101,6 +162,8 @@ public final class Data {
         public int Filtered;
         public List<T> Data = new ArrayList<>();
         public TQuery Query;
+        public List<String> Cursor = new ArrayList<>();
+        public Map<String, Map<String, Integer>> Facets = new LinkedHashMap<>();
     }
 
     @lombok.Data
@@ -108,48 +171,1292 @@ public final class Data {
         public int total;
         public int filtered;
         public List<T> data = new ArrayList<>();
+        /**
+         * Sort key values of the last row in {@code data}. Loaders that support
+         * keyset pagination set it; load more then sends it back as
+         * {@link TQuery#Cursor}.
+         */
+        public List<String> cursor = new ArrayList<>();
+        /**
+         * Counts per value, lower-cased, of each field in {@link TQuery#Facets}
+         * among the rows matching the search and all other filters; a field's
+         * own filter is ignored so its other values keep their counts. BOOL
+         * fields count under {@code "true"} and {@code "false"}.
+         */
+        public Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
     }
 
+    /** Download formats offered next to the Collate search bar. */
+    public enum ExportFormat {
+        XLSX, CSV, NDJSON
+    }
+
+    /**
+     * Loads one page for {@link TQuery}. Loaders may also fill
+     * {@link LoadResult#facets} for the requested {@link TQuery#Facets} in the
+     * same call; {@link InMemoryLoader} and {@link SqlLoader} do.
+     */
     public interface Loader<T> {
         LoadResult<T> load(TQuery query) throws Exception;
     }
 
-    public interface CollateModel<T> {
-        void setSort(List<TField> fields);
+    /**
+     * Non-blocking loader for {@link #CollateAsync}. Each call must return a
+     * new future: cancelling it (a newer query from the same collate arrived)
+     * should stop the work, e.g. by interrupting the thread or cancelling the
+     * running statement.
+     */
+    public interface AsyncLoader<T> {
+        java.util.concurrent.CompletableFuture<LoadResult<T>> loadAsync(TQuery query);
+    }
+
+    public interface CollateModel<T> {
+        void setSort(List<TField> fields);
+
+        void setFilter(List<TField> fields);
+
+        void setSearch(List<TField> fields);
+
+        void setExcel(List<TField> fields);
+
+        /**
+         * Filter fields (SELECT or BOOL, matched by DB name) whose options show
+         * how many rows each value would match. Off by default, as counting
+         * costs the loader extra work on every search; sorting reuses the
+         * counts of the same search.
+         */
+        void setFacets(List<TField> fields);
+
+        /**
+         * Export buttons to show. Defaults to {@link ExportFormat#XLSX} when
+         * Excel fields are set. CSV and NDJSON are streamed page by page.
+         */
+        void setExport(ExportFormat... formats);
+
+        /**
+         * Registers the actions on {@code app} right away under stable
+         * {@code /act/<prefix>/...} routes instead of generated {@code /call/}
+         * ones, so pages still open across a restart keep working.
+         */
+        void setRoutes(App app, String prefix);
+
+        void Row(RenderRow<T> fn);
+
+        void Export(Export<T> fn);
+
+        String Render(Context ctx);
+    }
+
+    public interface RenderRow<T> {
+        String render(T item, int index);
+    }
+
+    public interface Export<T> {
+        void export(List<T> items) throws Exception;
+    }
+
+    /**
+     * Runs a blocking {@code loader} on a shared daemon pool. Cancelling the
+     * returned future interrupts the loading thread. A loader that is already
+     * an {@link AsyncLoader}, like {@link SqlLoader}, is returned as is.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> AsyncLoader<T> Async(Loader<T> loader) {
+        if (loader instanceof AsyncLoader<?> async) {
+            return (AsyncLoader<T>) async;
+        }
+        return query -> CancellableFuture.start(loadPool(), future -> loader.load(query));
+    }
+
+    private static volatile java.util.concurrent.ExecutorService loadPool;
+
+    static java.util.concurrent.ExecutorService loadPool() {
+        java.util.concurrent.ExecutorService pool = loadPool;
+        if (pool == null) {
+            synchronized (Data.class) {
+                pool = loadPool;
+                if (pool == null) {
+                    java.util.concurrent.atomic.AtomicInteger counter = new java.util.concurrent.atomic.AtomicInteger();
+                    pool = java.util.concurrent.Executors.newCachedThreadPool(r -> {
+                        Thread t = new Thread(r, "jsui-load-" + counter.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    loadPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Wraps {@code loader} in a result cache keyed by the normalized query; see
+     * {@link CachedLoader}.
+     */
+    public static <T> CachedLoader<T> Cached(Loader<T> loader, long ttlMillis, int maxEntries) {
+        return new CachedLoader<>(loader, ttlMillis, maxEntries);
+    }
+
+    /**
+     * {@link Loader} that keeps recent results for {@code ttlMillis}, up to
+     * {@code maxEntries} queries (least recently used are dropped first).
+     * Queries that differ only in whitespace, letter case of the order or
+     * inactive filters share an entry. Concurrent loads of the same query wait
+     * for a single call to the wrapped loader; when that call's thread is
+     * interrupted or cancelled, the waiters load again. Call {@link #invalidate} after
+     * writes. Returned results are shared; their data lists are read-only.
+     */
+    public static final class CachedLoader<T> implements Loader<T> {
+        private final Loader<T> loader;
+        private final long ttlMillis;
+        private final int maxEntries;
+        private final LinkedHashMap<String, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final java.util.concurrent.ConcurrentHashMap<String, java.util.concurrent.CompletableFuture<LoadResult<T>>> inflight = new java.util.concurrent.ConcurrentHashMap<>();
+        private final java.util.concurrent.atomic.AtomicLong hits = new java.util.concurrent.atomic.AtomicLong();
+        private final java.util.concurrent.atomic.AtomicLong misses = new java.util.concurrent.atomic.AtomicLong();
+        private final java.util.concurrent.atomic.AtomicLong coalesced = new java.util.concurrent.atomic.AtomicLong();
+        private long version;
+
+        private static final class Entry<T> {
+            final TQuery query;
+            final LoadResult<T> result;
+            final long expiresAt;
+
+            Entry(TQuery query, LoadResult<T> result, long expiresAt) {
+                this.query = query;
+                this.result = result;
+                this.expiresAt = expiresAt;
+            }
+        }
+
+        CachedLoader(Loader<T> loader, long ttlMillis, int maxEntries) {
+            this.loader = loader;
+            this.ttlMillis = Math.max(0L, ttlMillis);
+            this.maxEntries = Math.max(1, maxEntries);
+        }
+
+        @Override
+        public LoadResult<T> load(TQuery query) throws Exception {
+            String key = cacheKey(query);
+            while (true) {
+                long seen;
+                synchronized (entries) {
+                    Entry<T> cached = entries.get(key);
+                    if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+                        hits.incrementAndGet();
+                        return cached.result;
+                    }
+                    if (cached != null) {
+                        entries.remove(key);
+                    }
+                    seen = version;
+                }
+
+                java.util.concurrent.CompletableFuture<LoadResult<T>> mine = new java.util.concurrent.CompletableFuture<>();
+                java.util.concurrent.CompletableFuture<LoadResult<T>> running = inflight.putIfAbsent(key, mine);
+                if (running != null) {
+                    coalesced.incrementAndGet();
+                    try {
+                        return running.get();
+                    } catch (java.util.concurrent.ExecutionException ex) {
+                        Throwable cause = ex.getCause();
+                        if (cause instanceof Abandoned) {
+                            // The owner was interrupted or cancelled; that is not our failure, load again.
+                            coalesced.decrementAndGet();
+                            continue;
+                        }
+                        if (cause instanceof Exception e) {
+                            throw e;
+                        }
+                        throw ex;
+                    }
+                }
+
+                misses.incrementAndGet();
+                try {
+                    LoadResult<T> result = shared(loader.load(copyQuery(query)));
+                    synchronized (entries) {
+                        // A write invalidated the cache while loading: serve the result but do not keep it.
+                        if (seen == version && ttlMillis > 0) {
+                            entries.put(key, new Entry<>(copyQuery(query), result, System.currentTimeMillis() + ttlMillis));
+                            while (entries.size() > maxEntries) {
+                                entries.remove(entries.keySet().iterator().next());
+                            }
+                        }
+                    }
+                    inflight.remove(key, mine);
+                    mine.complete(result);
+                    return result;
+                } catch (Exception | Error ex) {
+                    inflight.remove(key, mine);
+                    if (ex instanceof InterruptedException || ex instanceof java.util.concurrent.CancellationException
+                            || Thread.currentThread().isInterrupted()) {
+                        mine.completeExceptionally(Abandoned.INSTANCE);
+                    } else {
+                        mine.completeExceptionally(ex);
+                    }
+                    throw ex;
+                }
+            }
+        }
+
+        /** Tells waiters that the load they joined was given up by its owner and should be retried. */
+        private static final class Abandoned extends RuntimeException {
+            static final Abandoned INSTANCE = new Abandoned();
+
+            private Abandoned() {
+                super("load abandoned", null, false, false);
+            }
+        }
+
+        /** Drops the cached results whose query matches {@code predicate}. */
+        public void invalidate(Predicate<TQuery> predicate) {
+            synchronized (entries) {
+                version++;
+                entries.values().removeIf(cached -> predicate == null || predicate.test(cached.query));
+            }
+            // Loads already running may have read the old data; later callers start a fresh one.
+            inflight.clear();
+        }
+
+        public void invalidateAll() {
+            invalidate(null);
+        }
+
+        public long hits() {
+            return hits.get();
+        }
+
+        public long misses() {
+            return misses.get();
+        }
+
+        /** Loads answered by waiting for an identical load already in progress. */
+        public long coalesced() {
+            return coalesced.get();
+        }
+
+        /** Share of loads served without calling the wrapped loader. */
+        public double hitRate() {
+            long served = hits.get() + coalesced.get();
+            long total = served + misses.get();
+            return total == 0 ? 0.0 : (double) served / total;
+        }
+
+        public int size() {
+            synchronized (entries) {
+                return entries.size();
+            }
+        }
+
+        private static <T> LoadResult<T> shared(LoadResult<T> load) {
+            LoadResult<T> out = new LoadResult<>();
+            if (load != null) {
+                out.total = load.total;
+                out.filtered = load.filtered;
+                out.data = load.data != null ? Collections.unmodifiableList(load.data) : Collections.emptyList();
+                out.cursor = load.cursor != null ? Collections.unmodifiableList(load.cursor) : Collections.emptyList();
+                out.facets = load.facets != null ? Collections.unmodifiableMap(load.facets) : Collections.emptyMap();
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Cache key of a query: trimmed order and search, the paging window, the
+     * cursor and only the filters that carry a value, in a fixed order.
+     */
+    static String cacheKey(TQuery query) {
+        if (query == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(collapse(query.Order).toLowerCase(Locale.ROOT)).append('\u0001');
+        sb.append(collapse(query.Search)).append('\u0001');
+        sb.append(query.Limit).append('\u0001').append(query.Offset).append('\u0001');
+        if (query.hasCursor()) {
+            sb.append(String.join("\u0002", query.Cursor)).append('\u0001');
+            sb.append(query.CursorDirection != null ? query.CursorDirection.toLowerCase(Locale.ROOT) : "");
+        }
+        sb.append('\u0001');
+        List<String> filters = new ArrayList<>();
+        if (query.Filter != null) {
+            for (TField f : query.Filter) {
+                boolean dates = f != null && f.Dates != null && (f.Dates.From != null || f.Dates.To != null);
+                if (f == null || (!f.Bool && (f.Value == null || f.Value.isEmpty()) && !dates)) {
+                    continue;
+                }
+                filters.add((f.DB != null ? f.DB : "") + '\u0002' + (f.Field != null ? f.Field : "") + '\u0002' + f.As
+                        + '\u0002' + (f.Condition != null ? f.Condition : "") + '\u0002' + f.Bool + '\u0002'
+                        + (f.Value != null ? f.Value : "") + '\u0002'
+                        + (dates && f.Dates.From != null ? f.Dates.From.getTime() : "") + '\u0002'
+                        + (dates && f.Dates.To != null ? f.Dates.To.getTime() : ""));
+            }
+        }
+        Collections.sort(filters);
+        sb.append(String.join("\u0003", filters));
+        if (query.Facets != null && !query.Facets.isEmpty()) {
+            List<String> facets = new ArrayList<>();
+            for (String f : query.Facets) {
+                facets.add(f != null ? f.trim().toLowerCase(Locale.ROOT) : "");
+            }
+            Collections.sort(facets);
+            sb.append('\u0001').append(String.join("\u0002", facets));
+        }
+        return sb.toString();
+    }
+
+    private static String collapse(String s) {
+        return s == null ? "" : s.trim().replaceAll("\\s+", " ");
+    }
+
+    /** Indexed {@link Loader} over {@code rows}; see {@link InMemoryLoader}. */
+    public static <T> InMemoryLoader<T> InMemory(List<T> rows) {
+        return new InMemoryLoader<>(rows);
+    }
+
+    /**
+     * {@link Loader} for datasets held in memory. The first load builds an
+     * index: folded search text with a trigram index, one pre-sorted
+     * permutation per {@link #Sort} key and one bitset per {@link #Filter}
+     * value, so queries neither copy, normalize nor sort rows. Rows are
+     * returned as is, not copied. Call {@link #Reload} after the data changes.
+     *
+     * <pre>
+     * Data.InMemoryLoader&lt;User&gt; users = Data.InMemory(list)
+     *         .Search(u -&gt; u.Name, u -&gt; u.Email)
+     *         .Sort("name", Comparator.comparing(u -&gt; u.Name, String.CASE_INSENSITIVE_ORDER))
+     *         .Filter("Role", u -&gt; u.Role)
+     *         .Date("CreatedAt", u -&gt; u.CreatedAt);
+     * </pre>
+     */
+    public static final class InMemoryLoader<T> implements Loader<T> {
+        private List<T> source;
+        private final List<Function<T, ?>> searchFields = new ArrayList<>();
+        private final Map<String, Comparator<? super T>> sorts = new LinkedHashMap<>();
+        private final Map<String, Function<T, ?>> filters = new LinkedHashMap<>();
+        private final Map<String, Function<T, Date>> dates = new LinkedHashMap<>();
+        private volatile Index<T> index;
+        private int generation;
+
+        InMemoryLoader(List<T> rows) {
+            this.source = rows != null ? rows : new ArrayList<>();
+        }
+
+        /** Fields matched by {@link TQuery#Search}, case and diacritics insensitive. */
+        @SafeVarargs
+        public final synchronized InMemoryLoader<T> Search(Function<T, ?>... fields) {
+            searchFields.addAll(List.of(fields));
+            index = null;
+            return this;
+        }
+
+        /** Order available as {@code "<name> asc"} or {@code "<name> desc"} in {@link TQuery#Order}. */
+        public synchronized InMemoryLoader<T> Sort(String name, Comparator<? super T> order) {
+            sorts.put(key(name), order);
+            index = null;
+            return this;
+        }
+
+        /** Filter by value for {@link #SELECT} and {@link #BOOL} fields named {@code name}. */
+        public synchronized InMemoryLoader<T> Filter(String name, Function<T, ?> value) {
+            filters.put(key(name), value);
+            index = null;
+            return this;
+        }
+
+        /** Date field for {@link #DATES}, {@link #ZERO_DATE} and {@link #NOT_ZERO_DATE} filters; also sortable. */
+        public synchronized InMemoryLoader<T> Date(String name, Function<T, Date> value) {
+            dates.put(key(name), value);
+            sorts.putIfAbsent(key(name), Comparator.comparing(value, Comparator.nullsFirst(Comparator.naturalOrder())));
+            index = null;
+            return this;
+        }
+
+        /** Replaces the dataset; the index is rebuilt on the next load. */
+        public synchronized InMemoryLoader<T> Reload(List<T> rows) {
+            source = rows != null ? rows : new ArrayList<>();
+            index = null;
+            return this;
+        }
+
+        private static String key(String name) {
+            return name != null ? name.trim().toLowerCase(Locale.ROOT) : "";
+        }
+
+        private Index<T> index() {
+            Index<T> current = index;
+            if (current == null) {
+                synchronized (this) {
+                    current = index;
+                    if (current == null) {
+                        current = new Index<>(this, ++generation);
+                        index = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        @Override
+        public LoadResult<T> load(TQuery query) {
+            Index<T> idx = index();
+            BitSet match = idx.match(query);
+            int filtered = match != null ? match.cardinality() : idx.rows.length;
+
+            String[] order = collapse(query.Order).toLowerCase(Locale.ROOT).split(" ");
+            String sortName = order[0];
+            int[] perm = idx.sorted.get(sortName);
+            boolean desc = order.length > 1 && "desc".equals(order[1]);
+            String cursorKey = sortName + ":" + idx.generation;
+
+            int n = idx.rows.length;
+            int limit = query.Limit > 0 ? query.Limit : 10;
+            int skip = Math.max(0, query.Offset);
+            int position = desc ? n - 1 : 0;
+            if (query.hasCursor() && query.Cursor.size() == 2 && cursorKey.equals(query.Cursor.get(0))) {
+                // Keyset: continue right after the permutation position of the last row shown
+                try {
+                    int rank = Integer.parseInt(query.Cursor.get(1));
+                    position = desc ? rank - 1 : rank + 1;
+                    skip = 0;
+                } catch (NumberFormatException ignored) {
+                }
+            }
+
+            LoadResult<T> result = new LoadResult<>();
+            result.total = n;
+            result.filtered = filtered;
+            int last = -1;
+            for (int p = position; p >= 0 && p < n && result.data.size() < limit; p += desc ? -1 : 1) {
+                int row = perm != null ? perm[p] : p;
+                if (match != null && !match.get(row)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                @SuppressWarnings("unchecked")
+                T item = (T) idx.rows[row];
+                result.data.add(item);
+                last = p;
+            }
+            if (last >= 0) {
+                result.cursor = List.of(cursorKey, Integer.toString(last));
+            }
+            result.facets = idx.facets(query);
+            return result;
+        }
+    }
+
+    /** Immutable index over one snapshot of an {@link InMemoryLoader}'s rows. */
+    private static final class Index<T> {
+        final Object[] rows;
+        final int generation;
+        /** Folded text of each search field, per row; a match never spans two fields. */
+        final String[][] text;
+        final Map<Long, int[]> trigrams = new HashMap<>();
+        final Map<String, int[]> sorted = new HashMap<>();
+        final Map<String, Map<String, BitSet>> values = new HashMap<>();
+        final Map<String, long[]> times = new HashMap<>();
+        final Map<String, int[]> byTime = new HashMap<>();
+
+        Index(InMemoryLoader<T> loader, int generation) {
+            this.rows = new ArrayList<>(loader.source).toArray();
+            this.generation = generation;
+            int n = rows.length;
+
+            text = new String[n][];
+            Map<Long, int[]> postings = new HashMap<>();
+            Map<Long, Integer> sizes = new HashMap<>();
+            int fields = loader.searchFields.size();
+            for (int r = 0; r < n; r++) {
+                T item = row(r);
+                text[r] = new String[fields];
+                for (int k = 0; k < fields; k++) {
+                    Object v = item != null ? loader.searchFields.get(k).apply(item) : null;
+                    String folded = NormalizeForSearch(v != null ? String.valueOf(v) : "");
+                    text[r][k] = folded;
+                    for (int i = 0; i + 3 <= folded.length(); i++) {
+                        long gram = trigram(folded, i);
+                        int size = sizes.getOrDefault(gram, 0);
+                        int[] list = postings.get(gram);
+                        if (size > 0 && list[size - 1] == r) {
+                            continue;
+                        }
+                        if (list == null || size == list.length) {
+                            list = list == null ? new int[4] : Arrays.copyOf(list, size * 2);
+                            postings.put(gram, list);
+                        }
+                        list[size] = r;
+                        sizes.put(gram, size + 1);
+                    }
+                }
+            }
+            for (Map.Entry<Long, int[]> e : postings.entrySet()) {
+                trigrams.put(e.getKey(), Arrays.copyOf(e.getValue(), sizes.get(e.getKey())));
+            }
+
+            for (Map.Entry<String, Comparator<? super T>> e : loader.sorts.entrySet()) {
+                Comparator<? super T> order = e.getValue();
+                Integer[] perm = new Integer[n];
+                for (int r = 0; r < n; r++) {
+                    perm[r] = r;
+                }
+                // Stable sort keeps equal keys in dataset order, so every row has a fixed position
+                Arrays.sort(perm, (a, b) -> order.compare(row(a), row(b)));
+                sorted.put(e.getKey(), Arrays.stream(perm).mapToInt(Integer::intValue).toArray());
+            }
+
+            for (Map.Entry<String, Function<T, ?>> e : loader.filters.entrySet()) {
+                Map<String, BitSet> byValue = new HashMap<>();
+                for (int r = 0; r < n; r++) {
+                    Object v = row(r) != null ? e.getValue().apply(row(r)) : null;
+                    String value = v != null ? String.valueOf(v).toLowerCase(Locale.ROOT) : "";
+                    byValue.computeIfAbsent(value, k -> new BitSet(n)).set(r);
+                }
+                values.put(e.getKey(), byValue);
+            }
+
+            for (Map.Entry<String, Function<T, Date>> e : loader.dates.entrySet()) {
+                long[] at = new long[n];
+                for (int r = 0; r < n; r++) {
+                    Date d = row(r) != null ? e.getValue().apply(row(r)) : null;
+                    at[r] = d != null ? d.getTime() : 0L;
+                }
+                Integer[] perm = new Integer[n];
+                for (int r = 0; r < n; r++) {
+                    perm[r] = r;
+                }
+                Arrays.sort(perm, (a, b) -> Long.compare(at[a], at[b]));
+                int[] order = Arrays.stream(perm).mapToInt(Integer::intValue).toArray();
+                long[] sortedTimes = new long[n];
+                for (int i = 0; i < n; i++) {
+                    sortedTimes[i] = at[order[i]];
+                }
+                times.put(e.getKey(), sortedTimes);
+                byTime.put(e.getKey(), order);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        T row(int r) {
+            return (T) rows[r];
+        }
+
+        /** Rows matching the query's search and filters, or {@code null} for all rows. */
+        BitSet match(TQuery query) {
+            BitSet match = null;
+            if (query.Filter != null) {
+                for (TField f : query.Filter) {
+                    BitSet rowsFor = filter(f);
+                    if (rowsFor != null) {
+                        match = and(match, rowsFor);
+                    }
+                }
+            }
+            String search = NormalizeForSearch(collapse(query.Search));
+            if (!search.isEmpty()) {
+                match = and(match, search(search, match));
+            }
+            return match;
+        }
+
+        /**
+         * Value counts of the requested facets. Each facet intersects the value
+         * bitsets with the search and every filter except those on the facet.
+         */
+        Map<String, Map<String, Integer>> facets(TQuery query) {
+            Map<String, Map<String, Integer>> out = new LinkedHashMap<>();
+            if (query.Facets == null || query.Facets.isEmpty()) {
+                return out;
+            }
+            List<String> names = new ArrayList<>();
+            List<BitSet> sets = new ArrayList<>();
+            if (query.Filter != null) {
+                for (TField f : query.Filter) {
+                    BitSet rowsFor = filter(f);
+                    if (rowsFor != null) {
+                        names.add(InMemoryLoader.key(f.Field != null && !f.Field.isEmpty() ? f.Field : f.DB));
+                        sets.add(rowsFor);
+                    }
+                }
+            }
+            String needle = NormalizeForSearch(collapse(query.Search));
+            BitSet searched = needle.isEmpty() ? null : search(needle, null);
+            for (String facet : query.Facets) {
+                String name = InMemoryLoader.key(facet);
+                Map<String, BitSet> byValue = values.get(name);
+                if (byValue == null || out.containsKey(facet)) {
+                    continue;
+                }
+                BitSet base = searched != null ? (BitSet) searched.clone() : null;
+                for (int i = 0; i < sets.size(); i++) {
+                    if (!names.get(i).equals(name)) {
+                        base = and(base, sets.get(i));
+                    }
+                }
+                Map<String, Integer> counts = new LinkedHashMap<>();
+                for (Map.Entry<String, BitSet> e : byValue.entrySet()) {
+                    int count;
+                    if (base == null) {
+                        count = e.getValue().cardinality();
+                    } else {
+                        BitSet both = (BitSet) e.getValue().clone();
+                        both.and(base);
+                        count = both.cardinality();
+                    }
+                    if (count > 0) {
+                        counts.put(e.getKey(), count);
+                    }
+                }
+                out.put(facet, counts);
+            }
+            return out;
+        }
+
+        private BitSet search(String needle, BitSet within) {
+            BitSet found = new BitSet(rows.length);
+            if (needle.length() < 3) {
+                for (int r = within != null ? within.nextSetBit(0) : 0; r >= 0 && r < rows.length;
+                        r = within != null ? within.nextSetBit(r + 1) : r + 1) {
+                    if (contains(r, needle)) {
+                        found.set(r);
+                    }
+                }
+                return found;
+            }
+            // Rows containing the needle contain all of its trigrams; start from the rarest one
+            int[] rarest = null;
+            for (int i = 0; i + 3 <= needle.length(); i++) {
+                int[] list = trigrams.get(trigram(needle, i));
+                if (list == null) {
+                    return found;
+                }
+                if (rarest == null || list.length < rarest.length) {
+                    rarest = list;
+                }
+            }
+            for (int r : rarest) {
+                if ((within == null || within.get(r)) && contains(r, needle)) {
+                    found.set(r);
+                }
+            }
+            return found;
+        }
+
+        private boolean contains(int r, String needle) {
+            for (String field : text[r]) {
+                if (field.contains(needle)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private BitSet filter(TField f) {
+            if (f == null) {
+                return null;
+            }
+            String name = InMemoryLoader.key(f.Field != null && !f.Field.isEmpty() ? f.Field : f.DB);
+            if (f.As == DATES && f.Dates != null && times.containsKey(name)) {
+                long from = f.Dates.From != null && f.Dates.From.getTime() > 0 ? startOfDay(f.Dates.From) : Long.MIN_VALUE;
+                long to = f.Dates.To != null && f.Dates.To.getTime() > 0 ? endOfDay(f.Dates.To) : Long.MAX_VALUE;
+                if (from == Long.MIN_VALUE && to == Long.MAX_VALUE) {
+                    return null;
+                }
+                long[] at = times.get(name);
+                int[] order = byTime.get(name);
+                BitSet out = new BitSet(rows.length);
+                for (int i = lowerBound(at, from); i < at.length && at[i] <= to; i++) {
+                    out.set(order[i]);
+                }
+                return out;
+            }
+            if ((f.As == ZERO_DATE || f.As == NOT_ZERO_DATE) && f.Bool && times.containsKey(name)) {
+                long[] at = times.get(name);
+                int[] order = byTime.get(name);
+                int zeros = lowerBound(at, 1L);
+                BitSet out = new BitSet(rows.length);
+                for (int i = f.As == ZERO_DATE ? 0 : zeros; i < (f.As == ZERO_DATE ? zeros : at.length); i++) {
+                    out.set(order[i]);
+                }
+                return out;
+            }
+            Map<String, BitSet> byValue = values.get(name);
+            if (byValue == null) {
+                return null;
+            }
+            if (f.As == BOOL && f.Bool) {
+                return byValue.getOrDefault("true", new BitSet());
+            }
+            if (f.As == SELECT && f.Value != null && !f.Value.isEmpty()) {
+                return byValue.getOrDefault(f.Value.toLowerCase(Locale.ROOT), new BitSet());
+            }
+            return null;
+        }
+
+        private static BitSet and(BitSet a, BitSet b) {
+            if (a == null) {
+                return (BitSet) b.clone();
+            }
+            a.and(b);
+            return a;
+        }
+
+        private static int lowerBound(long[] sortedValues, long value) {
+            int lo = 0;
+            int hi = sortedValues.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sortedValues[mid] < value) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private static long trigram(String s, int i) {
+            return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+        }
+
+        static long startOfDay(Date date) {
+            return dayBoundary(date, 0, 0, 0, 0);
+        }
+
+        static long endOfDay(Date date) {
+            return dayBoundary(date, 23, 59, 59, 999);
+        }
+
+        private static long dayBoundary(Date date, int hour, int minute, int second, int millis) {
+            Calendar cal = Calendar.getInstance();
+            cal.setTime(date);
+            cal.set(Calendar.HOUR_OF_DAY, hour);
+            cal.set(Calendar.MINUTE, minute);
+            cal.set(Calendar.SECOND, second);
+            cal.set(Calendar.MILLISECOND, millis);
+            return cal.getTimeInMillis();
+        }
+    }
+
+    public interface RowMapper<T> {
+        T map(java.sql.ResultSet rs) throws java.sql.SQLException;
+    }
+
+    /**
+     * JDBC {@link Loader} reading from {@code from}, a table name or a trusted
+     * SQL fragment such as a join; see {@link SqlLoader}.
+     */
+    public static <T> SqlLoader<T> Sql(javax.sql.DataSource dataSource, String from, RowMapper<T> mapper) {
+        return new SqlLoader<>(dataSource, from, mapper);
+    }
+
+    /**
+     * Compiles a {@link TQuery} into parameterized SQL. {@code Order} and
+     * filters may only name columns registered with {@link #Columns} or
+     * {@link #Search}, matched case-insensitively by {@link TField#Field} or
+     * {@link TField#DB}; anything else is ignored, and {@link TField#Condition}
+     * is never used. Search is a case-insensitive {@code LIKE} over the search
+     * columns. The total count, filtered count and page run concurrently on
+     * separate connections. Load more continues from a keyset cursor on the
+     * sort column and {@link #Key}; NULLs of the sort column come first in
+     * ascending order on every database. The SQL text only depends on the shape of
+     * the query, so the driver's or pool's statement cache reuses prepared
+     * statements across loads.
+     *
+     * <p>The page selects {@code *} plus the sort and key columns under the
+     * aliases {@code __jsui_sort} and {@code __jsui_key}, so qualified columns
+     * of a join work as well. It is limited with {@code LIMIT ? OFFSET ?}
+     * (PostgreSQL, MySQL, MariaDB, SQLite, H2) or, after {@link #OffsetFetch},
+     * with {@code OFFSET ? ROWS FETCH NEXT ? ROWS ONLY} (SQL Server 2012+).
+     * Oracle is not supported: it rejects {@code *} next to other columns.
+     */
+    public static final class SqlLoader<T> implements Loader<T>, AsyncLoader<T> {
+        private static volatile java.util.concurrent.ExecutorService sharedPool;
+
+        private final javax.sql.DataSource dataSource;
+        private final String from;
+        private final RowMapper<T> mapper;
+        private final Map<String, String> columns = new LinkedHashMap<>();
+        private final List<String> searchColumns = new ArrayList<>();
+        private String key;
+        private boolean offsetFetch;
+        private java.util.concurrent.Executor executor;
+
+        SqlLoader(javax.sql.DataSource dataSource, String from, RowMapper<T> mapper) {
+            this.dataSource = dataSource;
+            this.from = from;
+            this.mapper = mapper;
+        }
+
+        /** Columns that {@code Order} and filters may refer to. */
+        public synchronized SqlLoader<T> Columns(String... names) {
+            for (String name : names) {
+                if (name != null && !name.isBlank()) {
+                    columns.put(name.trim().toLowerCase(Locale.ROOT), name.trim());
+                }
+            }
+            return this;
+        }
+
+        /** Columns matched by {@link TQuery#Search}. */
+        public synchronized SqlLoader<T> Search(String... names) {
+            Columns(names);
+            for (String name : names) {
+                if (name != null && !name.isBlank()) {
+                    searchColumns.add(name.trim());
+                }
+            }
+            return this;
+        }
+
+        /** Unique column used as the tie-breaker of every order and in the keyset cursor. */
+        public synchronized SqlLoader<T> Key(String name) {
+            Columns(name);
+            this.key = name != null ? name.trim() : null;
+            return this;
+        }
+
+        /**
+         * Pages with {@code OFFSET ? ROWS FETCH NEXT ? ROWS ONLY} instead of
+         * {@code LIMIT ? OFFSET ?}. SQL Server also needs an order, so set a
+         * {@link #Key}.
+         */
+        public synchronized SqlLoader<T> OffsetFetch() {
+            this.offsetFetch = true;
+            return this;
+        }
+
+        /** Runs the count queries on {@code executor} instead of a shared daemon pool. */
+        public synchronized SqlLoader<T> Executor(java.util.concurrent.Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        private static java.util.concurrent.ExecutorService sharedPool() {
+            java.util.concurrent.ExecutorService pool = sharedPool;
+            if (pool == null) {
+                synchronized (SqlLoader.class) {
+                    pool = sharedPool;
+                    if (pool == null) {
+                        java.util.concurrent.atomic.AtomicInteger counter = new java.util.concurrent.atomic.AtomicInteger();
+                        pool = java.util.concurrent.Executors.newCachedThreadPool(r -> {
+                            Thread t = new Thread(r, "jsui-sql-" + counter.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        });
+                        sharedPool = pool;
+                    }
+                }
+            }
+            return pool;
+        }
+
+        private synchronized String column(String name) {
+            return name != null ? columns.get(name.trim().toLowerCase(Locale.ROOT)) : null;
+        }
+
+        @Override
+        public LoadResult<T> load(TQuery query) throws Exception {
+            return run(query, null);
+        }
+
+        /** Loads on a daemon thread; cancelling the future cancels the running statements. */
+        @Override
+        public java.util.concurrent.CompletableFuture<LoadResult<T>> loadAsync(TQuery query) {
+            return CancellableFuture.start(loadPool(), future -> run(query, future));
+        }
+
+        private LoadResult<T> run(TQuery query, CancellableFuture<?> cancel) throws Exception {
+            List<String> where = new ArrayList<>();
+            List<Object> params = new ArrayList<>();
+            compileFilters(query, where, params, null);
+
+            String[] order = collapse(query.Order).split(" ");
+            String sort = column(order[0]);
+            String keyColumn;
+            boolean fetch;
+            synchronized (this) {
+                keyColumn = key;
+                fetch = offsetFetch;
+            }
+            if (sort == null) {
+                sort = keyColumn;
+            }
+            boolean desc = order.length > 1 && "desc".equalsIgnoreCase(order[1]);
+            String direction = desc ? " DESC" : " ASC";
+
+            List<String> pageWhere = new ArrayList<>(where);
+            List<Object> pageParams = new ArrayList<>(params);
+            int offset = Math.max(0, query.Offset);
+            int limit = query.Limit > 0 ? query.Limit : 10;
+            if (sort != null && keyColumn != null && query.hasCursor() && query.Cursor.size() == 3
+                    && sort.equalsIgnoreCase(query.Cursor.get(0))) {
+                Object after = decodeCursor(query.Cursor.get(1));
+                Object afterKey = decodeCursor(query.Cursor.get(2));
+                String op = desc ? " < ?" : " > ?";
+                if (sort.equals(keyColumn)) {
+                    pageWhere.add(keyColumn + op);
+                    pageParams.add(afterKey);
+                } else if (after == null) {
+                    // NULLs sort first ascending: after them come all non-NULL values
+                    pageWhere.add("((" + sort + " IS NULL AND " + keyColumn + op + ")"
+                            + (desc ? ")" : " OR " + sort + " IS NOT NULL)"));
+                    pageParams.add(afterKey);
+                } else {
+                    pageWhere.add("(" + sort + op + " OR (" + sort + " = ? AND " + keyColumn + op + ")"
+                            + (desc ? " OR " + sort + " IS NULL)" : ")"));
+                    pageParams.add(after);
+                    pageParams.add(after);
+                    pageParams.add(afterKey);
+                }
+                offset = 0;
+            }
+
+            boolean cursor = sort != null && keyColumn != null;
+            StringBuilder page = new StringBuilder("SELECT *");
+            if (cursor) {
+                page.append(", ").append(sort).append(" AS __jsui_sort, ").append(keyColumn).append(" AS __jsui_key");
+            }
+            page.append(" FROM ").append(from).append(whereClause(pageWhere));
+            if (sort != null) {
+                page.append(" ORDER BY ");
+                if (keyColumn != null && !keyColumn.equals(sort)) {
+                    // Same NULL placement on every database, matching the keyset conditions above
+                    page.append("CASE WHEN ").append(sort).append(" IS NULL THEN 0 ELSE 1 END").append(direction)
+                            .append(", ");
+                }
+                page.append(sort).append(direction);
+                if (keyColumn != null && !keyColumn.equals(sort)) {
+                    page.append(", ").append(keyColumn).append(direction);
+                }
+            }
+            if (fetch) {
+                page.append(" OFFSET ? ROWS FETCH NEXT ? ROWS ONLY");
+                pageParams.add(offset);
+                pageParams.add(limit);
+            } else {
+                page.append(" LIMIT ? OFFSET ?");
+                pageParams.add(limit);
+                pageParams.add(offset);
+            }
+
+            java.util.concurrent.Executor pool;
+            synchronized (this) {
+                pool = executor != null ? executor : sharedPool();
+            }
+            String countSql = "SELECT COUNT(*) FROM " + from;
+            CancellableFuture<Integer> total = CancellableFuture.start(pool, f -> count(countSql, List.of(), f));
+            CancellableFuture<Integer> filtered = where.isEmpty() ? total
+                    : CancellableFuture.start(pool, f -> count(countSql + whereClause(where), params, f));
+            CancellableFuture<Map<String, Map<String, Integer>>> facets = query.Facets == null || query.Facets.isEmpty()
+                    ? null : CancellableFuture.start(pool, f -> facets(query, f));
+            if (cancel != null) {
+                cancel.onCancel(() -> cancelAll(total, filtered, facets));
+            }
+
+            LoadResult<T> result = new LoadResult<>();
+            final String sortColumn = sort;
+            boolean done = false;
+            try (java.sql.Connection conn = dataSource.getConnection();
+                    java.sql.PreparedStatement ps = conn.prepareStatement(page.toString())) {
+                cancelWith(ps, cancel);
+                bind(ps, pageParams);
+                try (java.sql.ResultSet rs = ps.executeQuery()) {
+                    Object lastSort = null;
+                    Object lastKey = null;
+                    boolean any = false;
+                    while (rs.next()) {
+                        any = true;
+                        result.data.add(mapper.map(rs));
+                        if (cursor) {
+                            lastSort = rs.getObject("__jsui_sort");
+                            lastKey = rs.getObject("__jsui_key");
+                        }
+                    }
+                    if (any && lastKey != null) {
+                        result.cursor = List.of(sortColumn, encodeCursor(lastSort), encodeCursor(lastKey));
+                    }
+                }
+                result.total = total.get();
+                result.filtered = filtered.get();
+                result.facets = facets != null ? facets.get() : new LinkedHashMap<>();
+                done = true;
+            } catch (java.util.concurrent.ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof java.util.concurrent.CompletionException && cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                if (cause instanceof Exception e) {
+                    throw e;
+                }
+                throw ex;
+            } finally {
+                if (!done) {
+                    // A failed page cancels the counts along with their statements
+                    cancelAll(total, filtered, facets);
+                }
+            }
+            return result;
+        }
+
+        private static void cancelAll(java.util.concurrent.Future<?>... futures) {
+            for (java.util.concurrent.Future<?> future : futures) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        }
+
+        /** Adds the search and filter conditions, leaving out filters on column {@code skip}. */
+        private void compileFilters(TQuery query, List<String> where, List<Object> params, String skip) {
+            String search = collapse(query.Search);
+            List<String> searchIn;
+            synchronized (this) {
+                searchIn = new ArrayList<>(searchColumns);
+            }
+            if (!search.isEmpty() && !searchIn.isEmpty()) {
+                String like = "%" + search.toLowerCase(Locale.ROOT).replace("\\", "\\\\").replace("%", "\\%")
+                        .replace("_", "\\_") + "%";
+                List<String> any = new ArrayList<>();
+                for (String c : searchIn) {
+                    any.add("LOWER(" + c + ") LIKE ? ESCAPE '\\'");
+                    params.add(like);
+                }
+                where.add("(" + String.join(" OR ", any) + ")");
+            }
+            if (query.Filter == null) {
+                return;
+            }
+            for (TField f : query.Filter) {
+                if (f == null) {
+                    continue;
+                }
+                String c = column(f.Field != null && !f.Field.isEmpty() ? f.Field : f.DB);
+                if (c == null || c.equals(skip)) {
+                    continue;
+                }
+                if (f.As == BOOL && f.Bool) {
+                    where.add(c + " = ?");
+                    params.add(Boolean.TRUE);
+                } else if (f.As == ZERO_DATE && f.Bool) {
+                    where.add(c + " IS NULL");
+                } else if (f.As == NOT_ZERO_DATE && f.Bool) {
+                    where.add(c + " IS NOT NULL");
+                } else if (f.As == SELECT && f.Value != null && !f.Value.isEmpty()) {
+                    where.add(c + " = ?");
+                    params.add(f.Value);
+                } else if (f.As == DATES && f.Dates != null) {
+                    if (f.Dates.From != null && f.Dates.From.getTime() > 0) {
+                        where.add(c + " >= ?");
+                        params.add(new java.sql.Timestamp(Index.startOfDay(f.Dates.From)));
+                    }
+                    if (f.Dates.To != null && f.Dates.To.getTime() > 0) {
+                        where.add(c + " <= ?");
+                        params.add(new java.sql.Timestamp(Index.endOfDay(f.Dates.To)));
+                    }
+                }
+            }
+        }
+
+        private static String whereClause(List<String> conditions) {
+            return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        }
 
-        void setFilter(List<TField> fields);
+        private int count(String sql, List<Object> params, CancellableFuture<?> cancel) throws java.sql.SQLException {
+            try (java.sql.Connection conn = dataSource.getConnection();
+                    java.sql.PreparedStatement ps = conn.prepareStatement(sql)) {
+                cancelWith(ps, cancel);
+                bind(ps, params);
+                try (java.sql.ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+        }
 
-        void setSearch(List<TField> fields);
+        /**
+         * Counts all requested facets with one statement: a {@code GROUP BY}
+         * per facet column, each with the other filters, joined by
+         * {@code UNION ALL}. Branch {@code k} returns its value in column
+         * {@code k + 2} and NULL in the others, so the union needs no casts.
+         */
+        private Map<String, Map<String, Integer>> facets(TQuery query, CancellableFuture<?> cancel)
+                throws java.sql.SQLException {
+            Map<String, Map<String, Integer>> out = new LinkedHashMap<>();
+            List<String> names = new ArrayList<>();
+            List<String> facetColumns = new ArrayList<>();
+            for (String name : query.Facets) {
+                String c = column(name);
+                if (c != null && !facetColumns.contains(c)) {
+                    names.add(name);
+                    facetColumns.add(c);
+                }
+            }
+            if (facetColumns.isEmpty()) {
+                return out;
+            }
+            List<String> branches = new ArrayList<>();
+            List<Object> params = new ArrayList<>();
+            for (int k = 0; k < facetColumns.size(); k++) {
+                List<String> where = new ArrayList<>();
+                compileFilters(query, where, params, facetColumns.get(k));
+                StringBuilder sb = new StringBuilder("SELECT ").append(k);
+                for (int j = 0; j < facetColumns.size(); j++) {
+                    sb.append(", ").append(j == k ? facetColumns.get(k) : "NULL");
+                }
+                sb.append(", COUNT(*) FROM ").append(from).append(whereClause(where))
+                        .append(" GROUP BY ").append(facetColumns.get(k));
+                branches.add(sb.toString());
+                out.put(names.get(k), new LinkedHashMap<>());
+            }
+            try (java.sql.Connection conn = dataSource.getConnection();
+                    java.sql.PreparedStatement ps = conn.prepareStatement(String.join(" UNION ALL ", branches))) {
+                cancelWith(ps, cancel);
+                bind(ps, params);
+                try (java.sql.ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        int k = rs.getInt(1);
+                        Object value = rs.getObject(k + 2);
+                        int count = rs.getInt(facetColumns.size() + 2);
+                        if (k >= 0 && k < names.size() && count > 0) {
+                            String key = value != null ? String.valueOf(value).toLowerCase(Locale.ROOT) : "";
+                            out.get(names.get(k)).merge(key, count, Integer::sum);
+                        }
+                    }
+                }
+            }
+            return out;
+        }
 
-        void setExcel(List<TField> fields);
+        private static void cancelWith(java.sql.Statement statement, CancellableFuture<?> cancel) {
+            if (cancel == null) {
+                return;
+            }
+            cancel.onCancel(() -> {
+                try {
+                    statement.cancel();
+                } catch (java.sql.SQLException ignored) {
+                }
+            });
+            if (cancel.isCancelled()) {
+                throw new java.util.concurrent.CancellationException();
+            }
+        }
 
-        void Row(RenderRow<T> fn);
+        private static void bind(java.sql.PreparedStatement ps, List<Object> params) throws java.sql.SQLException {
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+        }
 
-        void Export(Export<T> fn);
+        /** Cursor values keep their SQL type so they bind like the column they came from. */
+        static String encodeCursor(Object value) {
+            if (value == null) {
+                return "null:";
+            }
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return "l:" + ((Number) value).longValue();
+            }
+            if (value instanceof Number) {
+                return "n:" + new java.math.BigDecimal(value.toString()).toPlainString();
+            }
+            if (value instanceof java.sql.Timestamp) {
+                return "ts:" + value;
+            }
+            if (value instanceof Date) {
+                return "t:" + ((Date) value).getTime();
+            }
+            if (value instanceof java.time.LocalDateTime) {
+                return "ldt:" + value;
+            }
+            if (value instanceof java.time.LocalDate) {
+                return "ld:" + value;
+            }
+            if (value instanceof java.time.OffsetDateTime) {
+                return "odt:" + value;
+            }
+            if (value instanceof Boolean) {
+                return "b:" + value;
+            }
+            return "s:" + value;
+        }
 
-        String Render(Context ctx);
+        static Object decodeCursor(String value) {
+            int colon = value != null ? value.indexOf(':') : -1;
+            if (colon < 0) {
+                return value;
+            }
+            String v = value.substring(colon + 1);
+            try {
+                switch (value.substring(0, colon)) {
+                    case "null":
+                        return null;
+                    case "l":
+                        return Long.parseLong(v);
+                    case "n":
+                        return new java.math.BigDecimal(v);
+                    case "ts":
+                        return java.sql.Timestamp.valueOf(v);
+                    case "t":
+                        return new java.sql.Timestamp(Long.parseLong(v));
+                    case "ldt":
+                        return java.time.LocalDateTime.parse(v);
+                    case "ld":
+                        return java.time.LocalDate.parse(v);
+                    case "odt":
+                        return java.time.OffsetDateTime.parse(v);
+                    case "b":
+                        return Boolean.parseBoolean(v);
+                    default:
+                        return v;
+                }
+            } catch (RuntimeException ex) {
+                return v;
+            }
+        }
     }
 
-    public interface RenderRow<T> {
-        String render(T item, int index);
+    public static <T> CollateModel<T> Collate(TQuery init, Loader<T> loader) {
+        return collate(init, loader, null);
     }
 
-    public interface Export<T> {
-        void export(List<T> items) throws Exception;
+    /**
+     * Like {@link #Collate} but loads through {@code loader} without blocking
+     * in the loader itself. A newer search, sort or reset from the same
+     * collate in the same session cancels the load still in flight; the
+     * superseded request only gets the loading skeleton back. Wrap a blocking
+     * loader with {@link #Async}.
+     */
+    public static <T> CollateModel<T> CollateAsync(TQuery init, AsyncLoader<T> loader) {
+        Loader<T> blocking = loader == null ? null : query -> {
+            try {
+                return loader.loadAsync(query).get();
+            } catch (java.util.concurrent.ExecutionException ex) {
+                if (ex.getCause() instanceof Exception e) {
+                    throw e;
+                }
+                throw ex;
+            }
+        };
+        return collate(init, blocking, loader);
     }
 
-    public static <T> CollateModel<T> Collate(TQuery init, Loader<T> loader) {
+    private static <T> CollateModel<T> collate(TQuery init, Loader<T> loader, AsyncLoader<T> async) {
         final State<T> state = new State<>();
         state.Init = makeQuery(init);
-        state.Target = ui.Target();
-        state.TargetFilter = ui.Target();
         state.Loader = loader;
+        state.Async = async;
 
         state.ActionSearch = ctx -> handleSearch(state, ctx);
         state.ActionSort = ctx -> handleSort(state, ctx);
         state.ActionReset = ctx -> handleReset(state, ctx);
         state.ActionResize = ctx -> handleResize(state, ctx);
         state.ActionExcel = ctx -> handleExcel(state, ctx);
+        state.ActionCsv = ctx -> handleStream(state, ctx, ExportFormat.CSV);
+        state.ActionNdjson = ctx -> handleStream(state, ctx, ExportFormat.NDJSON);
 
         return new CollateModel<T>() {
             @Override
@@ -172,6 +1479,21 @@ public final class Data {
                 state.ExcelFields = copyFields(fields);
             }
 
+            @Override
+            public void setFacets(List<TField> fields) {
+                state.FacetFields = copyFields(fields);
+            }
+
+            @Override
+            public void setExport(ExportFormat... formats) {
+                state.ExportFormats = formats != null ? new ArrayList<>(List.of(formats)) : new ArrayList<>();
+            }
+
+            @Override
+            public void setRoutes(App app, String prefix) {
+                registerRoutes(state, app, prefix);
+            }
+
             @Override
             public void Row(RenderRow<T> fn) {
                 state.OnRow = fn;
@@ -184,139 +1506,524 @@ public final class Data {
 
             @Override
             public String Render(Context ctx) {
+                View view = new View(ui.makeId());
                 TQuery query = makeQuery(state.Init);
-                TCollateResult<T> result = triggerLoad(state, query);
-                return renderUI(ctx, state, query, result, false);
+                query.Facets = facetNames(state);
+                TCollateResult<T> result = triggerLoad(state, view, ctx, query, false);
+                return renderUI(ctx, state, view, query, result, false);
             }
         };
     }
 
+    private static <T> void registerRoutes(State<T> state, App app, String prefix) {
+        if (app == null || prefix == null || prefix.isBlank()) {
+            return;
+        }
+        String base = prefix.trim().replaceAll("^/+|/+$", "");
+        app.Action(base + "/search", state.ActionSearch);
+        app.Action(base + "/sort", state.ActionSort);
+        app.Action(base + "/reset", state.ActionReset);
+        app.Action(base + "/more", state.ActionResize);
+        app.Action(base + "/xlsx", state.ActionExcel);
+        app.Action(base + "/csv", state.ActionCsv);
+        app.Action(base + "/ndjson", state.ActionNdjson);
+    }
+
+    /** SELECT and BOOL filter fields chosen by {@link CollateModel#setFacets}, whose option counts are shown. */
+    private static <T> List<String> facetNames(State<T> state) {
+        List<String> names = new ArrayList<>();
+        if (state.FilterFields == null || state.FacetFields == null || state.FacetFields.isEmpty()) {
+            return names;
+        }
+        Set<String> wanted = new HashSet<>();
+        for (TField f : state.FacetFields) {
+            String name = f != null ? facetName(f) : null;
+            if (name != null) {
+                wanted.add(name.toLowerCase(Locale.ROOT));
+            }
+        }
+        for (TField f : state.FilterFields) {
+            String name = f != null ? facetName(f) : null;
+            if (name != null && (f.As == SELECT || f.As == BOOL) && wanted.contains(name.toLowerCase(Locale.ROOT))) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /** Key of the counts for {@code query}: its filters, search and facets, without order or paging. */
+    private static String facetKey(TQuery query) {
+        TQuery counted = copyQuery(query);
+        counted.Order = "";
+        counted.Limit = 0;
+        counted.Offset = 0;
+        counted.Cursor = new ArrayList<>();
+        counted.CursorDirection = "";
+        return cacheKey(counted);
+    }
+
+    private static <T> void rememberFacets(State<T> state, TQuery query, TCollateResult<T> result) {
+        if (result == null || query.Facets == null || query.Facets.isEmpty() || result.Facets == null) {
+            return;
+        }
+        synchronized (state.FacetCounts) {
+            state.FacetCounts.put(facetKey(query), result.Facets);
+        }
+    }
+
+    private static <T> Map<String, Map<String, Integer>> knownFacets(State<T> state, TQuery query) {
+        synchronized (state.FacetCounts) {
+            return state.FacetCounts.get(facetKey(query));
+        }
+    }
+
     private static <T> String handleSearch(State<T> state, Context ctx) throws Exception {
+        View view = View.of(ctx);
         TQuery query = makeQuery(state.Init);
         applyRequest(ctx, query);
         normalizeQuery(query, state.Init);
-        TCollateResult<T> result = triggerLoad(state, query);
-        return renderUI(ctx, state, query, result, false);
+        query.Facets = facetNames(state);
+        TCollateResult<T> result = triggerLoad(state, view, ctx, query, true);
+        return renderUI(ctx, state, view, query, result, false);
     }
 
     private static <T> String handleSort(State<T> state, Context ctx) throws Exception {
+        View view = View.of(ctx);
         TQuery query = makeQuery(state.Init);
         applyRequest(ctx, query);
         normalizeQuery(query, state.Init);
-        TCollateResult<T> result = triggerLoad(state, query);
-        return renderUI(ctx, state, query, result, false);
+        query.Facets = facetNames(state);
+        // Order does not change the counts: reuse those of the same search when still known.
+        Map<String, Map<String, Integer>> known = query.Facets.isEmpty() ? null : knownFacets(state, query);
+        if (known != null) {
+            query.Facets = new ArrayList<>();
+        }
+        TCollateResult<T> result = triggerLoad(state, view, ctx, query, true);
+        if (result != null && known != null) {
+            result.Facets = known;
+        }
+        return renderUI(ctx, state, view, query, result, false);
     }
 
     private static <T> String handleReset(State<T> state, Context ctx) throws Exception {
+        View view = View.of(ctx);
         TQuery query = makeQuery(state.Init);
         normalizeQuery(query, state.Init);
-        TCollateResult<T> result = triggerLoad(state, query);
-        return renderUI(ctx, state, query, result, false);
+        query.Facets = facetNames(state);
+        TCollateResult<T> result = triggerLoad(state, view, ctx, query, true);
+        return renderUI(ctx, state, view, query, result, false);
     }
 
+    /**
+     * Load more: loads only the next {@code Offset}/{@code Limit} slice, returns
+     * its rows for appending to the rows container and patches the pager.
+     */
     private static <T> String handleResize(State<T> state, Context ctx) throws Exception {
+        View view = View.of(ctx);
         TQuery query = makeQuery(state.Init);
         applyRequest(ctx, query);
         normalizeQuery(query, state.Init);
-        if (query.Limit <= 0) {
-            query.Limit = state.Init != null && state.Init.Limit > 0 ? state.Init.Limit : 10;
-        }
-        query.Limit = query.Limit * 2;
-        TCollateResult<T> result = triggerLoad(state, query);
-        return renderUI(ctx, state, query, result, false);
+        TCollateResult<T> result = triggerLoad(state, view, ctx, query, false);
+        ctx.Patch(view.TargetPager.Render, renderPager(ctx, state, view, result));
+        StringBuilder sb = new StringBuilder(256 * (result.Data != null ? result.Data.size() : 0));
+        sb.append(' ');
+        renderRows(result.Data, query.Offset, state.OnRow).writeTo(sb);
+        return sb.toString();
     }
 
+    /**
+     * Queues the XLSX export as a background {@link Context#Job}: the action
+     * returns a progress bar at once and the finished job patches in a link to
+     * the file.
+     */
     private static <T> String handleExcel(State<T> state, Context ctx) {
-        try {
-            TQuery query = makeQuery(state.Init);
-            applyRequest(ctx, query);
-            if (query.Limit <= 0)
-                query.Limit = 1000000;
-            query.Offset = 0;
-            normalizeQuery(query, state.Init);
-            TCollateResult<T> result = triggerLoad(state, query);
-            if (result == null || result.Data == null || result.Data.isEmpty()) {
-                ctx.Info("No data to export.");
-                return "";
-            }
+        TQuery query = makeQuery(state.Init);
+        applyRequest(ctx, query);
+        normalizeQuery(query, state.Init);
+        return ctx.Job(ui.Target(), Jobs.Priority.NORMAL, progress -> exportExcel(state, ctx, query, progress));
+    }
 
-            List<TField> headers = state.ExcelFields != null && !state.ExcelFields.isEmpty()
-                    ? state.ExcelFields
-                    : (state.SortFields != null && !state.SortFields.isEmpty() ? state.SortFields : state.FilterFields);
+    private static <T> String exportExcel(State<T> state, Context ctx, TQuery query, Jobs.Progress progress)
+            throws InterruptedException {
+        java.nio.file.Path file = null;
+        try {
+            List<TField> columns = exportColumns(state);
+            file = java.nio.file.Files.createTempFile("jsui-export-", ".xlsx");
 
-            List<String> headerNames = new ArrayList<>();
-            if (headers != null && !headers.isEmpty()) {
-                for (TField h : headers) {
-                    String name = (h != null && h.Text != null && !h.Text.isEmpty()) ? h.Text
-                            : (h != null ? (h.Field != null ? h.Field : h.DB) : "");
-                    headerNames.add(name != null ? name : "");
+            int written = 0;
+            SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+            try {
+                workbook.setCompressTempFiles(true);
+                Sheet sheet = workbook.createSheet("Sheet1");
+
+                CellStyle headerStyle = workbook.createCellStyle();
+                org.apache.poi.ss.usermodel.Font headerFont = workbook.createFont();
+                headerFont.setBold(true);
+                headerStyle.setFont(headerFont);
+
+                CellStyle dateStyle = workbook.createCellStyle();
+                dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+
+                // Column widths are estimated from the header and the first rows instead of autoSizeColumn,
+                // which would need every row in memory.
+                List<Integer> widths = new ArrayList<>();
+                int rowIndex = 0;
+                ExportPages<T> pages = new ExportPages<>(state, query, EXPORT_MAX_ROWS);
+                for (List<T> rows = pages.next(); rows != null; rows = pages.next()) {
+                    if (progress.cancelled() || Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException();
+                    }
+                    if (rowIndex == 0) {
+                        List<String> headerNames = exportHeaders(columns, rows.get(0));
+                        Row headerRow = sheet.createRow(rowIndex++);
+                        for (int i = 0; i < headerNames.size(); i++) {
+                            Cell cell = headerRow.createCell(i);
+                            cell.setCellValue(headerNames.get(i));
+                            cell.setCellStyle(headerStyle);
+                            widths.add(headerNames.get(i).length());
+                        }
+                    }
+                    for (T item : rows) {
+                        List<Object> values = exportValues(columns, item);
+                        boolean sample = rowIndex <= WIDTH_SAMPLE;
+                        Row row = sheet.createRow(rowIndex++);
+                        for (int i = 0; i < values.size(); i++) {
+                            setCellValue(row.createCell(i), values.get(i), dateStyle);
+                            if (sample && i < widths.size()) {
+                                Object v = values.get(i);
+                                int len = v instanceof Date ? 10 : (v != null ? String.valueOf(v).length() : 0);
+                                widths.set(i, Math.max(widths.get(i), len));
+                            }
+                        }
+                    }
+                    written = pages.written;
+                    progress.update(written, Math.min(pages.filtered, EXPORT_MAX_ROWS));
                 }
-            } else {
-                if (!result.Data.isEmpty()) {
-                    for (java.lang.reflect.Field f : result.Data.get(0).getClass().getFields()) {
-                        headerNames.add(f.getName());
+                for (int i = 0; i < widths.size(); i++) {
+                    int chars = Math.min(MAX_COLUMN_CHARS, Math.max(widths.get(i), 4)) + 2;
+                    sheet.setColumnWidth(i, chars * 256);
+                }
+
+                if (written > 0) {
+                    try (java.io.OutputStream out = java.nio.file.Files.newOutputStream(file)) {
+                        workbook.write(out);
                     }
                 }
+            } finally {
+                workbook.dispose();
+                workbook.close();
+            }
+
+            if (written == 0) {
+                java.nio.file.Files.deleteIfExists(file);
+                return ui.div("text-gray-600").render("No data to export.");
             }
+            String filename = "export_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date()) + ".xlsx";
+            String href = ctx.DownloadLink(file, "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+                    filename, true);
+            return ui.a("inline-flex items-center gap-2 text-blue-700 hover:underline", ui.Attr.of().href(href))
+                    .render(ui.Icon("fa fa-fw fa-download"), Escape.html(filename));
+        } catch (InterruptedException ex) {
+            deleteQuietly(file);
+            throw ex;
+        } catch (Exception ex) {
+            deleteQuietly(file);
+            ctxError(state, ex);
+            return ui.div("text-red-700").render(Escape.html("Export failed: " + ex.getMessage()));
+        }
+    }
 
-            Workbook workbook = new XSSFWorkbook();
-            Sheet sheet = workbook.createSheet("Sheet1");
+    private static void deleteQuietly(java.nio.file.Path file) {
+        if (file != null) {
+            try {
+                java.nio.file.Files.deleteIfExists(file);
+            } catch (java.io.IOException ignored) {
+            }
+        }
+    }
 
-            Row headerRow = sheet.createRow(0);
-            CellStyle headerStyle = workbook.createCellStyle();
-            org.apache.poi.ss.usermodel.Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
+    /** Rows loaded per {@link Loader} call while exporting. */
+    static final int EXPORT_PAGE = 1000;
+    private static final int EXPORT_MAX_ROWS = 1_000_000;
+    private static final int WIDTH_SAMPLE = 100;
+    private static final int MAX_COLUMN_CHARS = 60;
+
+    /**
+     * Pulls the rows matching a query from the loader in {@link #EXPORT_PAGE}
+     * slices. Follows the loader's keyset cursor when it returns one.
+     */
+    private static final class ExportPages<T> {
+        private final State<T> state;
+        private final TQuery query;
+        private final int maxRows;
+        private int written;
+        /** Matching rows as reported by the first page, 0 if unknown. */
+        private int filtered;
+        private boolean done;
+
+        ExportPages(State<T> state, TQuery base, int maxRows) {
+            this.state = state;
+            this.query = copyQuery(base);
+            this.maxRows = maxRows;
+            query.Offset = 0;
+            query.Cursor = new ArrayList<>();
+            query.CursorDirection = "";
+        }
 
-            for (int i = 0; i < headerNames.size(); i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headerNames.get(i));
-                cell.setCellStyle(headerStyle);
+        /** Next page, or {@code null} once every row was returned. */
+        List<T> next() throws Exception {
+            if (done || state.Loader == null || written >= maxRows) {
+                return null;
+            }
+            query.Limit = Math.min(EXPORT_PAGE, maxRows - written);
+            LoadResult<T> page = state.Loader.load(copyQuery(query));
+            if (page == null || page.data == null || page.data.isEmpty()) {
+                done = true;
+                return null;
+            }
+            if (written == 0) {
+                filtered = page.filtered;
             }
+            written += page.data.size();
+            if (page.data.size() < query.Limit || (page.filtered > 0 && written >= page.filtered)) {
+                done = true;
+            }
+            query.Offset = written;
+            if (page.cursor != null && !page.cursor.isEmpty()) {
+                query.Cursor = new ArrayList<>(page.cursor);
+                query.CursorDirection = orderDirection(query);
+            }
+            return page.data;
+        }
+    }
+
+    /**
+     * CSV and NDJSON export: registers a download whose body is produced while
+     * the browser reads it, one loader page at a time, so memory use does not
+     * grow with the number of rows.
+     */
+    private static <T> String handleStream(State<T> state, Context ctx, ExportFormat format) {
+        try {
+            TQuery query = makeQuery(state.Init);
+            applyRequest(ctx, query);
+            normalizeQuery(query, state.Init);
+            List<TField> columns = exportColumns(state);
+            boolean csv = format == ExportFormat.CSV;
+            String filename = "export_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date())
+                    + (csv ? ".csv" : ".ndjson");
+            ctx.DownloadAs(() -> new ExportStream<>(state, query, columns, csv), -1,
+                    csv ? "text/csv; charset=utf-8" : "application/x-ndjson; charset=utf-8", filename);
+            return "";
+        } catch (Exception ex) {
+            ctxError(state, ex);
+            ctx.Error("Export failed: " + ex.getMessage());
+            return "";
+        }
+    }
 
-            CellStyle dateStyle = workbook.createCellStyle();
-            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+    /** Encodes export pages as CSV (RFC 4180) or NDJSON on demand. */
+    private static final class ExportStream<T> extends java.io.InputStream {
+        private final State<T> state;
+        private final ExportPages<T> pages;
+        private final List<TField> columns;
+        private final boolean csv;
+        private List<String> names;
+        private byte[] buffer = new byte[0];
+        private int position;
+        private boolean finished;
+
+        ExportStream(State<T> state, TQuery query, List<TField> columns, boolean csv) {
+            this.state = state;
+            this.pages = new ExportPages<>(state, query, Integer.MAX_VALUE);
+            this.columns = columns;
+            this.csv = csv;
+        }
+
+        @Override
+        public int read() throws java.io.IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
 
-            int rowIndex = 1;
-            for (T item : result.Data) {
-                Row row = sheet.createRow(rowIndex++);
-                int colIndex = 0;
+        @Override
+        public int read(byte[] b, int off, int len) throws java.io.IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.length - position);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            return n;
+        }
 
-                if (headers != null && !headers.isEmpty()) {
-                    for (TField h : headers) {
-                        String field = h != null && h.Field != null && !h.Field.isEmpty() ? h.Field
-                                : (h != null ? h.DB : null);
-                        Object value = getFieldValue(item, field);
-                        Cell cell = row.createCell(colIndex++);
-                        setCellValue(cell, value, dateStyle);
+        private boolean fill() throws java.io.IOException {
+            while (position >= buffer.length) {
+                if (finished) {
+                    return false;
+                }
+                List<T> rows;
+                try {
+                    rows = pages.next();
+                } catch (Exception ex) {
+                    ctxError(state, ex);
+                    throw new java.io.IOException("export failed", ex);
+                }
+                StringBuilder sb = new StringBuilder(rows != null ? 128 * rows.size() : 64);
+                if (names == null) {
+                    T sample = rows != null ? rows.get(0) : null;
+                    if (csv) {
+                        names = exportHeaders(columns, sample);
+                        sb.append('\uFEFF');
+                        if (!names.isEmpty()) {
+                            writeCsv(sb, names);
+                        }
+                    } else {
+                        names = exportKeys(columns, sample);
                     }
+                }
+                if (rows == null) {
+                    finished = true;
                 } else {
-                    for (java.lang.reflect.Field f : item.getClass().getFields()) {
-                        Object value = get(item, f);
-                        Cell cell = row.createCell(colIndex++);
-                        setCellValue(cell, value, dateStyle);
+                    for (T item : rows) {
+                        List<Object> values = exportValues(columns, item);
+                        if (csv) {
+                            writeCsv(sb, values);
+                        } else {
+                            writeJson(sb, names, values);
+                        }
                     }
                 }
+                buffer = sb.toString().getBytes(StandardCharsets.UTF_8);
+                position = 0;
             }
+            return true;
+        }
+    }
 
-            for (int i = 0; i < headerNames.size(); i++) {
-                sheet.autoSizeColumn(i);
+    /**
+     * Writes one RFC 4180 record. Text starting with {@code = + - @}, tab or
+     * CR gets a leading {@code '} so spreadsheets do not run it as a formula;
+     * numbers are written as they are.
+     */
+    private static void writeCsv(StringBuilder sb, List<?> values) {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
             }
+            Object v = values.get(i);
+            String s = exportText(v);
+            if (!(v instanceof Number) && !s.isEmpty() && "=+-@\t\r".indexOf(s.charAt(0)) >= 0) {
+                s = "'" + s;
+            }
+            boolean quote = false;
+            for (int j = 0; j < s.length() && !quote; j++) {
+                char c = s.charAt(j);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (quote) {
+                sb.append('"').append(s.replace("\"", "\"\"")).append('"');
+            } else {
+                sb.append(s);
+            }
+        }
+        sb.append("\r\n");
+    }
 
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            workbook.write(outputStream);
-            workbook.close();
-
-            byte[] excelBytes = outputStream.toByteArray();
-            String filename = "export_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date()) + ".xlsx";
+    private static void writeJson(StringBuilder sb, List<String> keys, List<Object> values) {
+        sb.append('{');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('"');
+            Escape.json(sb, i < keys.size() ? keys.get(i) : "c" + i);
+            sb.append("\":");
+            Object v = values.get(i);
+            if (v == null || (v instanceof Double && !Double.isFinite((Double) v))
+                    || (v instanceof Float && !Float.isFinite((Float) v))) {
+                sb.append("null");
+            } else if (v instanceof Number || v instanceof Boolean) {
+                sb.append(v);
+            } else {
+                sb.append('"');
+                Escape.json(sb, exportText(v));
+                sb.append('"');
+            }
+        }
+        sb.append("}\n");
+    }
 
-            ctx.DownloadAs(excelBytes, "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", filename);
-            return "";
-        } catch (Exception ex) {
-            ctxError(state, ex);
-            ctx.Error("Export failed: " + ex.getMessage());
+    /** Text form of an exported value; dates are written as ISO-8601 instants. */
+    private static String exportText(Object value) {
+        if (value == null) {
             return "";
         }
+        if (value instanceof Date) {
+            return java.time.Instant.ofEpochMilli(((Date) value).getTime()).toString();
+        }
+        return String.valueOf(value);
+    }
+
+    private static <T> List<TField> exportColumns(State<T> state) {
+        if (state.ExcelFields != null && !state.ExcelFields.isEmpty()) {
+            return state.ExcelFields;
+        }
+        if (state.SortFields != null && !state.SortFields.isEmpty()) {
+            return state.SortFields;
+        }
+        return state.FilterFields != null ? state.FilterFields : new ArrayList<>();
+    }
+
+    /** NDJSON keys: field names rather than titles, so they stay stable across languages. */
+    private static <T> List<String> exportKeys(List<TField> columns, T sample) {
+        List<String> keys = new ArrayList<>();
+        if (columns != null && !columns.isEmpty()) {
+            for (TField h : columns) {
+                String key = h == null ? null
+                        : (h.Field != null && !h.Field.isEmpty()) ? h.Field
+                                : (h.DB != null && !h.DB.isEmpty()) ? h.DB : h.Text;
+                keys.add(key != null ? key : "");
+            }
+            return keys;
+        }
+        return exportHeaders(columns, sample);
+    }
+
+    /** Column titles; without configured columns the public fields of {@code sample} are used. */
+    private static <T> List<String> exportHeaders(List<TField> columns, T sample) {
+        List<String> names = new ArrayList<>();
+        if (columns != null && !columns.isEmpty()) {
+            for (TField h : columns) {
+                String name = (h != null && h.Text != null && !h.Text.isEmpty()) ? h.Text
+                        : (h != null ? (h.Field != null ? h.Field : h.DB) : "");
+                names.add(name != null ? name : "");
+            }
+        } else if (sample != null) {
+            for (java.lang.reflect.Field f : sample.getClass().getFields()) {
+                names.add(f.getName());
+            }
+        }
+        return names;
+    }
+
+    private static <T> List<Object> exportValues(List<TField> columns, T item) {
+        List<Object> values = new ArrayList<>();
+        if (columns != null && !columns.isEmpty()) {
+            for (TField h : columns) {
+                String field = h != null && h.Field != null && !h.Field.isEmpty() ? h.Field : (h != null ? h.DB : null);
+                values.add(getFieldValue(item, field));
+            }
+        } else if (item != null) {
+            for (java.lang.reflect.Field f : item.getClass().getFields()) {
+                values.add(get(item, f));
+            }
+        }
+        return values;
     }
 
     private static <T> Object getFieldValue(T item, String fieldName) {
@@ -372,24 +2079,61 @@ public final class Data {
         }
     }
 
-    private static <T> TCollateResult<T> triggerLoad(State<T> state, TQuery query) {
+    /**
+     * Loads {@code query}. With {@code supersede} and an async loader the load
+     * replaces the one still running for this collate and session, which is
+     * cancelled; returns null when this load is the one being replaced.
+     */
+    private static <T> TCollateResult<T> triggerLoad(State<T> state, View view, Context ctx, TQuery query,
+            boolean supersede) {
         TCollateResult<T> out = new TCollateResult<>();
         out.Query = copyQuery(query);
         if (state.Loader == null) {
             return out;
         }
+        String key = ctx.sessionID + ":" + view.Id;
+        java.util.concurrent.CompletableFuture<LoadResult<T>> future = null;
         try {
-            LoadResult<T> load = state.Loader.load(copyQuery(query));
+            LoadResult<T> load;
+            if (state.Async != null) {
+                future = state.Async.loadAsync(copyQuery(query));
+                if (supersede) {
+                    java.util.concurrent.CompletableFuture<LoadResult<T>> previous = state.Inflight.put(key, future);
+                    if (previous != null && previous != future) {
+                        previous.cancel(true);
+                    }
+                }
+                load = future.get();
+            } else {
+                load = state.Loader.load(copyQuery(query));
+            }
             if (load != null) {
                 out.Total = load.total;
                 out.Filtered = load.filtered;
                 out.Data = load.data != null ? load.data : new ArrayList<>();
+                out.Cursor = load.cursor != null ? new ArrayList<>(load.cursor) : new ArrayList<>();
+                out.Facets = load.facets != null ? load.facets : new LinkedHashMap<>();
+                rememberFacets(state, query, out);
+            }
+        } catch (java.util.concurrent.CancellationException ex) {
+            return null;
+        } catch (java.util.concurrent.ExecutionException ex) {
+            if (future != null && future.isCancelled()) {
+                return null;
             }
+            ctxError(state, ex.getCause() instanceof Exception e ? e : ex);
+            out.Total = 0;
+            out.Filtered = 0;
+            out.Data = new ArrayList<>();
         } catch (Exception ex) {
             ctxError(state, ex);
             out.Total = 0;
             out.Filtered = 0;
             out.Data = new ArrayList<>();
+        } finally {
+            if (supersede && future != null) {
+                state.Inflight.remove(key, future);
+            }
         }
         return out;
     }
@@ -400,9 +2144,9 @@ public final class Data {
         }
     }
 
-    private static <T> String renderUI(Context ctx, State<T> state, TQuery query, TCollateResult<T> result,
+    private static <T> String renderUI(Context ctx, State<T> state, View view, TQuery query, TCollateResult<T> result,
             boolean loading) {
-        String header = renderHeader(ctx, state, query, loading);
+        String header = renderHeader(ctx, state, view, query, result != null ? result.Facets : null, loading);
         if (loading || result == null) {
             String skeletonRows = ui.Skeleton.List(ui.Target(), 6);
             String skeletonPager = ui.div("flex items-center justify-center").render(
@@ -410,29 +2154,35 @@ public final class Data {
                     ui.div("flex gap-px flex-1 justify-end").render(
                             ui.div("bg-gray-200 h-9 w-10 rounded-l border").render(),
                             ui.div("bg-gray-200 h-9 w-36 rounded-r border").render()));
-            return ui.div("flex flex-col gap-2 mt-2", state.Target.id()).render(header, skeletonRows,
+            return ui.div("flex flex-col gap-2 mt-2", view.Target.id()).render(header, skeletonRows,
                     skeletonPager);
         }
 
-        String rows = renderRows(result.Data, state.OnRow);
-        String pager = renderPager(ctx, state, result);
-        return ui.div("flex flex-col gap-2 mt-2", state.Target.id()).render(header, rows, pager);
+        ui.Node rows = renderRows(result.Data, query.Offset, state.OnRow);
+        String pager = renderPager(ctx, state, view, result);
+        StringBuilder sb = new StringBuilder(header.length() + pager.length() + 256 * (result.Data != null ? result.Data.size() : 0));
+        ui.div("flex flex-col gap-2 mt-2", view.Target.id()).writeTo(sb, header,
+                ui.div("flex flex-col gap-2", view.TargetRows.id()).node(rows),
+                ui.div("", view.TargetPager.id()).node(pager));
+        return sb.toString();
     }
 
-    private static <T> String renderHeader(Context ctx, State<T> state, TQuery query, boolean loading) {
-        String sorting = renderSorting(ctx, state, query);
-        String searching = renderSearching(ctx, state, query);
-        String filtering = renderFiltering(ctx, state, query);
+    private static <T> String renderHeader(Context ctx, State<T> state, View view, TQuery query,
+            Map<String, Map<String, Integer>> facets, boolean loading) {
+        String sorting = renderSorting(ctx, state, view, query);
+        String searching = renderSearching(ctx, state, view, query);
+        String filtering = renderFiltering(ctx, state, view, query, facets);
         String wrapperCls = loading ? "flex flex-col pointer-events-none" : "flex flex-col";
         return ui.div(wrapperCls).render(
                 ui.div("flex gap-x-2").render(
                         sorting,
                         ui.Flex1,
                         searching),
-                ui.div("flex justify-end").render(filtering));
+                ui.div("flex justify-end").render(filtering),
+                ui.div("flex flex-col gap-2 mt-2", view.TargetExport.id()).render());
     }
 
-    private static <T> String renderSorting(Context ctx, State<T> state, TQuery query) {
+    private static <T> String renderSorting(Context ctx, State<T> state, View view, TQuery query) {
         List<TField> sortFields = state.SortFields;
         if (sortFields == null || sortFields.isEmpty()) {
             return "";
@@ -459,6 +2209,7 @@ public final class Data {
                 reverse = "asc";
             }
             List<String> children = new ArrayList<>();
+            children.add(view.hidden());
             children.add(hiddenInput("Order", db + " " + reverse));
             children.add(hiddenInput("Search", query.Search));
             children.add(hiddenInput("Limit", Integer.toString(query.Limit)));
@@ -473,7 +2224,7 @@ public final class Data {
                                     directionIcon(direction),
                                     sort.Text != null ? sort.Text : db));
             children.add(button);
-            String form = ui.form("inline-flex", ctx.Submit(state.ActionSort).Replace(state.Target.id()))
+            String form = ui.form("inline-flex", ctx.Submit(state.ActionSort).Replace(view.Target.id()))
                     .render(children.toArray(new String[0]));
             buttons.add(form);
         }
@@ -490,10 +2241,11 @@ public final class Data {
         return ui.Icon("fa fa-fw fa-sort");
     }
 
-    private static <T> String renderSearching(Context ctx, State<T> state, TQuery query) {
+    private static <T> String renderSearching(Context ctx, State<T> state, View view, TQuery query) {
         List<String> children = new ArrayList<>();
         String clearJs = "(function(b){try{var f=b.closest('form');if(!f)return;var i=f.querySelector(\"[name='Search']\");if(i){i.value='';}f.submit();}catch(_){}})(this)";
-        String form = ui.form("flex", ctx.Submit(state.ActionSearch).Replace(state.Target.id())).render(
+        String form = ui.form("flex", ctx.Submit(state.ActionSearch).Replace(view.Target.id())).render(
+                view.hidden(),
                 ui.div("relative flex-1 w-72").render(
                         ui.div("absolute left-3 top-1/2 transform -translate-y-1/2").render(
                                 new ui.Button()
@@ -505,6 +2257,7 @@ public final class Data {
                                 .ClassInput(
                                         "cursor-pointer bg-white border-gray-300 hover:border-blue-500 block w-full py-3 pl-12 pr-12")
                                 .Placeholder("Search")
+                                .SubmitOnType(300)
                                 .Render(""),
                         (query.Search != null && !query.Search.isEmpty())
                                 ? ui.div("absolute right-3 top-1/2 transform -translate-y-1/2").render(
@@ -515,20 +2268,24 @@ public final class Data {
                                 : ""));
         children.add(form);
 
-        if (state.ExcelFields != null && !state.ExcelFields.isEmpty()) {
-            String excel = new ui.Button()
+        for (ExportFormat format : exportFormats(state)) {
+            Context.Callable action = format == ExportFormat.CSV ? state.ActionCsv
+                    : format == ExportFormat.NDJSON ? state.ActionNdjson : state.ActionExcel;
+            String label = format == ExportFormat.XLSX ? "XLS" : format.name();
+            String button = new ui.Button()
                     .Color(ui.Blue)
                     .Class("rounded-lg shadow px-4 h-12 flex items-center gap-2")
-                    .Click(ctx.Call(state.ActionExcel).None())
-                    .Render(ui.IconLeft("fa fa-download", "XLS"));
-            children.add(excel);
+                    .Click(format == ExportFormat.XLSX ? ctx.Call(action).Append(view.TargetExport.id())
+                            : ctx.Call(action).None())
+                    .Render(ui.IconLeft("fa fa-download", label));
+            children.add(button);
         }
 
         if (state.FilterFields != null && !state.FilterFields.isEmpty()) {
             String toggle = new ui.Button()
                     .Class("rounded-r-lg shadow h-12 px-4 flex items-center gap-2")
                     .Color(ui.Blue)
-                    .Click("var el=document.getElementById('" + state.TargetFilter.id()
+                    .Click("var el=document.getElementById('" + view.TargetFilter.id()
                             + "'); if(el){el.classList.toggle('hidden');}")
                     .Render(ui.IconLeft("fa fa-fw fa-chevron-down", "Filter"));
             children.add(toggle);
@@ -537,7 +2294,18 @@ public final class Data {
         return ui.div("flex gap-px bg-blue-800 rounded-lg p-1 items-center").render(children.toArray(new String[0]));
     }
 
-    private static <T> String renderFiltering(Context ctx, State<T> state, TQuery query) {
+    private static <T> List<ExportFormat> exportFormats(State<T> state) {
+        if (state.ExportFormats != null) {
+            return state.ExportFormats;
+        }
+        if (state.ExcelFields != null && !state.ExcelFields.isEmpty()) {
+            return List.of(ExportFormat.XLSX);
+        }
+        return List.of();
+    }
+
+    private static <T> String renderFiltering(Context ctx, State<T> state, View view, TQuery query,
+            Map<String, Map<String, Integer>> facets) {
         List<TField> filterFields = state.FilterFields;
         if (filterFields == null || filterFields.isEmpty()) {
             return "";
@@ -550,6 +2318,7 @@ public final class Data {
             }
             TField target = ensureFilter(query, i, def);
             String position = "Filter." + i;
+            Map<String, Integer> counts = facets != null ? facets.get(facetName(def)) : null;
             List<String> parts = new ArrayList<>();
             if (def.As == ZERO_DATE || def.As == NOT_ZERO_DATE) {
                 parts.add(ui.Hidden(position + ".Field", "string", target.DB));
@@ -564,8 +2333,10 @@ public final class Data {
             } else if (def.As == SELECT) {
                 parts.add(ui.Hidden(position + ".Field", "string", target.DB));
                 parts.add(ui.Hidden(position + ".As", "number", Integer.toString(def.As)));
+                List<ui.AOption> options = target.Options != null && !target.Options.isEmpty() ? target.Options
+                        : def.Options;
                 ui.ISelect select = ui.ISelect(position + ".Value", query)
-                        .Options(target.Options != null && !target.Options.isEmpty() ? target.Options : def.Options)
+                        .Options(counts != null ? countedOptions(options, counts) : options)
                         .Value(target.Value != null ? target.Value : "");
                 parts.add(select.Render(def.Text));
             } else if (def.As == BOOL) {
@@ -574,12 +2345,14 @@ public final class Data {
                 parts.add(ui.Hidden(position + ".Condition", "string",
                         target.Condition != null ? target.Condition : def.Condition));
                 parts.add(hiddenCheckbox(position + ".Bool", target.Bool));
-                parts.add(ui.ICheckbox(position + ".Bool", query).Render(def.Text));
+                parts.add(ui.ICheckbox(position + ".Bool", query)
+                        .Render(counts != null ? withCount(def.Text, counts.getOrDefault("true", 0)) : def.Text));
             }
             rows.add(ui.div("col-span-2 flex flex-col gap-2").render(parts.toArray(new String[0])));
         }
 
         List<String> children = new ArrayList<>();
+        children.add(view.hidden());
         children.add(ui.Hidden("Search", "string", query.Search));
         children.add(ui.Hidden("Order", "string", query.Order));
         children.add(ui.Hidden("Limit", "number", Integer.toString(query.Limit)));
@@ -600,13 +2373,42 @@ public final class Data {
                         .Render(ui.IconLeft("fa fa-fw fa-check", "Apply")));
         children.add(buttons);
 
-        String form = ui.form("flex flex-col p-4", ctx.Submit(state.ActionSearch).Replace(state.Target.id()))
+        String form = ui.form("flex flex-col p-4", ctx.Submit(state.ActionSearch).Replace(view.Target.id()))
                 .render(children.toArray(new String[0]));
-        return ui.div("col-span-2 relative h-0 hidden z-30", state.TargetFilter.id()).render(
+        return ui.div("col-span-2 relative h-0 hidden z-30", view.TargetFilter.id()).render(
                 ui.div("absolute top-2 right-0 w-96 bg-white rounded-xl shadow-xl ring-1 ring-black/10 border border-gray-200")
                         .render(form));
     }
 
+    private static String facetName(TField def) {
+        return def.DB != null && !def.DB.isEmpty() ? def.DB : def.Field;
+    }
+
+    /** Options labelled with their facet counts; the empty "any" option shows the sum. */
+    private static List<ui.AOption> countedOptions(List<ui.AOption> options, Map<String, Integer> counts) {
+        List<ui.AOption> out = new ArrayList<>();
+        if (options == null) {
+            return out;
+        }
+        int sum = 0;
+        for (int count : counts.values()) {
+            sum += count;
+        }
+        for (ui.AOption option : options) {
+            if (option == null) {
+                continue;
+            }
+            String id = option.id != null ? option.id : "";
+            int count = id.isEmpty() ? sum : counts.getOrDefault(id.toLowerCase(Locale.ROOT), 0);
+            out.add(new ui.AOption(option.id, withCount(option.value, count)));
+        }
+        return out;
+    }
+
+    private static String withCount(String text, int count) {
+        return (text != null ? text : "") + " (" + count + ")";
+    }
+
     private static String resetFiltersJs(String targetId) {
         return "(function(btn){try{var form=btn.closest('form');if(!form)return;var fields=form.querySelectorAll(\"[name^='Filter.']\");for(var i=0;i<fields.length;i++){var el=fields[i];if(!el)continue;var type=(el.getAttribute('type')||'').toLowerCase();if(type==='checkbox'){el.checked=false;}else{el.value='';}}}catch(_){}})(this)";
     }
@@ -655,22 +2457,25 @@ public final class Data {
         return fallback != null ? fallback : "";
     }
 
-    private static <T> String renderPager(Context ctx, State<T> state, TCollateResult<T> result) {
+    private static <T> String renderPager(Context ctx, State<T> state, View view, TCollateResult<T> result) {
         if (result == null) {
             return "";
         }
         if (result.Filtered == 0) {
             return emptyState(result);
         }
-        int size = result.Data != null ? result.Data.size() : 0;
+        int offset = result.Query != null ? Math.max(0, result.Query.Offset) : 0;
+        int limit = result.Query != null && result.Query.Limit > 0 ? result.Query.Limit : 10;
+        int size = Math.min(result.Filtered, offset + (result.Data != null ? result.Data.size() : 0));
         String count = "Showing " + size + " / " + result.Filtered;
         if (result.Filtered != result.Total) {
             count += " of " + result.Total + " in total";
         }
         List<String> resetChildren = new ArrayList<>();
+        resetChildren.add(view.hidden());
         resetChildren.add(hiddenInput("Search", result.Query != null ? result.Query.Search : ""));
         resetChildren.add(hiddenInput("Order", result.Query != null ? result.Query.Order : ""));
-        resetChildren.add(hiddenInput("Limit", Integer.toString(result.Query != null ? result.Query.Limit : 10)));
+        resetChildren.add(hiddenInput("Limit", Integer.toString(limit)));
         resetChildren.add(hiddenInput("Offset", "0"));
         resetChildren.addAll(hiddenFilterInputs(result.Query != null ? result.Query : new TQuery()));
         resetChildren.add(new ui.Button()
@@ -678,14 +2483,21 @@ public final class Data {
                 .Class("bg-white rounded-l h-10 px-4")
                 .Color(ui.PurpleOutline)
                 .Render(ui.Icon("fa fa-fw fa-undo")));
-        String resetForm = ui.form("inline-flex", ctx.Submit(state.ActionReset).Replace(state.Target.id()))
+        String resetForm = ui.form("inline-flex", ctx.Submit(state.ActionReset).Replace(view.Target.id()))
                 .render(resetChildren.toArray(new String[0]));
 
         List<String> moreChildren = new ArrayList<>();
+        moreChildren.add(view.hidden());
         moreChildren.add(hiddenInput("Search", result.Query != null ? result.Query.Search : ""));
         moreChildren.add(hiddenInput("Order", result.Query != null ? result.Query.Order : ""));
-        moreChildren.add(hiddenInput("Limit", Integer.toString(result.Query != null ? result.Query.Limit : 10)));
-        moreChildren.add(hiddenInput("Offset", Integer.toString(result.Query != null ? result.Query.Offset : 0)));
+        moreChildren.add(hiddenInput("Limit", Integer.toString(limit)));
+        moreChildren.add(hiddenInput("Offset", Integer.toString(size)));
+        if (result.Cursor != null && !result.Cursor.isEmpty()) {
+            for (int i = 0; i < result.Cursor.size(); i++) {
+                moreChildren.add(hiddenInput("Cursor." + i, result.Cursor.get(i)));
+            }
+            moreChildren.add(hiddenInput("CursorDirection", orderDirection(result.Query)));
+        }
         moreChildren.addAll(hiddenFilterInputs(result.Query != null ? result.Query : new TQuery()));
         moreChildren.add(new ui.Button()
                 .Submit()
@@ -695,7 +2507,7 @@ public final class Data {
                 .Render(ui.div("flex gap-2 items-center").render(
                         ui.Icon("fa fa-arrow-down"),
                         "Load more items")));
-        String moreForm = ui.form("inline-flex", ctx.Submit(state.ActionResize).Replace(state.Target.id()))
+        String moreForm = ui.form("inline-flex", ctx.Submit(state.ActionResize).Append(view.TargetRows.id()))
                 .render(moreChildren.toArray(new String[0]));
 
         return ui.div("flex items-center justify-center").render(
@@ -703,6 +2515,11 @@ public final class Data {
                 ui.div("flex gap-px flex-1 justify-end").render(resetForm, moreForm));
     }
 
+    private static String orderDirection(TQuery query) {
+        String order = query != null && query.Order != null ? query.Order.trim().toLowerCase(Locale.ROOT) : "";
+        return order.endsWith(" desc") ? "desc" : "asc";
+    }
+
     private static <T> String emptyState(TCollateResult<T> result) {
         if (result.Total == 0) {
             return ui.div("mt-2 py-24 rounded text-xl flex justify-center items-center bg-white rounded-lg").render(
@@ -717,18 +2534,27 @@ public final class Data {
                                 .render("No records found for the selected filter")));
     }
 
-    private static <T> String renderRows(List<T> data, RenderRow<T> onRow) {
+    private static <T> ui.Node renderRows(List<T> data, int offset, RenderRow<T> onRow) {
         if (data == null || data.isEmpty()) {
-            return "";
+            return ui.Raw("");
         }
         if (onRow == null) {
-            return ui.div("").render("Missing row renderer");
+            return ui.Raw(ui.div("").render("Missing row renderer"));
         }
-        List<String> rows = new ArrayList<>();
-        for (int i = 0; i < data.size(); i++) {
-            rows.add(onRow.render(data.get(i), i));
-        }
-        return String.join(" ", rows);
+        return out -> {
+            boolean first = true;
+            for (int i = 0; i < data.size(); i++) {
+                String row = onRow.render(data.get(i), offset + i);
+                if (row == null || row.isEmpty()) {
+                    continue;
+                }
+                if (!first) {
+                    out.append(' ');
+                }
+                out.append(row);
+                first = false;
+            }
+        };
     }
 
     private static <T> void applyRequest(Context ctx, TQuery query) {
@@ -748,6 +2574,19 @@ public final class Data {
         if (params.containsKey("Offset")) {
             query.Offset = parseInt(params.get("Offset"), query.Offset);
         }
+        Map<Integer, String> cursor = new TreeMap<>();
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            if (entry.getKey().startsWith("Cursor.")) {
+                int idx = parseInt(entry.getKey().substring("Cursor.".length()), -1);
+                if (idx >= 0) {
+                    cursor.put(idx, entry.getValue());
+                }
+            }
+        }
+        if (!cursor.isEmpty()) {
+            query.Cursor = new ArrayList<>(cursor.values());
+            query.CursorDirection = params.getOrDefault("CursorDirection", orderDirection(query));
+        }
         Map<Integer, Map<String, String>> filterParams = extractFilterParams(params);
         if (!filterParams.isEmpty()) {
             query.Filter = new ArrayList<>();
@@ -926,6 +2765,12 @@ public final class Data {
         if (query.Filter == null) {
             query.Filter = new ArrayList<>();
         }
+        if (query.Cursor == null) {
+            query.Cursor = new ArrayList<>();
+        }
+        if (query.CursorDirection == null) {
+            query.CursorDirection = "";
+        }
     }
 
     private static <T> TQuery copyQuery(TQuery d) {
@@ -937,6 +2782,9 @@ public final class Data {
         out.Offset = d.Offset;
         out.Order = d.Order != null ? d.Order : "";
         out.Search = d.Search != null ? d.Search : "";
+        out.Cursor = d.Cursor != null ? new ArrayList<>(d.Cursor) : new ArrayList<>();
+        out.CursorDirection = d.CursorDirection != null ? d.CursorDirection : "";
+        out.Facets = d.Facets != null ? new ArrayList<>(d.Facets) : new ArrayList<>();
         out.Filter = new ArrayList<>();
         if (d.Filter != null) {
             for (TField field : d.Filter) {
@@ -1000,27 +2848,73 @@ public final class Data {
         out.Offset = d.Offset >= 0 ? d.Offset : 0;
         out.Order = d.Order != null ? d.Order : "";
         out.Search = d.Search != null ? d.Search : "";
-        out.Filter = d.Filter != null ? d.Filter : new ArrayList<>();
+        // Fresh filter objects: renders fill them in, and the definition's query is shared
+        out.Filter = copyQuery(d).Filter;
         return out;
     }
 
+    /**
+     * Element ids of one rendered collate. Every form posts {@link #PARAM} back,
+     * so the shared definition in {@link State} holds no per-render state.
+     */
+    private static final class View {
+        static final String PARAM = "CollateView";
+
+        final String Id;
+        final ui.Target Target;
+        final ui.Target TargetFilter;
+        final ui.Target TargetRows;
+        final ui.Target TargetPager;
+        final ui.Target TargetExport;
+
+        View(String id) {
+            this.Id = id;
+            this.Target = new ui.Target(id);
+            this.TargetFilter = new ui.Target(id + "-filter");
+            this.TargetRows = new ui.Target(id + "-rows");
+            this.TargetPager = new ui.Target(id + "-pager");
+            this.TargetExport = new ui.Target(id + "-export");
+        }
+
+        static View of(Context ctx) {
+            String id = ctx != null ? collectParams(ctx).get(PARAM) : null;
+            return new View(id != null && id.matches("[A-Za-z0-9]{1,32}") ? id : ui.makeId());
+        }
+
+        String hidden() {
+            return hiddenInput(PARAM, Id);
+        }
+    }
+
+    /** Shared collate definition; built once by {@link #Collate} and used by every render and action. */
     @lombok.Data
     private static final class State<T> {
         TQuery Init;
-        ui.Target Target;
-        ui.Target TargetFilter;
         List<TField> SearchFields = new ArrayList<>();
         List<TField> SortFields = new ArrayList<>();
         List<TField> FilterFields = new ArrayList<>();
         List<TField> ExcelFields = new ArrayList<>();
+        List<TField> FacetFields = new ArrayList<>();
+        List<ExportFormat> ExportFormats;
         RenderRow<T> OnRow;
         Export<T> OnExcel;
         Loader<T> Loader;
+        AsyncLoader<T> Async;
+        final Map<String, java.util.concurrent.CompletableFuture<LoadResult<T>>> Inflight = new java.util.concurrent.ConcurrentHashMap<>();
+        /** Facet counts of recent searches, for sorting without counting again. */
+        final Map<String, Map<String, Map<String, Integer>>> FacetCounts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Map<String, Integer>>> eldest) {
+                return size() > 256;
+            }
+        };
         Context.Callable ActionSearch;
         Context.Callable ActionSort;
         Context.Callable ActionReset;
         Context.Callable ActionResize;
         Context.Callable ActionExcel;
+        Context.Callable ActionCsv;
+        Context.Callable ActionNdjson;
         boolean Debug = false;
     }
 }
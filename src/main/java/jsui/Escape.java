@@ -0,0 +1,480 @@
+package jsui;
+
+/**
+ * Single-pass escaping and minification used on the rendering hot path.
+ *
+ * Every method returns its input unchanged when there is nothing to do, and
+ * has an overload that appends into a caller supplied buffer.
+ */
+public final class Escape {
+    private Escape() {
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** Escapes {@code & < > " '} for HTML text and attributes. */
+    public static String html(String s) {
+        if (s == null || s.isEmpty()) {
+            return "";
+        }
+        int first = firstHtml(s, true);
+        if (first < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 16);
+        sb.append(s, 0, first);
+        escapeHtml(sb, s, first, true);
+        return sb.toString();
+    }
+
+    public static void html(StringBuilder out, String s) {
+        if (s != null) {
+            escapeHtml(out, s, 0, true);
+        }
+    }
+
+    /** Escapes {@code & < > "} for double-quoted attribute values. */
+    public static String attr(String s) {
+        if (s == null || s.isEmpty()) {
+            return "";
+        }
+        int first = firstHtml(s, false);
+        if (first < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 16);
+        sb.append(s, 0, first);
+        escapeHtml(sb, s, first, false);
+        return sb.toString();
+    }
+
+    public static void attr(StringBuilder out, String s) {
+        if (s != null) {
+            escapeHtml(out, s, 0, false);
+        }
+    }
+
+    private static int firstHtml(String s, boolean apos) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '&' || c == '<' || c == '>' || c == '"' || (apos && c == '\'')) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void escapeHtml(StringBuilder out, String s, int from, boolean apos) {
+        int start = from;
+        for (int i = from; i < s.length(); i++) {
+            String rep;
+            switch (s.charAt(i)) {
+                case '&':
+                    rep = "&amp;";
+                    break;
+                case '<':
+                    rep = "&lt;";
+                    break;
+                case '>':
+                    rep = "&gt;";
+                    break;
+                case '"':
+                    rep = "&quot;";
+                    break;
+                case '\'':
+                    rep = apos ? "&#x27;" : null;
+                    break;
+                default:
+                    rep = null;
+            }
+            if (rep != null) {
+                out.append(s, start, i).append(rep);
+                start = i + 1;
+            }
+        }
+        out.append(s, start, s.length());
+    }
+
+    /** Escapes a string for use inside a JSON string literal. */
+    public static String json(String s) {
+        if (s == null || s.isEmpty()) {
+            return "";
+        }
+        int first = -1;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\' || c < ' ') {
+                first = i;
+                break;
+            }
+        }
+        if (first < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 20);
+        sb.append(s, 0, first);
+        escapeJson(sb, s, first);
+        return sb.toString();
+    }
+
+    public static void json(StringBuilder out, String s) {
+        if (s != null) {
+            escapeJson(out, s, 0);
+        }
+    }
+
+    private static void escapeJson(StringBuilder out, String s, int from) {
+        int start = from;
+        for (int i = from; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c != '"' && c != '\\' && c >= ' ') {
+                continue;
+            }
+            out.append(s, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            }
+        }
+        out.append(s, start, s.length());
+    }
+
+    /**
+     * Minifies markup or script: drops block and HTML comments, lines that are
+     * {@code //} comments, tabs and newlines, collapses whitespace runs of four
+     * or more into one space and trims the result.
+     */
+    public static String trim(String s) {
+        if (s == null) {
+            return "";
+        }
+        if (!needsMinify(s, false)) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        minify(sb, s, false);
+        return sb.toString();
+    }
+
+    public static void trim(StringBuilder out, String s) {
+        if (s != null) {
+            minify(out, s, false);
+        }
+    }
+
+    /**
+     * Like {@link #trim(String)}, but prepares the text for a double-quoted
+     * JavaScript string: backslashes and quotes are escaped and tabs, newlines
+     * and carriage returns become {@code \t}, {@code \n} and {@code \r}.
+     */
+    public static String normalize(String s) {
+        if (s == null) {
+            return "";
+        }
+        if (!needsMinify(s, true)) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 16);
+        minify(sb, s, true);
+        return sb.toString();
+    }
+
+    public static void normalize(StringBuilder out, String s) {
+        if (s != null) {
+            minify(out, s, true);
+        }
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static boolean isLineEnd(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean needsMinify(String s, boolean js) {
+        int n = s.length();
+        if (n == 0) {
+            return false;
+        }
+        if (s.charAt(0) <= ' ' || s.charAt(n - 1) <= ' ') {
+            return true;
+        }
+        int run = 0;
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\t':
+                case '\n':
+                    return true;
+                case '\r':
+                case '\\':
+                case '"':
+                    if (js) {
+                        return true;
+                    }
+                    break;
+                case '/':
+                    if (i + 1 < n && (s.charAt(i + 1) == '*' || s.charAt(i + 1) == '/')) {
+                        return true;
+                    }
+                    break;
+                case '<':
+                    if (s.startsWith("<!--", i)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            run = isSpace(c) ? run + 1 : 0;
+            if (run >= 4) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void minify(StringBuilder out, String s, boolean js) {
+        new Minifier(s).run(out, js);
+    }
+
+    /**
+     * One scan over the input. Comments are skipped where they start, so the
+     * text around them is treated as if they had been removed first: a line
+     * that only holds whitespace and comments before {@code //} is still a
+     * line comment, and a line comment runs past newlines inside block comments.
+     */
+    private static final class Minifier {
+        private final String s;
+        private final int n;
+        // Searches for a comment terminator starting at or after these positions fail.
+        private int blockFailFrom = Integer.MAX_VALUE;
+        private int htmlFailFrom = Integer.MAX_VALUE;
+
+        Minifier(String s) {
+            this.s = s;
+            this.n = s.length();
+        }
+
+        private int blockEnd(int i) {
+            if (i + 1 >= n || s.charAt(i) != '/' || s.charAt(i + 1) != '*' || i + 2 >= blockFailFrom) {
+                return -1;
+            }
+            int end = s.indexOf("*/", i + 2);
+            if (end < 0) {
+                blockFailFrom = i + 2;
+                return -1;
+            }
+            return end + 2;
+        }
+
+        /** Index after the block comments starting at {@code i}, or {@code i}. */
+        private int skipBlocks(int i) {
+            int end;
+            while ((end = blockEnd(i)) >= 0) {
+                i = end;
+            }
+            return i;
+        }
+
+        /**
+         * Matches {@code token} at {@code i} as the text reads once block
+         * comments are gone: {@code --}, a block comment and {@code >} still
+         * end an HTML comment. Returns the index after the match, or -1.
+         */
+        private int matchWithoutBlocks(int i, String token) {
+            for (int k = 0; k < token.length(); k++) {
+                if (k > 0) {
+                    i = skipBlocks(i);
+                }
+                if (i >= n || s.charAt(i) != token.charAt(k)) {
+                    return -1;
+                }
+                i++;
+            }
+            return i;
+        }
+
+        /**
+         * Returns the index after the block or HTML comment starting at
+         * {@code i}, or -1. HTML comments are matched as if block comments had
+         * been removed first, like the regex version does: block comments
+         * inside them are skipped and may split {@code <!--} or {@code -->}.
+         */
+        private int commentEnd(int i) {
+            int end = blockEnd(i);
+            if (end >= 0 || i >= n || s.charAt(i) != '<') {
+                return end;
+            }
+            int j = matchWithoutBlocks(i, "<!--");
+            if (j < 0 || j >= htmlFailFrom) {
+                return -1;
+            }
+            int from = j;
+            while (j < n) {
+                int close = matchWithoutBlocks(j, "-->");
+                if (close >= 0) {
+                    return close;
+                }
+                int skip = blockEnd(j);
+                j = skip >= 0 ? skip : j + 1;
+            }
+            htmlFailFrom = from;
+            return -1;
+        }
+
+        private int skipComments(int i) {
+            int end;
+            while ((end = commentEnd(i)) >= 0) {
+                i = end;
+            }
+            return i;
+        }
+
+        void run(StringBuilder out, boolean js) {
+            final int base = out.length();
+            // Pending whitespace run: where it starts in out and how many whitespace chars it holds.
+            int runStart = -1;
+            int runLen = 0;
+            // Output position and run length at the start of the current line, while the
+            // line holds nothing but spaces, tabs and comments; -1 once it has content.
+            int lineMark = out.length();
+            int lineRunLen = 0;
+            int i = 0;
+            while (i < n) {
+                int end = commentEnd(i);
+                if (end >= 0) {
+                    i = end;
+                    continue;
+                }
+                char c = s.charAt(i);
+                if (c == '/' && lineMark >= 0) {
+                    int next = skipComments(i + 1);
+                    if (next < n && s.charAt(next) == '/') {
+                        out.setLength(lineMark);
+                        runLen = lineRunLen;
+                        if (runLen == 0) {
+                            runStart = -1;
+                        }
+                        i = next + 1;
+                        while (i < n) {
+                            end = commentEnd(i);
+                            if (end >= 0) {
+                                i = end;
+                            } else if (isLineEnd(s.charAt(i))) {
+                                break;
+                            } else {
+                                i++;
+                            }
+                        }
+                        continue;
+                    }
+                }
+
+                if (isLineEnd(c)) {
+                    if (js && (c == '\n' || c == '\r')) {
+                        runStart = closeRun(out, runStart, runLen);
+                        runLen = 0;
+                        out.append(c == '\n' ? "\\n" : "\\r");
+                    } else if (c == '\r') {
+                        if (runStart < 0) {
+                            runStart = out.length();
+                        }
+                        runLen++;
+                        out.append(c);
+                    } else if (c != '\n') {
+                        runStart = closeRun(out, runStart, runLen);
+                        runLen = 0;
+                        out.append(c);
+                    }
+                    i++;
+                    lineMark = out.length();
+                    lineRunLen = runLen;
+                    continue;
+                }
+
+                if (c == '\t') {
+                    if (js) {
+                        runStart = closeRun(out, runStart, runLen);
+                        runLen = 0;
+                        out.append("\\t");
+                    }
+                    i++;
+                    continue;
+                }
+
+                if (isSpace(c)) {
+                    if (runStart < 0) {
+                        runStart = out.length();
+                    }
+                    runLen++;
+                    out.append(c);
+                    if (c != ' ') {
+                        lineMark = -1;
+                    }
+                    i++;
+                    continue;
+                }
+
+                runStart = closeRun(out, runStart, runLen);
+                runLen = 0;
+                lineMark = -1;
+                if (js && c == '\\') {
+                    out.append("\\\\");
+                } else if (js && c == '"') {
+                    out.append("\\\"");
+                } else {
+                    out.append(c);
+                }
+                i++;
+            }
+            closeRun(out, runStart, runLen);
+
+            int start = base;
+            int stop = out.length();
+            while (start < stop && out.charAt(start) <= ' ') {
+                start++;
+            }
+            while (stop > start && out.charAt(stop - 1) <= ' ') {
+                stop--;
+            }
+            out.setLength(stop);
+            if (start > base) {
+                out.delete(base, start);
+            }
+        }
+    }
+
+    /** Collapses a finished whitespace run of four or more chars into one space. */
+    private static int closeRun(StringBuilder out, int runStart, int runLen) {
+        if (runStart >= 0 && runLen >= 4) {
+            out.setLength(runStart);
+            out.append(' ');
+        }
+        return -1;
+    }
+}
@@ -12,31 +12,6 @@ public final class HtmlUtils {
      * Handles: &, <, >, ", '
      */
     public static String escape(String input) {
-        if (input == null || input.isEmpty())
-            return "";
-        StringBuilder sb = new StringBuilder(input.length() + 16);
-        for (int i = 0; i < input.length(); i++) {
-            char c = input.charAt(i);
-            switch (c) {
-                case '&':
-                    sb.append("&amp;");
-                    break;
-                case '<':
-                    sb.append("&lt;");
-                    break;
-                case '>':
-                    sb.append("&gt;");
-                    break;
-                case '"':
-                    sb.append("&quot;");
-                    break;
-                case '\'':
-                    sb.append("&#x27;");
-                    break;
-                default:
-                    sb.append(c);
-            }
-        }
-        return sb.toString();
+        return Escape.html(input);
     }
 }
@@ -0,0 +1,149 @@
+package jsui;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, prioritised queue for long-running work started from actions,
+ * such as exports. Jobs are started with {@link Context#Job}; a fixed set of
+ * daemon workers runs them in priority order while limiting how many jobs a
+ * single session may run at once. Configure it with {@link App#jobs}.
+ */
+public final class Jobs {
+
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    public interface Task {
+        /** Runs the job and returns the HTML that replaces its progress bar. */
+        String run(Progress progress) throws Exception;
+    }
+
+    interface Listener {
+        void progress(long done, long total);
+    }
+
+    /** Handle passed to a running {@link Task}. */
+    public static final class Progress {
+        final String sessionId;
+        final Priority priority;
+        private final Listener listener;
+        private Consumer<Progress> body;
+        private long seq;
+        private Thread thread;
+        private volatile boolean cancelled;
+
+        Progress(String sessionId, Priority priority, Listener listener) {
+            this.sessionId = sessionId != null ? sessionId : "";
+            this.priority = priority != null ? priority : Priority.NORMAL;
+            this.listener = listener;
+        }
+
+        /** Reports that {@code done} of {@code total} units are finished; {@code total <= 0} if unknown. */
+        public void update(long done, long total) {
+            if (!cancelled && listener != null) {
+                listener.progress(done, total);
+            }
+        }
+
+        /** True once the job was cancelled; long loops should check it and stop. */
+        public boolean cancelled() {
+            return cancelled;
+        }
+    }
+
+    private static final Comparator<Progress> ORDER = Comparator.<Progress, Priority>comparing(p -> p.priority)
+            .thenComparingLong(p -> p.seq);
+
+    private final int workers;
+    private final int capacity;
+    private final int perSession;
+    private final TreeSet<Progress> queued = new TreeSet<>(ORDER);
+    private final Map<String, Integer> running = new HashMap<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private long seq;
+
+    Jobs(int workers, int capacity, int perSession) {
+        this.workers = Math.max(1, workers);
+        this.capacity = Math.max(1, capacity);
+        this.perSession = Math.max(1, perSession);
+    }
+
+    /** Queues {@code body}; returns false when the queue is full. */
+    synchronized boolean submit(Progress job, Consumer<Progress> body) {
+        if (queued.size() >= capacity) {
+            return false;
+        }
+        job.body = body;
+        job.seq = ++seq;
+        queued.add(job);
+        if (threads.size() < workers) {
+            Thread t = new Thread(this::work, "jsui-job-" + (threads.size() + 1));
+            t.setDaemon(true);
+            threads.add(t);
+            t.start();
+        }
+        notifyAll();
+        return true;
+    }
+
+    /** Removes a queued job or interrupts it while it runs. */
+    synchronized void cancel(Progress job) {
+        if (job == null) {
+            return;
+        }
+        job.cancelled = true;
+        if (!queued.remove(job) && job.thread != null) {
+            job.thread.interrupt();
+        }
+    }
+
+    /** Highest-priority queued job whose session is below its concurrency limit. */
+    private Progress next() {
+        for (Progress job : queued) {
+            if (running.getOrDefault(job.sessionId, 0) < perSession) {
+                return job;
+            }
+        }
+        return null;
+    }
+
+    private void work() {
+        while (true) {
+            Progress job;
+            Consumer<Progress> body;
+            synchronized (this) {
+                while ((job = next()) == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+                queued.remove(job);
+                body = job.body;
+                job.body = null;
+                running.merge(job.sessionId, 1, Integer::sum);
+                job.thread = Thread.currentThread();
+            }
+            try {
+                if (body != null && !job.cancelled) {
+                    body.accept(job);
+                }
+            } catch (Throwable ignored) {
+            } finally {
+                synchronized (this) {
+                    job.thread = null;
+                    running.computeIfPresent(job.sessionId, (k, v) -> v > 1 ? v - 1 : null);
+                    Thread.interrupted();
+                    notifyAll();
+                }
+            }
+        }
+    }
+}
@@ -12,6 +12,11 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -38,6 +43,10 @@ import java.util.concurrent.TimeUnit;
 public final class Server implements AutoCloseable {
 
     private static final String SESSION_COOKIE = "jsui_session";
+    private static final int ENCODE_BUFFER = 16 * 1024;
+    private static final byte[] CRLF = { '\r', '\n' };
+    private static final byte[] LAST_CHUNK = { '0', '\r', '\n', '\r', '\n' };
+    private static final String STREAM_ERROR = "<script>try{__error('Something went wrong ...')}catch(e){}</script>";
 
     private final App app;
     private final HttpService httpService;
@@ -141,9 +150,9 @@ public final class Server implements AutoCloseable {
                     ws.onerror=function(){try{ws.close();}catch(_){}};ws.onclose=function(){show();connect(Math.min((d||250)*2,5000));};},d||0);}\
                     var ws; if(document.readyState==='loading'){document.addEventListener('DOMContentLoaded',function(){connect(0);});}else{connect(0);}\
                     }catch(_){}})();""";
-            app.HTMLHead.add("<script>" + wsBoot + "</script>");
-            app.HTMLHead.add(
-                    "<style>.jsui-offline>*:not([id=jsui_offline_banner]){filter:blur(4px);pointer-events:none;}</style>");
+            app.HTMLHead.add(app.builtinAsset("jsui-boot", "js", wsBoot));
+            app.HTMLHead.add(app.builtinAsset("jsui-offline", "css",
+                    ".jsui-offline>*:not([id=jsui_offline_banner]){filter:blur(4px);pointer-events:none;}"));
             Server server = new Server(app, http);
             server.start();
             return server;
@@ -274,6 +283,30 @@ public final class Server implements AutoCloseable {
                     return;
                 }
 
+                if ("GET".equals(method) && path.startsWith(App.DOWNLOAD_PATH)) {
+                    App.Download download = app.takeDownload(session.sessionId,
+                            path.substring(App.DOWNLOAD_PATH.length()));
+                    if (download == null) {
+                        sendPlain(rawOut, 404, "Not Found", "download expired", session, session.newSession);
+                        return;
+                    }
+                    try {
+                        InputStream in;
+                        try {
+                            in = download.source.open();
+                        } catch (IOException ex) {
+                            sendPlain(rawOut, 404, "Not Found", "download unavailable", session, session.newSession);
+                            return;
+                        }
+                        try (in) {
+                            sendDownload(rawOut, download, in, session, session.newSession);
+                        }
+                    } finally {
+                        download.discard();
+                    }
+                    return;
+                }
+
                 if ("GET".equals(method)) {
                     try {
                         App.ResolvedAsset asset = app.resolveAsset(path);
@@ -293,12 +326,25 @@ public final class Server implements AutoCloseable {
                     }
                     Context ctx = new Context(app, session.sessionId, method, path, headers, body, query, queryString,
                             patchSender);
+                    ChunkedResponse stream = new ChunkedResponse(rawOut, session, session.newSession);
+                    ctx.stream = stream;
                     try {
                         String result = app.invoke(path, ctx);
-                        if (result == null) {
+                        if (result == null && !stream.committed()) {
+                            ctx.deferred.close();
                             sendPlain(rawOut, 404, "Not Found", "route not found", session, session.newSession);
                             return;
                         }
+                        if (stream.committed() || ctx.deferred.waiting()) {
+                            stream.write(result);
+                            for (String extra : ctx.append) {
+                                stream.write(extra);
+                            }
+                            streamDeferred(ctx, stream);
+                            stream.finish();
+                            return;
+                        }
+                        ctx.deferred.close();
                         String payload = result;
                         if (!ctx.append.isEmpty()) {
                             StringBuilder sb = new StringBuilder(payload);
@@ -312,6 +358,12 @@ public final class Server implements AutoCloseable {
                         respondHtml(rawOut, payload, session, session.newSession);
                     } catch (Exception ex) {
                         ex.printStackTrace();
+                        ctx.deferred.close();
+                        if (stream.committed()) {
+                            // Status line is already on the wire: report the error and leave the body unterminated.
+                            stream.fail();
+                            return;
+                        }
                         sendPlain(rawOut, 500, "Internal Server Error", ex.getMessage(), session, session.newSession);
                     }
                     return;
@@ -624,8 +676,10 @@ public final class Server implements AutoCloseable {
 
         private void respondHtml(OutputStream out, String value, Session session, boolean setCookie)
                 throws IOException {
-            byte[] body = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
-            sendResponse(out, 200, "OK", "text/html; charset=UTF-8", body, session, setCookie);
+            String payload = value != null ? value : "";
+            writeHead(out, 200, "OK", "text/html; charset=UTF-8", utf8Length(payload), session, setCookie);
+            writeUtf8(out, payload);
+            out.flush();
         }
 
         private void sendPlain(OutputStream out, int status, String statusText, String message, Session session,
@@ -637,15 +691,94 @@ public final class Server implements AutoCloseable {
 
         private void sendResponse(OutputStream out, int status, String statusText, String contentType, byte[] body,
                 Session session, boolean setCookie) throws IOException {
+            writeHead(out, status, statusText, contentType, body.length, session, setCookie);
+            out.write(body);
+            out.flush();
+        }
+
+        /**
+         * Keeps the page response open and writes deferred results as they
+         * complete. Whatever has not finished by the deadline is left to the
+         * WebSocket fallback in {@link Context#Defer}.
+         */
+        private void streamDeferred(Context ctx, ChunkedResponse stream) throws IOException {
+            long deadline = System.currentTimeMillis() + app.streamedDeferMillis();
+            try {
+                String fragment;
+                while ((fragment = ctx.deferred.next(deadline)) != null) {
+                    stream.write(fragment);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                for (String rest : ctx.deferred.close()) {
+                    stream.write(rest);
+                }
+            }
+        }
+
+        /** Encodes {@code value} into {@code out} through a small buffer instead of one large byte array. */
+        private void writeUtf8(OutputStream out, String value) throws IOException {
+            if (value.length() <= ENCODE_BUFFER / 3) {
+                out.write(value.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharBuffer chars = CharBuffer.wrap(value);
+            ByteBuffer bytes = ByteBuffer.allocate(ENCODE_BUFFER);
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, bytes, true);
+                out.write(bytes.array(), 0, bytes.position());
+                bytes.clear();
+            } while (result.isOverflow());
+            do {
+                result = encoder.flush(bytes);
+                out.write(bytes.array(), 0, bytes.position());
+                bytes.clear();
+            } while (result.isOverflow());
+        }
+
+        /** Byte length of {@code value} in UTF-8, matching {@link String#getBytes} replacement of lone surrogates. */
+        private static long utf8Length(String value) {
+            long length = 0;
+            int n = value.length();
+            for (int i = 0; i < n; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    length++;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    length += 4;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    length++;
+                } else {
+                    length += 3;
+                }
+            }
+            return length;
+        }
+
+        /** Writes the status line and headers; a negative length selects chunked encoding. */
+        private void writeHead(OutputStream out, int status, String statusText, String contentType, long contentLength,
+                Session session, boolean setCookie) throws IOException {
             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
             writer.write("HTTP/1.1 ");
             writer.write(Integer.toString(status));
             writer.write(' ');
             writer.write(statusText);
             writer.write("\r\n");
-            writer.write("Content-Length: ");
-            writer.write(Integer.toString(body.length));
-            writer.write("\r\n");
+            if (contentLength >= 0) {
+                writer.write("Content-Length: ");
+                writer.write(Long.toString(contentLength));
+                writer.write("\r\n");
+            } else {
+                writer.write("Transfer-Encoding: chunked\r\n");
+            }
             writer.write("Content-Type: ");
             writer.write(contentType);
             writer.write("\r\n");
@@ -660,10 +793,150 @@ public final class Server implements AutoCloseable {
             }
             writer.write("\r\n");
             writer.flush();
-            out.write(body);
+        }
+
+        /**
+         * HTML response sent with chunked transfer encoding. Headers go out with
+         * the first chunk; every write is flushed so the browser can act on it.
+         */
+        private final class ChunkedResponse implements Context.ResponseStream {
+            private final OutputStream out;
+            private final Session session;
+            private final boolean setCookie;
+            private boolean committed;
+            private boolean finished;
+
+            ChunkedResponse(OutputStream out, Session session, boolean setCookie) {
+                this.out = out;
+                this.session = session;
+                this.setCookie = setCookie;
+            }
+
+            @Override
+            public synchronized void write(String html) throws IOException {
+                if (html != null && !html.isEmpty()) {
+                    write(html.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+
+            @Override
+            public synchronized void write(byte[]... utf8) throws IOException {
+                int length = 0;
+                for (byte[] part : utf8) {
+                    length += part.length;
+                }
+                if (finished || length == 0) {
+                    return;
+                }
+                if (!committed) {
+                    writeHead(out, 200, "OK", "text/html; charset=UTF-8", -1, session, setCookie);
+                    committed = true;
+                }
+                out.write((Integer.toHexString(length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                for (byte[] part : utf8) {
+                    out.write(part);
+                }
+                out.write(CRLF);
+                out.flush();
+            }
+
+            @Override
+            public synchronized boolean committed() {
+                return committed;
+            }
+
+            synchronized void finish() throws IOException {
+                if (!committed || finished) {
+                    return;
+                }
+                finished = true;
+                out.write(LAST_CHUNK);
+                out.flush();
+            }
+
+            /**
+             * Ends a response that failed after its headers were sent. The page
+             * shows the error toast; the last chunk is never written, so the
+             * browser and any fetch see an incomplete response instead of a
+             * successful one.
+             */
+            synchronized void fail() {
+                if (!committed || finished) {
+                    return;
+                }
+                try {
+                    write(STREAM_ERROR);
+                } catch (IOException ignored) {
+                }
+                finished = true;
+            }
+        }
+
+        /**
+         * Streams a registered download. The length is sent when known, otherwise
+         * the body goes out in chunks; either way only one buffer is in memory.
+         */
+        private void sendDownload(OutputStream out, App.Download download, InputStream in, Session session,
+                boolean setCookie) throws IOException {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("HTTP/1.1 200 OK\r\n");
+            if (download.length >= 0) {
+                writer.write("Content-Length: ");
+                writer.write(Long.toString(download.length));
+                writer.write("\r\n");
+            } else {
+                writer.write("Transfer-Encoding: chunked\r\n");
+            }
+            writer.write("Content-Type: ");
+            writer.write(download.contentType);
+            writer.write("\r\n");
+            writer.write("Content-Disposition: ");
+            writer.write(contentDisposition(download.name));
+            writer.write("\r\n");
+            writer.write("Cache-Control: no-store\r\n");
+            writeSecurityHeaders(writer);
+            writer.write("Connection: close\r\n");
+            if (setCookie && session != null) {
+                writer.write("Set-Cookie: ");
+                writer.write(SESSION_COOKIE);
+                writer.write('=');
+                writer.write(session.sessionId);
+                writer.write("; Path=/; HttpOnly\r\n");
+            }
+            writer.write("\r\n");
+            writer.flush();
+
+            byte[] buf = new byte[ENCODE_BUFFER];
+            int read;
+            while ((read = in.read(buf)) != -1) {
+                if (read == 0) {
+                    continue;
+                }
+                if (download.length >= 0) {
+                    out.write(buf, 0, read);
+                } else {
+                    out.write((Integer.toHexString(read) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                    out.write(buf, 0, read);
+                    out.write(CRLF);
+                }
+            }
+            if (download.length < 0) {
+                out.write(LAST_CHUNK);
+            }
             out.flush();
         }
 
+        /** {@code attachment} with an ASCII fallback name and the exact UTF-8 name per RFC 6266. */
+        private static String contentDisposition(String name) {
+            StringBuilder ascii = new StringBuilder(name.length());
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                ascii.append(c >= 0x20 && c < 0x7F && c != '"' && c != '\\' ? c : '_');
+            }
+            String encoded = java.net.URLEncoder.encode(name, StandardCharsets.UTF_8).replace("+", "%20");
+            return "attachment; filename=\"" + ascii + "\"; filename*=UTF-8''" + encoded;
+        }
+
         private void writeSecurityHeaders(BufferedWriter writer) throws IOException {
             writer.write("X-Frame-Options: DENY\r\n");
             writer.write("X-Content-Type-Options: nosniff\r\n");
@@ -701,7 +974,8 @@ public final class Server implements AutoCloseable {
             writer.write(asset.contentType != null ? asset.contentType : "application/octet-stream");
             writer.write("\r\n");
             if (asset.maxAgeSeconds > 0) {
-                writer.write("Cache-Control: public, max-age=" + asset.maxAgeSeconds + "\r\n");
+                writer.write("Cache-Control: public, max-age=" + asset.maxAgeSeconds
+                        + (asset.immutable ? ", immutable" : "") + "\r\n");
             }
             writeSecurityHeaders(writer);
             writer.write("Connection: close\r\n");
@@ -0,0 +1,203 @@
+package jsui;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+
+/**
+ * Observable server-side value.
+ *
+ * Reading a state inside {@link Context#Bind} records the bound fragment as a
+ * dependent. Changing the value re-renders only those fragments and patches
+ * them over the WebSocket of the session that rendered them. Changes made
+ * inside {@link #Batch} are applied together, re-rendering each dependent once.
+ *
+ * <pre>
+ * State&lt;Integer&gt; count = State.of(0);
+ * String html = ctx.Bind(c -&gt; ui.div("text-2xl").render("Count: " + count.get()));
+ * // later, from any action or thread
+ * count.update(n -&gt; n + 1);
+ * </pre>
+ */
+public final class State<T> {
+    private static final ThreadLocal<Binding> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<Set<Binding>> BATCH = new ThreadLocal<>();
+
+    private volatile T value;
+    private final Set<Binding> dependents = ConcurrentHashMap.newKeySet();
+
+    public State(T initial) {
+        this.value = initial;
+    }
+
+    public static <T> State<T> of(T initial) {
+        return new State<>(initial);
+    }
+
+    /** Returns the value and, inside a bound render, subscribes the fragment to changes. */
+    public T get() {
+        Binding binding = CURRENT.get();
+        if (binding != null) {
+            binding.track(this);
+        }
+        return value;
+    }
+
+    /** Returns the value without subscribing. */
+    public T peek() {
+        return value;
+    }
+
+    public void set(T next) {
+        Set<Binding> affected;
+        synchronized (this) {
+            if (Objects.equals(value, next)) {
+                return;
+            }
+            value = next;
+            affected = new LinkedHashSet<>(dependents);
+        }
+        Set<Binding> batch = BATCH.get();
+        if (batch != null) {
+            batch.addAll(affected);
+            return;
+        }
+        for (Binding binding : affected) {
+            binding.refresh();
+        }
+    }
+
+    public void update(UnaryOperator<T> fn) {
+        synchronized (this) {
+            set(fn.apply(value));
+        }
+    }
+
+    /** Number of fragments currently depending on this state. */
+    public int dependents() {
+        return dependents.size();
+    }
+
+    /**
+     * Runs {@code work} and re-renders the affected fragments once at the end,
+     * however many states it changed. Nested batches join the outer one.
+     */
+    public static void Batch(Runnable work) {
+        if (BATCH.get() != null) {
+            work.run();
+            return;
+        }
+        Set<Binding> pending = new LinkedHashSet<>();
+        BATCH.set(pending);
+        try {
+            work.run();
+        } finally {
+            BATCH.remove();
+        }
+        for (Binding binding : pending) {
+            binding.refresh();
+        }
+    }
+
+    /** A fragment rendered by {@link Context#Bind} and the states it read. */
+    static final class Binding {
+        private final Context ctx;
+        private final String id;
+        private final Context.Callable view;
+        private final Set<State<?>> sources = ConcurrentHashMap.newKeySet();
+        private final List<Binding> children = new ArrayList<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean disposed;
+
+        Binding(Context ctx, String id, Context.Callable view) {
+            this.ctx = ctx;
+            this.id = id;
+            this.view = view;
+            Binding parent = CURRENT.get();
+            if (parent != null) {
+                synchronized (parent.children) {
+                    parent.children.add(this);
+                }
+            }
+        }
+
+        private void track(State<?> state) {
+            if (!disposed && sources.add(state)) {
+                state.dependents.add(this);
+            }
+        }
+
+        /** Renders the view, replacing the dependencies recorded by the previous render. */
+        String render() throws Exception {
+            unsubscribe();
+            disposeChildren();
+            Binding previous = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                String html = view.handle(ctx);
+                return html != null ? html : "";
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        }
+
+        /** Schedules a re-render; changes arriving before it runs are coalesced. */
+        void refresh() {
+            if (disposed || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            Runnable task = () -> {
+                scheduled.set(false);
+                if (disposed) {
+                    return;
+                }
+                if (ctx.stale()) {
+                    dispose();
+                    return;
+                }
+                try {
+                    ctx.sendPatch(id, ui.Swap.inline, render());
+                } catch (Exception ignored) {
+                }
+            };
+            if (ctx.app != null) {
+                ctx.app.renderPool().execute(task);
+            } else {
+                task.run();
+            }
+        }
+
+        void dispose() {
+            disposed = true;
+            unsubscribe();
+            disposeChildren();
+        }
+
+        private void unsubscribe() {
+            for (State<?> state : sources) {
+                state.dependents.remove(this);
+            }
+            sources.clear();
+        }
+
+        private void disposeChildren() {
+            List<Binding> old;
+            synchronized (children) {
+                old = new ArrayList<>(children);
+                children.clear();
+            }
+            for (Binding child : old) {
+                child.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package jsui;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an interface method whose markup is compiled ahead of time by
+ * {@link TemplateProcessor}.
+ *
+ * The value is the HTML of the fragment. {@code {name}} inserts the parameter
+ * {@code name} HTML-escaped, {@code {!name}} inserts it as is. Braces that do
+ * not name a parameter are kept as text, so inline CSS and scripts need no
+ * quoting.
+ *
+ * For an interface {@code CardTemplates} the processor generates
+ * {@code CardTemplatesImpl}, which keeps the static parts as constants (also
+ * pre-encoded as UTF-8 bytes) and only evaluates and escapes the holes.
+ *
+ * <pre>
+ * interface CardTemplates {
+ *     &#64;Template("&lt;div class=\"card\"&gt;&lt;h3&gt;{title}&lt;/h3&gt;{!body}&lt;/div&gt;")
+ *     String Card(String title, String body);
+ * }
+ * </pre>
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface Template {
+    String value();
+}
@@ -0,0 +1,227 @@
+package jsui;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates implementations for interfaces with {@link Template} methods.
+ *
+ * Registered through {@code META-INF/services}; the Maven build compiles it
+ * before the rest of the sources so it runs on the same module.
+ */
+@SupportedAnnotationTypes("jsui.Template")
+public final class TemplateProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        Map<TypeElement, List<ExecutableElement>> byType = new LinkedHashMap<>();
+        for (Element element : round.getElementsAnnotatedWith(Template.class)) {
+            Element owner = element.getEnclosingElement();
+            if (element.getKind() != ElementKind.METHOD || owner.getKind() != ElementKind.INTERFACE) {
+                error(element, "@Template is only supported on interface methods");
+                continue;
+            }
+            ExecutableElement method = (ExecutableElement) element;
+            if (!method.getModifiers().contains(Modifier.ABSTRACT)) {
+                error(element, "@Template methods must be abstract");
+                continue;
+            }
+            if (!"java.lang.String".equals(method.getReturnType().toString())) {
+                error(element, "@Template methods must return String");
+                continue;
+            }
+            byType.computeIfAbsent((TypeElement) owner, k -> new ArrayList<>()).add(method);
+        }
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : byType.entrySet()) {
+            try {
+                generate(entry.getKey(), entry.getValue());
+            } catch (IOException ex) {
+                error(entry.getKey(), "Cannot write template implementation: " + ex.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /** A static text part or a parameter hole of a template. */
+    private record Part(String text, String param, boolean raw) {
+    }
+
+    private List<Part> parse(ExecutableElement method, String template) {
+        List<String> names = new ArrayList<>();
+        for (VariableElement p : method.getParameters()) {
+            names.add(p.getSimpleName().toString());
+        }
+        List<Part> parts = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            if (c == '{') {
+                int close = template.indexOf('}', i + 1);
+                if (close > i) {
+                    boolean raw = template.charAt(i + 1) == '!';
+                    String name = template.substring(raw ? i + 2 : i + 1, close);
+                    if (names.contains(name)) {
+                        if (text.length() > 0) {
+                            parts.add(new Part(text.toString(), null, false));
+                            text.setLength(0);
+                        }
+                        parts.add(new Part(null, name, raw));
+                        i = close + 1;
+                        continue;
+                    }
+                }
+            }
+            text.append(c);
+            i++;
+        }
+        if (text.length() > 0) {
+            parts.add(new Part(text.toString(), null, false));
+        }
+        for (String name : names) {
+            boolean used = parts.stream().anyMatch(p -> name.equals(p.param()));
+            if (!used) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        "Parameter '" + name + "' is not used by the template", method);
+            }
+        }
+        return parts;
+    }
+
+    private void generate(TypeElement type, List<ExecutableElement> methods) throws IOException {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String simpleName = type.getSimpleName() + "Impl";
+        String qualified = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+
+        StringBuilder constants = new StringBuilder();
+        StringBuilder bodies = new StringBuilder();
+        int ordinal = 0;
+        for (ExecutableElement method : methods) {
+            String name = method.getSimpleName().toString();
+            String prefix = name + "_" + ordinal++ + "_";
+            List<Part> parts = parse(method, method.getAnnotation(Template.class).value());
+
+            StringBuilder params = new StringBuilder();
+            for (VariableElement p : method.getParameters()) {
+                if (params.length() > 0) {
+                    params.append(", ");
+                }
+                params.append(p.asType()).append(' ').append(p.getSimpleName());
+            }
+
+            Map<String, String> types = new LinkedHashMap<>();
+            for (VariableElement p : method.getParameters()) {
+                types.put(p.getSimpleName().toString(), p.asType().toString());
+            }
+            int staticLength = 0;
+            int index = 0;
+            StringBuilder size = new StringBuilder();
+            StringBuilder appends = new StringBuilder();
+            StringBuilder writes = new StringBuilder();
+            for (Part part : parts) {
+                if (part.text() != null) {
+                    String constant = prefix + index++;
+                    staticLength += part.text().length();
+                    constants.append("    private static final String ").append(constant).append(" = ")
+                            .append(literal(part.text())).append(";\n");
+                    constants.append("    private static final byte[] ").append(constant)
+                            .append("_UTF8 = ").append(constant).append(".getBytes(StandardCharsets.UTF_8);\n");
+                    appends.append("        $sb.append(").append(constant).append(");\n");
+                    writes.append("        $out.write(").append(constant).append("_UTF8);\n");
+                } else {
+                    if ("java.lang.String".equals(types.get(part.param()))) {
+                        size.append(" + (").append(part.param()).append(" != null ? ").append(part.param())
+                                .append(".length() : 0)");
+                    }
+                    String value = "Objects.toString(" + part.param() + ", \"\")";
+                    if (part.raw()) {
+                        appends.append("        $sb.append(").append(value).append(");\n");
+                        writes.append("        $out.write(").append(value).append(".getBytes(StandardCharsets.UTF_8));\n");
+                    } else {
+                        appends.append("        Escape.html($sb, ").append(value).append(");\n");
+                        writes.append("        $out.write(Escape.html(").append(value)
+                                .append(").getBytes(StandardCharsets.UTF_8));\n");
+                    }
+                }
+            }
+
+            bodies.append("\n    @Override\n")
+                    .append("    public String ").append(name).append('(').append(params).append(") {\n")
+                    .append("        StringBuilder $sb = new StringBuilder(").append(staticLength + 16).append(size).append(");\n")
+                    .append(appends)
+                    .append("        return $sb.toString();\n")
+                    .append("    }\n");
+            bodies.append("\n    /** Writes {@link #").append(name).append("} as UTF-8 into {@code $out}. */\n")
+                    .append("    public void ").append(name).append("(OutputStream $out")
+                    .append(params.length() > 0 ? ", " : "").append(params).append(") throws IOException {\n")
+                    .append(writes)
+                    .append("    }\n");
+        }
+
+        try (Writer w = processingEnv.getFiler().createSourceFile(qualified, type).openWriter()) {
+            if (!packageName.isEmpty()) {
+                w.write("package " + packageName + ";\n\n");
+            }
+            w.write("import java.io.IOException;\n");
+            w.write("import java.io.OutputStream;\n");
+            w.write("import java.nio.charset.StandardCharsets;\n");
+            w.write("import java.util.Objects;\n\n");
+            w.write("import jsui.Escape;\n\n");
+            w.write("@javax.annotation.processing.Generated(\"jsui.TemplateProcessor\")\n");
+            w.write("public final class " + simpleName + " implements " + type.getQualifiedName() + " {\n");
+            w.write(constants.toString());
+            w.write(bodies.toString());
+            w.write("}\n");
+        }
+    }
+
+    private static String literal(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < ' ' || c > '~') {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -92,6 +92,7 @@ public final class Main {
         app.Page("/captcha", layout(app, "Captcha", CaptchaPage::render));
         app.Page("/others", layout(app, "Others", OthersPage::render));
         app.Page("/shared", layout(app, "Shared", SharedPage::render));
+        CollatePage.routes(app);
         app.Page("/collate", layout(app, "Collate", CollatePage::render));
         app.Page("/append", layout(app, "Append / Prepend", AppendPage::render));
         app.Page("/clock", layout(app, "Clock", ClockPage::render));
@@ -1,18 +1,35 @@
 package jsui.examples.pages;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import jsui.App;
 import jsui.Context;
 import jsui.Data;
 import jsui.ui;
 import jsui.examples.models.CollateRow;
-import jsui.examples.models.OrderSpec;
 
 public final class CollatePage {
 
-    public static String render(Context ctx) throws Exception {
-        seed();
+    private static final List<CollateRow> DB = new ArrayList<>();
+
+    /** Searched, sorted and filtered through a prebuilt index instead of copying and sorting every row. */
+    private static final Data.InMemoryLoader<CollateRow> INDEX = Data.InMemory(DB)
+            .Search(r -> r.Name, r -> r.Email, r -> r.City)
+            .Sort("name", Comparator.comparing((CollateRow r) -> r.Name, String.CASE_INSENSITIVE_ORDER))
+            .Sort("email", Comparator.comparing((CollateRow r) -> r.Email, String.CASE_INSENSITIVE_ORDER))
+            .Sort("city", Comparator.comparing((CollateRow r) -> r.City, String.CASE_INSENSITIVE_ORDER))
+            .Filter("Active", r -> r.Active)
+            .Filter("Role", r -> r.Role)
+            .Date("CreatedAt", r -> r.CreatedAt);
+
+    /** The dataset never changes after seeding, so identical queries are served from the cache. */
+    private static final Data.CachedLoader<CollateRow> LOADER = Data.Cached(INDEX, 60_000, 256);
 
+    /** Defined once; each render only loads the first page and allocates fresh element ids. */
+    private static final Data.CollateModel<CollateRow> COLLATE = collate();
+
+    private static Data.CollateModel<CollateRow> collate() {
         Data.TQuery init = new Data.TQuery();
         init.Limit = 10;
         init.Offset = 0;
@@ -20,17 +37,29 @@ public final class CollatePage {
         init.Search = "";
         init.Filter = new ArrayList<>();
 
-        Data.CollateModel<CollateRow> collate = Data.Collate(init, CollatePage::load);
+        Data.CollateModel<CollateRow> collate = Data.Collate(init, LOADER);
         collate.setFilter(buildFilters());
+        collate.setFacets(buildFilters());
         collate.setSort(buildSort());
         collate.setExcel(buildExcel());
+        collate.setExport(Data.ExportFormat.XLSX, Data.ExportFormat.CSV, Data.ExportFormat.NDJSON);
         collate.Row((row, index) -> renderRow(row));
+        return collate;
+    }
+
+    /** Serves the collate actions under stable {@code /act/collate/...} routes. */
+    public static void routes(App app) {
+        COLLATE.setRoutes(app, "collate");
+    }
+
+    public static String render(Context ctx) throws Exception {
+        seed();
 
         String body = ui.div("flex flex-col gap-4").render(
                 ui.div("text-3xl font-bold").render("Data Collation"),
                 ui.div("text-gray-600 mb-2")
                         .render("Search, sort, filter, and paging over an in-memory dataset of 100 rows."),
-                collate.Render(ctx));
+                COLLATE.Render(ctx));
 
         return ui.div("flex flex-col gap-4").render(body);
     }
@@ -52,124 +81,6 @@ public final class CollatePage {
                                 .Render(r.Active ? "Active" : "Inactive")));
     }
 
-    private static Data.LoadResult<CollateRow> load(Data.TQuery query) {
-        List<CollateRow> list = new ArrayList<>();
-        synchronized (DB) {
-            for (CollateRow r : DB) {
-                list.add(r.copy());
-            }
-        }
-        int total = list.size();
-
-        String search = query.Search != null ? query.Search.trim() : "";
-        if (!search.isEmpty()) {
-            String needle = Data.NormalizeForSearch(search);
-            list.removeIf(r -> {
-                String hay = Data.NormalizeForSearch(r.Name) + " " + Data.NormalizeForSearch(r.Email) + " "
-                        + Data.NormalizeForSearch(r.City);
-                return !hay.contains(needle);
-            });
-        }
-
-        if (query.Filter != null) {
-            for (Data.TField f : query.Filter) {
-                if (f == null)
-                    continue;
-                if (f.As == Data.BOOL && f.Bool) {
-                    list.removeIf(r -> !r.Active);
-                } else if (f.As == Data.SELECT && f.Value != null && !f.Value.isEmpty()) {
-                    String v = f.Value.toLowerCase();
-                    list.removeIf(r -> !r.Role.equalsIgnoreCase(v));
-                } else if (f.As == Data.DATES && f.Dates != null) {
-                    if (f.Dates.From != null && f.Dates.From.getTime() > 0) {
-                        long from = truncateStart(f.Dates.From).getTime();
-                        list.removeIf(r -> r.CreatedAt.getTime() < from);
-                    }
-                    if (f.Dates.To != null && f.Dates.To.getTime() > 0) {
-                        long to = truncateEnd(f.Dates.To).getTime();
-                        list.removeIf(r -> r.CreatedAt.getTime() > to);
-                    }
-                }
-            }
-        }
-
-        sort(list, query.Order != null ? query.Order : "createdat desc");
-
-        int filtered = list.size();
-        int offset = query.Offset > 0 ? query.Offset : 0;
-        int limit = query.Limit > 0 ? query.Limit : 10;
-        if (offset > filtered) {
-            offset = 0;
-        }
-        int toIndex = Math.min(offset + limit, filtered);
-        List<CollateRow> page = list.subList(offset, toIndex);
-
-        Data.LoadResult<CollateRow> result = new Data.LoadResult<>();
-        result.total = total;
-        result.filtered = filtered;
-        result.data.addAll(page);
-        return result;
-    }
-
-    private static void sort(List<CollateRow> list, String order) {
-        OrderSpec spec = parseOrder(order, "createdat", "desc");
-        list.sort((a, b) -> {
-            int cmp;
-            switch (spec.Field) {
-                case "name":
-                    cmp = a.Name.compareToIgnoreCase(b.Name);
-                    break;
-                case "email":
-                    cmp = a.Email.compareToIgnoreCase(b.Email);
-                    break;
-                case "city":
-                    cmp = a.City.compareToIgnoreCase(b.City);
-                    break;
-                default:
-                    cmp = Long.compare(a.CreatedAt.getTime(), b.CreatedAt.getTime());
-                    break;
-            }
-            return "desc".equals(spec.Direction) ? -cmp : cmp;
-        });
-    }
-
-    private static OrderSpec parseOrder(String s, String defField, String defDir) {
-        if (s == null) {
-            return new OrderSpec(defField, defDir);
-        }
-        String txt = s.trim();
-        if (txt.isEmpty()) {
-            return new OrderSpec(defField, defDir);
-        }
-        String[] parts = txt.split("\\s+");
-        String field = parts.length > 0 ? parts[0].toLowerCase() : defField;
-        String dir = parts.length > 1 ? parts[1].toLowerCase() : defDir;
-        if (!"asc".equals(dir) && !"desc".equals(dir)) {
-            dir = defDir;
-        }
-        return new OrderSpec(field, dir);
-    }
-
-    private static java.util.Date truncateStart(java.util.Date date) {
-        java.util.Calendar cal = java.util.Calendar.getInstance();
-        cal.setTime(date);
-        cal.set(java.util.Calendar.HOUR_OF_DAY, 0);
-        cal.set(java.util.Calendar.MINUTE, 0);
-        cal.set(java.util.Calendar.SECOND, 0);
-        cal.set(java.util.Calendar.MILLISECOND, 0);
-        return cal.getTime();
-    }
-
-    private static java.util.Date truncateEnd(java.util.Date date) {
-        java.util.Calendar cal = java.util.Calendar.getInstance();
-        cal.setTime(date);
-        cal.set(java.util.Calendar.HOUR_OF_DAY, 23);
-        cal.set(java.util.Calendar.MINUTE, 59);
-        cal.set(java.util.Calendar.SECOND, 59);
-        cal.set(java.util.Calendar.MILLISECOND, 999);
-        return cal.getTime();
-    }
-
     private static List<Data.TField> buildFilters() {
         List<Data.TField> fields = new ArrayList<>();
 
@@ -314,6 +225,5 @@ public final class CollatePage {
         }
     }
 
-    private static final List<CollateRow> DB = new ArrayList<>();
     private static boolean SEEDED = false;
 }
@@ -12,6 +12,7 @@ public final class ShowcasePage {
     }
 
     private static final ui.Target demoTarget = ui.Target();
+    private static final ShowcaseTemplatesImpl TEMPLATES = new ShowcaseTemplatesImpl();
 
     public static String actionSubmit(Context ctx) {
         DemoForm form = new DemoForm();
@@ -38,8 +39,7 @@ public final class ShowcasePage {
         }
 
         return ui.div("max-w-full sm:max-w-6xl mx-auto flex flex-col gap-8 w-full").render(
-                ui.div("text-3xl font-bold").render("Component Showcase"),
-                ui.div("text-gray-600").render("A collection of reusable UI components."),
+                TEMPLATES.Header("Component Showcase", "A collection of reusable UI components."),
                 renderAlerts(),
                 renderBadges(),
                 renderCards(),
@@ -106,8 +106,7 @@ public final class ShowcasePage {
 
     private static String renderBadges() {
         String icon = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"12\" height=\"12\" viewBox=\"0 0 24 24\" fill=\"none\" stroke=\"currentColor\" stroke-width=\"3\" stroke-linecap=\"round\" stroke-linejoin=\"round\"><path d=\"M12 22c5.523 0 10-4.477 10-10S17.523 2 12 2 2 6.477 2 12s4.477 10 10 10z\"/><path d=\"m9 12 2 2 4-4\"/></svg>";
-        return ui.div("").render(
-                ui.div("text-2xl font-bold mb-4").render("Badges"),
+        return TEMPLATES.Section("Badges",
                 ui.div("flex flex-col gap-6").render(
                         ui.div("flex flex-wrap items-center gap-4").render(
                                 ui.div("text-sm font-bold text-gray-500 uppercase w-full mb-1")
@@ -126,8 +125,7 @@ public final class ShowcasePage {
     }
 
     private static String renderCards() {
-        return ui.div("").render(
-                ui.div("text-2xl font-bold mb-4").render("Cards"),
+        return TEMPLATES.Section("Cards",
                 ui.div("grid grid-cols-1 md:grid-cols-3 gap-6").render(
                         ui.Card().Header("<h3 class='font-bold'>Standard Card</h3>")
                                 .Body("<p class='text-gray-600 dark:text-gray-400'>This is a standard shadowed card with default padding.</p>")
@@ -148,8 +146,7 @@ public final class ShowcasePage {
     }
 
     private static String renderProgress() {
-        return ui.div("").render(
-                ui.div("text-2xl font-bold mb-4").render("Progress Bars"),
+        return TEMPLATES.Section("Progress Bars",
                 ui.div("grid grid-cols-1 md:grid-cols-2 gap-8").render(
                         ui.div("flex flex-col gap-4").render(
                                 ui.div("").render(
@@ -170,8 +167,7 @@ public final class ShowcasePage {
     }
 
     private static String renderStepProgress() {
-        return ui.div("").render(
-                ui.div("text-2xl font-bold mb-4").render("Step Progress"),
+        return TEMPLATES.Section("Step Progress",
                 ui.div("grid grid-cols-1 md:grid-cols-2 gap-8").render(
                         ui.div("flex flex-col gap-4").render(
                                 ui.div("").render(
@@ -202,8 +198,7 @@ public final class ShowcasePage {
     }
 
     private static String renderTooltips() {
-        return ui.div("").render(
-                ui.div("text-2xl font-bold mb-4").render("Tooltips"),
+        return TEMPLATES.Section("Tooltips",
                 ui.div("flex flex-wrap gap-4").render(
                         ui.Tooltip().Content("Delayed tooltip").Delay(500).Render(
                                 ui.Button().Color(ui.Blue).Class("rounded-lg").Render("500ms Delay")),
@@ -222,8 +217,7 @@ public final class ShowcasePage {
         String iconUser = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"14\" height=\"14\" viewBox=\"0 0 24 24\" fill=\"none\" stroke=\"currentColor\" stroke-width=\"2\" stroke-linecap=\"round\" stroke-linejoin=\"round\"><path d=\"M19 21v-2a4 4 0 0 0-4-4H9a4 4 0 0 0-4 4v2\"/><circle cx=\"12\" cy=\"7\" r=\"4\"/></svg>";
         String iconSettings = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"14\" height=\"14\" viewBox=\"0 0 24 24\" fill=\"none\" stroke=\"currentColor\" stroke-width=\"2\" stroke-linecap=\"round\" stroke-linejoin=\"round\"><path d=\"M12.22 2h-.44a2 2 0 0 0-2 2v.18a2 2 0 0 1-1 1.73l-.43.25a2 2 0 0 1-2 0l-.15-.08a2 2 0 0 0-2.73.73l-.22.38a2 2 0 0 0 .73 2.73l.15.1a2 2 0 0 1 1 1.72v.51a2 2 0 0 1-1 1.74l-.15.09a2 2 0 0 0-.73 2.73l.22.38a2 2 0 0 0 2.73.73l.15-.08a2 2 0 0 1 2 0l.43.25a2 2 0 0 1 1 1.73V20a2 2 0 0 0 2 2h.44a2 2 0 0 0 2-2v-.18a2 2 0 0 1 1-1.73l.43-.25a2 2 0 0 1 2 0l.15.08a2 2 0 0 0 2.73-.73l.22-.39a2 2 0 0 0-.73-2.73l-.15-.08a2 2 0 0 1-1-1.74v-.5a2 2 0 0 1 1-1.74l.15-.09a2 2 0 0 0 .73-2.73l-.22-.38a2 2 0 0 0-2.73-.73l-.15.08a2 2 0 0 1-2 0l-.43-.25a2 2 0 0 1-1-1.73V4a2 2 0 0 0-2-2z\"/><circle cx=\"12\" cy=\"12\" r=\"3\"/></svg>";
         String contentClass = "p-6 bg-white dark:bg-gray-900 rounded-lg shadow-sm border border-gray-100 dark:border-gray-800";
-        return ui.div("").render(
-                ui.div("text-2xl font-bold mb-4").render("Tabs"),
+        return TEMPLATES.Section("Tabs",
                 ui.div("grid grid-cols-1 gap-8").render(
                         ui.div("").render(
                                 ui.div("text-sm font-bold text-gray-500 uppercase mb-3")
@@ -287,8 +281,7 @@ public final class ShowcasePage {
     }
 
     private static String renderAccordion() {
-        return ui.div("").render(
-                ui.div("text-2xl font-bold mb-4").render("Accordion"),
+        return TEMPLATES.Section("Accordion",
                 ui.div("grid grid-cols-1 md:grid-cols-2 gap-8").render(
                         ui.div("").render(
                                 ui.div("text-sm font-bold text-gray-500 uppercase mb-3")
@@ -316,8 +309,7 @@ public final class ShowcasePage {
     private static String renderDropdowns() {
         String iconEdit = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"14\" height=\"14\" viewBox=\"0 0 24 24\" fill=\"none\" stroke=\"currentColor\" stroke-width=\"2\" stroke-linecap=\"round\" stroke-linejoin=\"round\"><path d=\"M11 4H4a2 2 0 0 0-2 2v14a2 2 0 0 0 2 2h14a2 2 0 0 0 2-2v-7\"/><path d=\"M18.5 2.5a2.121 2.121 0 0 1 3 3L12 15l-4 1 1-4 9.5-9.5z\"/></svg>";
         String iconDelete = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"14\" height=\"14\" viewBox=\"0 0 24 24\" fill=\"none\" stroke=\"currentColor\" stroke-width=\"2\" stroke-linecap=\"round\" stroke-linejoin=\"round\"><polyline points=\"3 6 5 6 21 6\"/><path d=\"M19 6v14a2 2 0 0 1-2 2H7a2 2 0 0 1-2-2V6m3 0V4a2 2 0 0 1 2-2h4a2 2 0 0 1 2 2v2\"/><line x1=\"10\" y1=\"11\" x2=\"10\" y2=\"17\"/><line x1=\"14\" y1=\"11\" x2=\"14\" y2=\"17\"/></svg>";
-        return ui.div("").render(
-                ui.div("text-2xl font-bold mb-4").render("Dropdown Menus"),
+        return TEMPLATES.Section("Dropdown Menus",
                 ui.div("flex flex-wrap gap-4").render(
                         ui.Dropdown()
                                 .Trigger(ui.Button().Color(ui.Blue).Class("rounded-lg").Render("Actions ▼"))
@@ -0,0 +1,16 @@
+package jsui.examples.pages;
+
+import jsui.Template;
+
+/**
+ * Static frames of the showcase page, compiled ahead of time into
+ * {@code ShowcaseTemplatesImpl} by {@link jsui.TemplateProcessor}.
+ */
+interface ShowcaseTemplates {
+
+    @Template("<div class=\"text-3xl font-bold\">{title}</div> <div class=\"text-gray-600\">{subtitle}</div>")
+    String Header(String title, String subtitle);
+
+    @Template("<div><div class=\"text-2xl font-bold mb-4\">{title}</div> {!content}</div>")
+    String Section(String title, String content);
+}
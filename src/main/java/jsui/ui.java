@@ -32,6 +32,7 @@ public final class ui {
     public static final class Attr {
         public String onclick;
         public String onchange;
+        public String oninput;
         public String onsubmit;
         public String step;
         public String id;
@@ -130,6 +131,11 @@ public final class ui {
             return this;
         }
 
+        public Attr oninput(String v) {
+            this.oninput = v;
+            return this;
+        }
+
         public Attr onsubmit(String v) {
             this.onsubmit = v;
             return this;
@@ -256,7 +262,11 @@ public final class ui {
         public final Action Render;
 
         public Target() {
-            this.id = makeId();
+            this(makeId());
+        }
+
+        Target(String id) {
+            this.id = id;
             this.Replace = new Action(id, Swap.outline);
             this.Append = new Action(id, Swap.append);
             this.Prepend = new Action(id, Swap.prepend);
@@ -299,14 +309,18 @@ public final class ui {
         }
 
         public static String Default(Target t) {
-            return div("animate-pulse", t.id()).render(
+            return Memo("skeleton.default", t.id, id -> div("animate-pulse", Attr.of().id(id)).render(
                     div("bg-white dark:bg-gray-900 rounded-lg p-4 shadow").render(
                             div("bg-gray-200 h-5 rounded w-5/6 mb-2").render(),
                             div("bg-gray-200 h-5 rounded w-2/3 mb-2").render(),
-                            div("bg-gray-200 h-5 rounded w-4/6").render()));
+                            div("bg-gray-200 h-5 rounded w-4/6").render())));
         }
 
         public static String List(Target t, int rows) {
+            return Memo("skeleton.list." + rows, t.id, id -> list(id, rows));
+        }
+
+        private static String list(String id, int rows) {
             List<String> items = new ArrayList<>();
             for (int i = 0; i < rows; i++) {
                 items.add(
@@ -316,32 +330,40 @@ public final class ui {
                                         div("bg-gray-200 h-4 rounded w-5/6 mb-2").render(),
                                         div("bg-gray-200 h-4 rounded w-3/6").render())));
             }
-            return div("animate-pulse", t.id()).render(
+            return div("animate-pulse", Attr.of().id(id)).render(
                     div("bg-white dark:bg-gray-900 rounded-lg p-4 shadow").render(String.join("", items)));
         }
 
         public static String Component(Target t) {
-            return div("animate-pulse", t.id()).render(
+            return Memo("skeleton.component", t.id, id -> div("animate-pulse", Attr.of().id(id)).render(
                     div("bg-white dark:bg-gray-900 rounded-lg p-4 shadow").render(
                             div("bg-gray-200 h-6 rounded w-2/5 mb-4").render(),
                             div("bg-gray-200 h-4 rounded w-full mb-2").render(),
                             div("bg-gray-200 h-4 rounded w-5/6 mb-2").render(),
-                            div("bg-gray-200 h-4 rounded w-4/6").render()));
+                            div("bg-gray-200 h-4 rounded w-4/6").render())));
         }
 
         public static String Page(Target t) {
+            return Memo("skeleton.page", t.id, Skeleton::page);
+        }
+
+        private static String page(String id) {
             String card = div("bg-white dark:bg-gray-900 rounded-lg p-4 shadow mb-4").render(
                     div("bg-gray-200 h-5 rounded w-2/5 mb-3").render(),
                     div("bg-gray-200 h-4 rounded w-full mb-2").render(),
                     div("bg-gray-200 h-4 rounded w-5/6 mb-2").render(),
                     div("bg-gray-200 h-4 rounded w-4/6").render());
-            return div("animate-pulse", t.id()).render(
+            return div("animate-pulse", Attr.of().id(id)).render(
                     div("bg-gray-200 h-8 rounded w-1/3 mb-6").render(),
                     card,
                     card);
         }
 
         public static String Form(Target t) {
+            return Memo("skeleton.form", t.id, Skeleton::form);
+        }
+
+        private static String form(String id) {
             String fieldShort = div("").render(
                     div("bg-gray-200 h-4 rounded w-3/6 mb-2").render(),
                     div("bg-gray-200 h-10 rounded w-full").render());
@@ -351,7 +373,7 @@ public final class ui {
             String actions = div("flex justify-end gap-3 mt-6").render(
                     div("bg-gray-200 h-10 rounded w-24").render(),
                     div("bg-gray-200 h-10 rounded w-32").render());
-            return div("animate-pulse", t.id()).render(
+            return div("animate-pulse", Attr.of().id(id)).render(
                     div("bg-white dark:bg-gray-900 rounded-lg p-4 shadow").render(
                             div("bg-gray-200 h-6 rounded w-2/5 mb-5").render(),
                             div("grid grid-cols-1 md:grid-cols-2 gap-4").render(
@@ -363,6 +385,124 @@ public final class ui {
         }
     }
 
+    /** Shared fragment cache used by {@link #Memo}. */
+    public static final MemoCache Memos = new MemoCache(2048);
+
+    /**
+     * Returns the cached markup for {@code key}, rendering it with
+     * {@code render} on a miss. Only use it for fragments that depend on
+     * nothing but the key.
+     */
+    public static String Memo(Object key, java.util.function.Supplier<String> render) {
+        return Memos.get(key, render);
+    }
+
+    /**
+     * Like {@link #Memo(Object, java.util.function.Supplier)} for fragments
+     * that also contain an element id: the fragment is rendered once with a
+     * placeholder id and every call fills in {@code id}.
+     */
+    public static String Memo(Object key, String id, java.util.function.Function<String, String> render) {
+        return Memos.get(key, id, render);
+    }
+
+    /**
+     * Bounded LRU cache of rendered fragments with hit/miss counters. Entries
+     * are stored split around the id slot so reuse is a plain concatenation.
+     */
+    public static final class MemoCache {
+        private static final String SLOT = "jsuiMemoSlot7f3a";
+
+        private final int capacity;
+        private final java.util.LinkedHashMap<Object, String[]> entries;
+        private final java.util.concurrent.atomic.AtomicLong hits = new java.util.concurrent.atomic.AtomicLong();
+        private final java.util.concurrent.atomic.AtomicLong misses = new java.util.concurrent.atomic.AtomicLong();
+
+        public MemoCache(int capacity) {
+            this.capacity = Math.max(1, capacity);
+            this.entries = new java.util.LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, String[]> eldest) {
+                    return size() > MemoCache.this.capacity;
+                }
+            };
+        }
+
+        public String get(Object key, java.util.function.Supplier<String> render) {
+            String[] parts = lookup(key);
+            if (parts == null) {
+                String html = render.get();
+                store(key, new String[] { html != null ? html : "" });
+                return html != null ? html : "";
+            }
+            return parts[0];
+        }
+
+        public String get(Object key, String id, java.util.function.Function<String, String> render) {
+            String[] parts = lookup(key);
+            if (parts == null) {
+                String html = render.apply(SLOT);
+                parts = (html != null ? html : "").split(SLOT, -1);
+                store(key, parts);
+            }
+            if (parts.length == 1) {
+                return parts[0];
+            }
+            String value = id != null ? id : "";
+            int size = value.length() * (parts.length - 1);
+            for (String part : parts) {
+                size += part.length();
+            }
+            StringBuilder sb = new StringBuilder(size).append(parts[0]);
+            for (int i = 1; i < parts.length; i++) {
+                sb.append(value).append(parts[i]);
+            }
+            return sb.toString();
+        }
+
+        private String[] lookup(Object key) {
+            String[] parts;
+            synchronized (entries) {
+                parts = entries.get(key);
+            }
+            (parts != null ? hits : misses).incrementAndGet();
+            return parts;
+        }
+
+        private void store(Object key, String[] parts) {
+            synchronized (entries) {
+                entries.put(key, parts);
+            }
+        }
+
+        public long hits() {
+            return hits.get();
+        }
+
+        public long misses() {
+            return misses.get();
+        }
+
+        /** Share of lookups served from the cache, between 0 and 1. */
+        public double hitRate() {
+            long h = hits.get();
+            long total = h + misses.get();
+            return total == 0 ? 0 : (double) h / total;
+        }
+
+        public int size() {
+            synchronized (entries) {
+                return entries.size();
+            }
+        }
+
+        public void clear() {
+            synchronized (entries) {
+                entries.clear();
+            }
+        }
+    }
+
     public static final String XS = " p-1";
     public static final String SM = " p-2";
     public static final String MD = " p-3";
@@ -394,7 +534,10 @@ public final class ui {
     public static final String space = "&nbsp;";
 
     public static String ThemeSwitcher(String css) {
-        String id = "tsui_theme_" + RandomString(8);
+        return Memo("theme-switcher:" + css, "tsui_theme_" + RandomString(8), id -> themeSwitcher(id, css));
+    }
+
+    private static String themeSwitcher(String id, String css) {
         String sun = """
                 <svg aria-hidden="true" xmlns="http://www.w3.org/2000/svg" class="h-4 w-4" fill="currentColor" viewBox="0 0 24 24">\
                 <path d="M6.76 4.84l-1.8-1.79-1.41 1.41 1.79 1.8 1.42-1.42zm10.48 14.32l1.79 1.8 1.41-1.41-1.8-1.79-1.4 1.4zM12 4V1h-0 0 0 0v3zm0 19v-3h0 0 0 0v3zM4 12H1v0 0 0 0h3zm19 0h-3v0 0 0 0h3zM6.76 19.16l-1.79 1.8 1.41 1.41 1.8-1.79-1.42-1.42zM19.16 6.76l1.8-1.79-1.41-1.41-1.8 1.79 1.41 1.41zM12 8a4 4 0 100 8 4 4 0 000-8z"/>\
@@ -1050,6 +1193,9 @@ public final class ui {
     public static final String Flex1 = div("flex-1").render();
 
     public static String Icon(String css, Attr... attr) {
+        if (attr == null || attr.length == 0) {
+            return Memo("icon:" + css, () -> div(css).render());
+        }
         return div(css, attr).render();
     }
 
@@ -1151,13 +1297,44 @@ public final class ui {
         String apply(String... children);
     }
 
+    /**
+     * Markup that writes itself into a shared buffer. Trees built from nodes
+     * are materialized once, instead of every level copying its children.
+     */
+    @FunctionalInterface
+    public interface Node {
+        void writeTo(StringBuilder out);
+
+        default String render() {
+            StringBuilder sb = new StringBuilder(256);
+            writeTo(sb);
+            return sb.toString();
+        }
+    }
+
+    /** Wraps already rendered markup as a node. */
+    public static Node Raw(String html) {
+        return out -> {
+            if (html != null) {
+                out.append(html);
+            }
+        };
+    }
+
+    /** Joins strings and nodes the same way {@code render(String...)} joins its children. */
+    public static Node Nodes(Object... children) {
+        return out -> writeChildren(out, children);
+    }
+
     public static final class TagBuilder implements TagRenderer, TagFunction {
         private final String tag;
-        private final List<Attr> attrs;
+        private final String css;
+        private final Attr[] attrs;
 
         TagBuilder(String tag, String css, Attr... extras) {
             this.tag = tag;
-            this.attrs = collectAttrs(css, extras);
+            this.css = css;
+            this.attrs = extras;
         }
 
         @Override
@@ -1167,41 +1344,69 @@ public final class ui {
 
         @Override
         public String apply(String... children) {
-            String attrString = attributes(attrs);
-            StringBuilder sb = new StringBuilder();
-            sb.append("<").append(tag);
-            if (!attrString.isEmpty()) {
-                sb.append(" ").append(attrString);
+            int size = 2 * tag.length() + (css != null ? css.length() : 0) + 32;
+            if (children != null) {
+                for (String child : children) {
+                    if (child != null) {
+                        size += child.length() + 1;
+                    }
+                }
             }
-            sb.append(">").append(join(children)).append("</").append(tag).append(">");
-            return sb.toString();
+            StringBuilder sb = new StringBuilder(size);
+            sb.append('<').append(tag);
+            writeAttributes(sb, css, attrs);
+            sb.append('>');
+            writeChildren(sb, (Object[]) children);
+            return sb.append("</").append(tag).append('>').toString();
+        }
+
+        /** Returns this tag as a node; children may be strings or nodes and are written on demand. */
+        public Node node(Object... children) {
+            return out -> writeTo(out, children);
+        }
+
+        /** Writes this tag and its children (strings or nodes) straight into {@code out}. */
+        public void writeTo(StringBuilder out, Object... children) {
+            out.append('<').append(tag);
+            writeAttributes(out, css, attrs);
+            out.append('>');
+            writeChildren(out, children);
+            out.append("</").append(tag).append('>');
         }
     }
 
-    private static List<Attr> collectAttrs(String css, Attr... extras) {
-        List<Attr> list = new ArrayList<>();
-        if (css != null && !css.trim().isEmpty()) {
-            list.add(Attr.of().clazz(css));
+    private static void writeChildren(StringBuilder out, Object... children) {
+        if (children == null) {
+            return;
         }
-        if (extras != null) {
-            for (Attr extra : extras) {
-                if (extra != null) {
-                    list.add(extra);
-                }
+        boolean first = true;
+        for (Object child : children) {
+            if (child == null) {
+                continue;
+            }
+            int mark = out.length();
+            if (!first) {
+                out.append(' ');
+            }
+            int start = out.length();
+            if (child instanceof Node node) {
+                node.writeTo(out);
+            } else {
+                out.append(child);
+            }
+            if (out.length() == start) {
+                out.setLength(mark);
+            } else {
+                first = false;
             }
         }
-        return list;
     }
 
     private static String closed(String tag, String css, Attr... extras) {
-        String attrString = attributes(collectAttrs(css, extras));
-        StringBuilder sb = new StringBuilder();
-        sb.append("<").append(tag);
-        if (!attrString.isEmpty()) {
-            sb.append(" ").append(attrString);
-        }
-        sb.append("/>");
-        return sb.toString();
+        StringBuilder sb = new StringBuilder(tag.length() + (css != null ? css.length() : 0) + 64);
+        sb.append('<').append(tag);
+        writeAttributes(sb, css, extras);
+        return sb.append("/>").toString();
     }
 
     public static String Hidden(String name, String type, String value) {
@@ -1376,9 +1581,7 @@ public final class ui {
     }
 
     private static String escapeHtml(String s) {
-        if (s == null)
-            return "";
-        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+        return Escape.attr(s);
     }
 
     public static final class InputText {
@@ -1396,6 +1599,7 @@ public final class ui {
         public String value = "";
         public String onchange = "";
         public String onclick = "";
+        public String oninput = "";
         public String pattern = "";
         public String placeholder = "";
         public String autocomplete = "";
@@ -1476,6 +1680,18 @@ public final class ui {
             return this;
         }
 
+        /** Runs {@code js} on every keystroke; see {@link #SubmitOnType}. */
+        public InputText Input(String js) {
+            this.oninput = js;
+            return this;
+        }
+
+        /** Submits the enclosing form once typing pauses for {@code millis}. */
+        public InputText SubmitOnType(int millis) {
+            this.oninput = "__debounceSubmit(this, " + Math.max(0, millis) + ")";
+            return this;
+        }
+
         public InputText Placeholder(String v) {
             this.placeholder = v;
             return this;
@@ -1582,6 +1798,7 @@ public final class ui {
                     .type(as)
                     .onchange(onChangeApplied)
                     .onclick(onclick)
+                    .oninput(oninput)
                     .required(required)
                     .disabled(disabled)
                     .readonly(readonly)
@@ -2428,6 +2645,7 @@ public final class ui {
         private final List<List<String>> rows = new ArrayList<>();
         private final List<List<String>> cellAttrs = new ArrayList<>();
         private final List<String> colClasses = new ArrayList<>();
+        private final VirtualRows virtual = new VirtualRows();
 
         public SimpleTable(int cols, String css) {
             this.cols = cols > 0 ? cols : 1;
@@ -2539,7 +2757,12 @@ public final class ui {
 
         public String Render() {
             StringBuilder rowsHtml = new StringBuilder();
-            for (int rowIndex = 0; rowIndex < rows.size(); rowIndex++) {
+            writeRows(rowsHtml, 0, rows.size());
+            return "<table class=\"" + Classes("table-auto", css) + "\"><tbody>" + rowsHtml + "</tbody></table>";
+        }
+
+        private void writeRows(StringBuilder rowsHtml, int from, int to) {
+            for (int rowIndex = Math.max(0, from); rowIndex < Math.min(to, rows.size()); rowIndex++) {
                 List<String> row = rows.get(rowIndex);
                 StringBuilder cells = new StringBuilder();
                 int usedCols = 0;
@@ -2563,7 +2786,117 @@ public final class ui {
                 }
                 rowsHtml.append("<tr>").append(cells).append("</tr>");
             }
-            return "<table class=\"" + Classes("table-auto", css) + "\"><tbody>" + rowsHtml + "</tbody></table>";
+        }
+
+        public SimpleTable RowHeight(int px) {
+            virtual.rowHeight(px, false);
+            return this;
+        }
+
+        public SimpleTable EstimatedRowHeight(int px) {
+            virtual.rowHeight(px, true);
+            return this;
+        }
+
+        public SimpleTable Viewport(int px) {
+            virtual.viewport(px);
+            return this;
+        }
+
+        public SimpleTable Overscan(int rows) {
+            virtual.overscan(rows);
+            return this;
+        }
+
+        /**
+         * Like {@link #Render()}, but the browser only receives the visible
+         * window of rows plus overscan and fetches the rest while scrolling.
+         */
+        public String Virtual(Context ctx) throws Exception {
+            return virtual.render(ctx, Classes("table-auto", css), "", cols, rows.size(),
+                    (sb, offset, limit) -> writeRows(sb, offset, offset + limit));
+        }
+    }
+
+    /**
+     * Shared virtual scrolling for {@link Table} and {@link SimpleTable}. The
+     * tbody holds a spacer row above and below the rendered window; the client
+     * ({@code __vtable}) requests {@code offset}/{@code limit} windows from a
+     * route registered for the table and swaps the rows in between.
+     */
+    static final class VirtualRows {
+        static final int MAX_WINDOW = 500;
+
+        interface RowWriter {
+            void write(StringBuilder out, int offset, int limit) throws Exception;
+        }
+
+        private int rowHeight = 40;
+        private boolean estimated;
+        private int viewport = 600;
+        private int overscan = 10;
+
+        void rowHeight(int px, boolean estimated) {
+            if (px > 0) {
+                this.rowHeight = px;
+                this.estimated = estimated;
+            }
+        }
+
+        void viewport(int px) {
+            if (px > 0) {
+                this.viewport = px;
+            }
+        }
+
+        void overscan(int rows) {
+            this.overscan = Math.max(0, rows);
+        }
+
+        String render(Context ctx, String tableCss, String heads, int cols, int total, RowWriter rows) throws Exception {
+            total = Math.max(0, total);
+            String id = Target().id;
+            int end = Math.min(total, Math.min(MAX_WINDOW, (viewport + rowHeight - 1) / rowHeight + overscan));
+            StringBuilder sb = new StringBuilder(512);
+            sb.append("<div id=\"").append(id).append("\" class=\"overflow-auto\" style=\"height:").append(viewport)
+                    .append("px;overflow-anchor:none\"><table class=\"").append(tableCss).append("\">");
+            if (!heads.isEmpty()) {
+                sb.append("<thead class=\"bg-white dark:bg-gray-900\" style=\"position:sticky;top:0;z-index:1\"><tr>")
+                        .append(heads).append("</tr></thead>");
+            }
+            sb.append("<tbody>");
+            spacer(sb, cols, 0);
+            rows.write(sb, 0, end);
+            spacer(sb, cols, (long) (total - end) * rowHeight);
+            sb.append("</tbody></table></div>");
+            if (ctx == null || ctx.app == null || end >= total) {
+                return sb.toString();
+            }
+            final int size = total;
+            Context.Callable route = ctx.Callable(c -> {
+                int offset = Math.max(0, Math.min(size, parseIntOr(c.query("offset"), 0)));
+                int limit = Math.max(0, Math.min(MAX_WINDOW, parseIntOr(c.query("limit"), 0)));
+                StringBuilder out = new StringBuilder(limit * 64 * cols);
+                rows.write(out, offset, Math.min(limit, size - offset));
+                return out.toString();
+            });
+            ctx.app.registerClear(ctx.sessionID, id, () -> ctx.app.unregister(route));
+            sb.append(Script("__vtable('%s','%s',%d,%d,%d,%b,%d);"
+                    .formatted(id, ctx.app.pathOf(route), total, rowHeight, overscan, estimated, end)));
+            return sb.toString();
+        }
+
+        private static void spacer(StringBuilder sb, int cols, long height) {
+            sb.append("<tr aria-hidden=\"true\" style=\"height:").append(height)
+                    .append("px\"><td colspan=\"").append(cols).append("\" style=\"padding:0;border:0\"></td></tr>");
+        }
+
+        private static int parseIntOr(String value, int fallback) {
+            try {
+                return value != null ? Integer.parseInt(value.trim()) : fallback;
+            } catch (NumberFormatException ex) {
+                return fallback;
+            }
         }
     }
 
@@ -4585,6 +4918,7 @@ public final class ui {
     public static final class Table<T> {
         private final List<String> heads = new ArrayList<>();
         private final List<Slot<T>> slots = new ArrayList<>();
+        private final VirtualRows virtual = new VirtualRows();
         private String css = "";
 
         @FunctionalInterface
@@ -4634,28 +4968,79 @@ public final class ui {
         }
 
         public String Render(List<T> data) {
-            if (data == null) {
-                data = new ArrayList<>();
-            }
-
-            StringBuilder headsBuilder = new StringBuilder();
+            StringBuilder sb = new StringBuilder(256 + (data != null ? data.size() * 64 * Math.max(1, slots.size()) : 0));
+            sb.append("<div><table class=\"table-auto ").append(escapeAttr(css)).append("\"><thead><tr>");
             for (String head : heads) {
-                headsBuilder.append(head);
+                sb.append(head);
             }
+            sb.append("</tr></thead><tbody>");
+            writeRows(sb, data);
+            return sb.append("</tbody></table></div>").toString();
+        }
 
-            StringBuilder rowsBuilder = new StringBuilder();
+        private void writeRows(StringBuilder sb, List<T> data) {
+            if (data == null || data.isEmpty()) {
+                return;
+            }
+            String[] cellOpen = new String[slots.size()];
+            for (int i = 0; i < cellOpen.length; i++) {
+                cellOpen[i] = "<td class=\"" + escapeAttr(slots.get(i).cls) + "\">";
+            }
             for (T row : data) {
-                rowsBuilder.append("<tr>");
-                for (Slot<T> slot : slots) {
+                sb.append("<tr>");
+                for (int i = 0; i < cellOpen.length; i++) {
+                    Slot<T> slot = slots.get(i);
                     String cellContent = slot.slot != null ? slot.slot.apply(row) : "";
-                    rowsBuilder.append(String.format("<td class=\"%s\">%s</td>", escapeAttr(slot.cls), cellContent));
+                    sb.append(cellOpen[i]).append(cellContent).append("</td>");
                 }
-                rowsBuilder.append("</tr>");
+                sb.append("</tr>");
             }
+        }
 
-            return String.format(
-                    "<div><table class=\"table-auto %s\"><thead><tr>%s</tr></thead><tbody>%s</tbody></table></div>",
-                    escapeAttr(css), headsBuilder.toString(), rowsBuilder.toString());
+        /** Loads {@code limit} rows starting at {@code offset} for a virtual table. */
+        @FunctionalInterface
+        public interface Window<T> {
+            List<T> rows(int offset, int limit) throws Exception;
+        }
+
+        public Table<T> RowHeight(int px) {
+            virtual.rowHeight(px, false);
+            return this;
+        }
+
+        public Table<T> EstimatedRowHeight(int px) {
+            virtual.rowHeight(px, true);
+            return this;
+        }
+
+        public Table<T> Viewport(int px) {
+            virtual.viewport(px);
+            return this;
+        }
+
+        public Table<T> Overscan(int rows) {
+            virtual.overscan(rows);
+            return this;
+        }
+
+        /**
+         * Renders a scrollable table that only holds the visible window of rows
+         * plus overscan. Further windows are loaded from {@code window} by index
+         * range while scrolling, so only {@code total} has to be known up front.
+         */
+        public String Virtual(Context ctx, int total, Window<T> window) throws Exception {
+            StringBuilder head = new StringBuilder();
+            for (String h : heads) {
+                head.append(h);
+            }
+            return virtual.render(ctx, "table-auto " + escapeAttr(css), head.toString(), Math.max(1, slots.size()),
+                    total, (sb, offset, limit) -> writeRows(sb, window != null ? window.rows(offset, limit) : null));
+        }
+
+        /** Virtual table over rows already in memory; bounds the response and DOM size only. */
+        public String Virtual(Context ctx, List<T> data) throws Exception {
+            List<T> rows = data != null ? data : List.of();
+            return Virtual(ctx, rows.size(), (offset, limit) -> rows.subList(offset, Math.min(rows.size(), offset + limit)));
         }
     }
 
@@ -4851,71 +5236,15 @@ public final class ui {
     }
 
     public static String Trim(String s) {
-        if (s == null)
-            return "";
-        String x = s;
-        x = x.replaceAll("(?s)/\\*.*?\\*/", "");
-        x = x.replaceAll("(?s)<!--.*?-->", "");
-        // Strip full-line // comments (avoid breaking inline URLs like http://)
-        x = x.replaceAll("(?m)^[ \t]*//.*$", "");
-        // Collapse newlines/tabs, then long spaces
-        x = x.replaceAll("[\t\n]+", "");
-        x = x.replaceAll("\\s{4,}", " ");
-        return x.trim();
+        return Escape.trim(s);
     }
 
     public static String EscapeJson(String s) {
-        if (s == null)
-            return "";
-        StringBuilder sb = new StringBuilder(s.length() + 20);
-        for (int i = 0; i < s.length(); i++) {
-            char c = s.charAt(i);
-            switch (c) {
-                case '"':
-                    sb.append("\\\"");
-                    break;
-                case '\\':
-                    sb.append("\\\\");
-                    break;
-                case '\b':
-                    sb.append("\\b");
-                    break;
-                case '\f':
-                    sb.append("\\f");
-                    break;
-                case '\n':
-                    sb.append("\\n");
-                    break;
-                case '\r':
-                    sb.append("\\r");
-                    break;
-                case '\t':
-                    sb.append("\\t");
-                    break;
-                default:
-                    if (c < ' ') {
-                        sb.append(String.format("\\u%04x", (int) c));
-                    } else {
-                        sb.append(c);
-                    }
-            }
-        }
-        return sb.toString();
+        return Escape.json(s);
     }
 
     public static String Normalize(String s) {
-        if (s == null)
-            return "";
-        String x = s.replace("\\", "\\\\");
-        x = x.replace("\"", "\\\"");
-        x = x.replaceAll("(?s)/\\*.*?\\*/", "");
-        x = x.replaceAll("(?s)<!--.*?-->", "");
-        x = x.replaceAll("(?m)^[ \t]*//.*$", "");
-        x = x.replace("\t", "\\t");
-        x = x.replace("\n", "\\n");
-        x = x.replace("\r", "\\r");
-        x = x.replaceAll("\\s{4,}", " ");
-        return x.trim();
+        return Escape.normalize(s);
     }
 
     public static String Classes(String... values) {
@@ -4976,79 +5305,82 @@ public final class ui {
         return sb.toString();
     }
 
-    private static String attributes(List<Attr> attrs) {
-        List<String> out = new ArrayList<>();
-        if (attrs != null) {
-            for (Attr a : attrs) {
-                if (a == null) {
-                    continue;
-                }
-                add(out, "id", a.id);
-                add(out, "href", a.href);
-                add(out, "alt", a.alt);
-                add(out, "title", a.title);
-                add(out, "src", a.src);
-                add(out, "for", a.htmlFor);
-                add(out, "type", a.type);
-                add(out, "class", a.clazz);
-                add(out, "style", a.style);
-                add(out, "onclick", a.onclick);
-                add(out, "onchange", a.onchange);
-                add(out, "onsubmit", a.onsubmit);
-                if (a.value != null)
-                    add(out, "value", a.value);
-                add(out, "checked", a.checked);
-                add(out, "selected", a.selected);
-                add(out, "name", a.name);
-                add(out, "placeholder", a.placeholder);
-                add(out, "autocomplete", a.autocomplete);
-                add(out, "pattern", a.pattern);
-                if (a.cols != null)
-                    add(out, "cols", String.valueOf(a.cols));
-                if (a.rows != null)
-                    add(out, "rows", String.valueOf(a.rows));
-                if (a.width != null)
-                    add(out, "width", String.valueOf(a.width));
-                if (a.height != null)
-                    add(out, "height", String.valueOf(a.height));
-                add(out, "min", a.min);
-                add(out, "max", a.max);
-                add(out, "target", a.target);
-                add(out, "step", a.step);
-                add(out, "form", a.form);
-                if (Boolean.TRUE.equals(a.required))
-                    out.add("required=\"required\"");
-                if (Boolean.TRUE.equals(a.disabled))
-                    out.add("disabled=\"disabled\"");
-                if (Boolean.TRUE.equals(a.readonly))
-                    out.add("readonly=\"readonly\"");
-                add(out, "data-accordion", a.dataAccordion);
-                add(out, "data-accordion-item", a.dataAccordionItem);
-                add(out, "data-accordion-content", a.dataAccordionContent);
-                add(out, "data-tabs", a.dataTabs);
-                add(out, "data-tabs-index", a.dataTabsIndex);
-                add(out, "data-tabs-panel", a.dataTabsPanel);
-            }
-        }
-        return String.join(" ", out);
-    }
-
-    private static void add(List<String> out, String key, String value) {
+    /**
+     * Writes {@code css} as the class attribute, followed by the set fields of
+     * each {@link Attr}, each preceded by a space and escaped in place.
+     */
+    private static void writeAttributes(StringBuilder out, String css, Attr[] attrs) {
+        if (css != null && !css.isBlank()) {
+            put(out, "class", css);
+        }
+        if (attrs == null) {
+            return;
+        }
+        for (Attr a : attrs) {
+            if (a == null) {
+                continue;
+            }
+            put(out, "id", a.id);
+            put(out, "href", a.href);
+            put(out, "alt", a.alt);
+            put(out, "title", a.title);
+            put(out, "src", a.src);
+            put(out, "for", a.htmlFor);
+            put(out, "type", a.type);
+            put(out, "class", a.clazz);
+            put(out, "style", a.style);
+            put(out, "onclick", a.onclick);
+            put(out, "onchange", a.onchange);
+            put(out, "oninput", a.oninput);
+            put(out, "onsubmit", a.onsubmit);
+            put(out, "value", a.value);
+            put(out, "checked", a.checked);
+            put(out, "selected", a.selected);
+            put(out, "name", a.name);
+            put(out, "placeholder", a.placeholder);
+            put(out, "autocomplete", a.autocomplete);
+            put(out, "pattern", a.pattern);
+            put(out, "cols", a.cols);
+            put(out, "rows", a.rows);
+            put(out, "width", a.width);
+            put(out, "height", a.height);
+            put(out, "min", a.min);
+            put(out, "max", a.max);
+            put(out, "target", a.target);
+            put(out, "step", a.step);
+            put(out, "form", a.form);
+            if (Boolean.TRUE.equals(a.required))
+                out.append(" required=\"required\"");
+            if (Boolean.TRUE.equals(a.disabled))
+                out.append(" disabled=\"disabled\"");
+            if (Boolean.TRUE.equals(a.readonly))
+                out.append(" readonly=\"readonly\"");
+            put(out, "data-accordion", a.dataAccordion);
+            put(out, "data-accordion-item", a.dataAccordionItem);
+            put(out, "data-accordion-content", a.dataAccordionContent);
+            put(out, "data-tabs", a.dataTabs);
+            put(out, "data-tabs-index", a.dataTabsIndex);
+            put(out, "data-tabs-panel", a.dataTabsPanel);
+        }
+    }
+
+    private static void put(StringBuilder out, String key, String value) {
         if (value == null || value.isEmpty()) {
             return;
         }
-        out.add(key + "=\"" + escapeAttr(value) + "\"");
+        out.append(' ').append(key).append("=\"");
+        Escape.attr(out, value);
+        out.append('"');
+    }
+
+    private static void put(StringBuilder out, String key, Integer value) {
+        if (value != null) {
+            out.append(' ').append(key).append("=\"").append(value.intValue()).append('"');
+        }
     }
 
     private static String escapeAttr(String v) {
-        if (v == null)
-            return "";
-        String x = v;
-        x = x.replace("&", "&amp;");
-        x = x.replace("\"", "&quot;");
-        x = x.replace("<", "&lt;");
-        x = x.replace(">", "&gt;");
-        return x;
+        return Escape.attr(v);
     }
 
     private static Object getPath(Object data, String path) {
@@ -24,11 +24,14 @@
     window.__applySwap = function (id, swap, html) {
         try {
             var el = document.getElementById(id);
-            if (!el) return;
+            if (!el && swap !== 'none') return;
             var temp = document.createElement('div');
             temp.innerHTML = html;
             var scripts = Array.from(temp.querySelectorAll('script'));
-            if (swap === 'outline') {
+            var focus = swap === 'inline' || swap === 'outline' ? __captureFocus(el) : null;
+            if (swap === 'none') {
+                // Nothing to swap; only run the scripts (toasts, downloads, redirects)
+            } else if (swap === 'outline') {
                 el.outerHTML = html;
             } else if (swap === 'append') {
                 el.insertAdjacentHTML('beforeend', html);
@@ -37,6 +40,7 @@
             } else {
                 el.innerHTML = html;
             }
+            __restoreFocus(id, focus);
             scripts.forEach(function (s) {
                 var ns = document.createElement('script');
                 if (s.src) {ns.src = s.src;} else {ns.textContent = s.textContent;}
@@ -46,6 +50,30 @@
         } catch (_) {}
     };
 
+    // Keeps typing going when a swap replaces the focused input
+    function __captureFocus(el) {
+        var a = document.activeElement;
+        if (!el || !a || !a.name || a === el || !el.contains(a)) return null;
+        if (a.__debounce) clearTimeout(a.__debounce);
+        return {
+            name: a.name, value: a.value, start: a.selectionStart, end: a.selectionEnd,
+            pending: a.__debounce ? a.__debounceMs : 0
+        };
+    }
+    function __restoreFocus(id, focus) {
+        if (!focus) return;
+        try {
+            var root = document.getElementById(id);
+            if (!root) return;
+            var input = root.querySelector('[name="' + focus.name.replace(/"/g, '\\"') + '"]');
+            if (!input || input.type === 'hidden') return;
+            if (input.value !== focus.value) input.value = focus.value;
+            input.focus();
+            if (focus.start != null && input.setSelectionRange) input.setSelectionRange(focus.start, focus.end);
+            if (focus.pending) window.__debounceSubmit(input, focus.pending);
+        } catch (_) {}
+    }
+
     // Toast Messaging
     window.__msg = function (message, cls) {
         var box = document.getElementById('__messages__');
@@ -68,6 +96,57 @@
         setTimeout(close, 5000);
     };
 
+    // Fetch and swap. A newer request that replaces the same target aborts the
+    // one still in flight, so a stale response never overwrites a newer one.
+    var __inflight = {};
+    function __fetchSwap(path, opts, swap, id, label) {
+        var key = (swap === 'inline' || swap === 'outline') && id ? id : null;
+        var ctrl = null;
+        if (key) {
+            if (__inflight[key]) {
+                try {__inflight[key].abort();} catch (_) {}
+            }
+            if (window.AbortController) {
+                ctrl = new AbortController();
+                opts.signal = ctrl.signal;
+                __inflight[key] = ctrl;
+            }
+        }
+        var done = function () {
+            if (ctrl && __inflight[key] === ctrl) delete __inflight[key];
+        };
+        return fetch(path, opts)
+            .then(function (r) {return r.text();})
+            .then(function (t) {
+                if (ctrl && ctrl.signal.aborted) return;
+                done();
+                __applySwap(id, swap, t);
+            })
+            .catch(function (err) {
+                done();
+                if (err && err.name === 'AbortError') return;
+                if (label) console.error(label + ' fetch error:', err);
+            });
+    }
+
+    // Submits the input's form once typing pauses for ms milliseconds
+    window.__debounceSubmit = function (el, ms) {
+        try {
+            var f = el && el.form;
+            if (!f) return;
+            if (el.__debounce) clearTimeout(el.__debounce);
+            el.__debounceMs = ms || 300;
+            el.__debounce = setTimeout(function () {
+                el.__debounce = null;
+                if (f.requestSubmit) {
+                    f.requestSubmit();
+                } else {
+                    f.dispatchEvent(new Event('submit', {cancelable: true, bubbles: true}));
+                }
+            }, el.__debounceMs);
+        } catch (_) {}
+    };
+
     // Submit handler - called directly from form onsubmit
     window.__submit = function (path, swap, id, e) {
         try {
@@ -95,10 +174,7 @@
                 headers: {'content-type': 'application/x-www-form-urlencoded;charset=UTF-8'},
                 body: pairs.join('&')
             };
-            fetch(path, opts)
-                .then(function (r) {return r.text();})
-                .then(function (t) {__applySwap(id, swap, t);})
-                .catch(function () {});
+            __fetchSwap(path, opts, swap, id, null);
             return false;
         } catch (err) {
             console.error('__submit error:', err);
@@ -140,10 +216,7 @@
                 opts.headers = {'content-type': 'application/x-www-form-urlencoded;charset=UTF-8'};
                 opts.body = pairs.join('&');
             }
-            fetch(path, opts)
-                .then(function (r) {return r.text();})
-                .then(function (t) {__applySwap(id, swap, t);})
-                .catch(function (err) {console.error('__post fetch error:', err);});
+            __fetchSwap(path, opts, swap, id, '__post');
             return false;
         } catch (err) {
             console.error('__post error:', err);
@@ -164,10 +237,7 @@
                 headers: {'content-type': 'application/x-www-form-urlencoded;charset=UTF-8'},
                 body: data || ''
             };
-            fetch(path, opts)
-                .then(function (r) {return r.text();})
-                .then(function (t) {__applySwap(id, swap, t);})
-                .catch(function (err) {console.error('__postData fetch error:', err);});
+            __fetchSwap(path, opts, swap, id, '__postData');
             return false;
         } catch (err) {
             console.error('__postData error:', err);
@@ -175,6 +245,122 @@
         }
     };
 
+    // Lazy placeholders - load once the element nears the viewport
+    var __lazyObserver = null;
+    function __lazyLoad(el) {
+        var path = el.getAttribute('data-lazy');
+        if (!path) return;
+        el.removeAttribute('data-lazy');
+        fetch(path, {method: 'POST'})
+            .then(function (r) {
+                if (!r.ok) {throw new Error('HTTP ' + r.status);}
+                return r.text();
+            })
+            .then(function (t) {__applySwap(el.id, el.getAttribute('data-lazy-swap') || 'outline', t);})
+            .catch(function (err) {console.error('__lazy fetch error:', err);});
+    }
+    window.__lazy = function (id, path, swap) {
+        try {
+            var el = document.getElementById(id);
+            if (!el) return;
+            el.setAttribute('data-lazy', path);
+            el.setAttribute('data-lazy-swap', swap || 'outline');
+            if (!('IntersectionObserver' in window)) {
+                __lazyLoad(el);
+                return;
+            }
+            if (!__lazyObserver) {
+                __lazyObserver = new IntersectionObserver(function (entries) {
+                    entries.forEach(function (entry) {
+                        if (!entry.isIntersecting) return;
+                        __lazyObserver.unobserve(entry.target);
+                        __lazyLoad(entry.target);
+                    });
+                }, {rootMargin: '300px 0px'});
+            }
+            __lazyObserver.observe(el);
+        } catch (err) {
+            console.error('__lazy error:', err);
+        }
+    };
+
+    // Virtual tables - keep only the visible window of rows between two spacer rows
+    window.__vtable = function (id, path, total, rowHeight, overscan, estimated, end) {
+        try {
+            var box = document.getElementById(id);
+            if (!box || box.__vtable) return;
+            var body = box.querySelector('tbody');
+            if (!body) return;
+            var top = body.firstElementChild;
+            var bottom = body.lastElementChild;
+            var S = box.__vtable = {start: 0, end: end, h: rowHeight, seq: 0, frame: 0};
+            function pad() {
+                top.style.height = (S.start * S.h) + 'px';
+                bottom.style.height = (Math.max(0, total - S.end) * S.h) + 'px';
+            }
+            function measure() {
+                var n = S.end - S.start;
+                if (!estimated || n <= 0) return;
+                var h = (bottom.getBoundingClientRect().top - top.getBoundingClientRect().bottom) / n;
+                if (h > 0 && Math.abs(h - S.h) > 0.5) {
+                    S.h = h;
+                    pad();
+                }
+            }
+            function update() {
+                S.frame = 0;
+                var first = Math.floor(box.scrollTop / S.h);
+                var last = Math.min(total, Math.ceil((box.scrollTop + box.clientHeight) / S.h));
+                if (first >= S.start && last <= S.end) return;
+                var from = Math.max(0, first - overscan);
+                var to = Math.min(total, last + overscan);
+                var seq = ++S.seq;
+                fetch(path + (path.indexOf('?') < 0 ? '?' : '&') + 'offset=' + from + '&limit=' + (to - from), {method: 'POST'})
+                    .then(function (r) {
+                        if (!r.ok) {throw new Error('HTTP ' + r.status);}
+                        return r.text();
+                    })
+                    .then(function (html) {
+                        if (seq !== S.seq) return;
+                        var tmp = document.createElement('tbody');
+                        tmp.innerHTML = html;
+                        while (top.nextElementSibling && top.nextElementSibling !== bottom) {
+                            body.removeChild(top.nextElementSibling);
+                        }
+                        var count = tmp.children.length;
+                        var frag = document.createDocumentFragment();
+                        while (tmp.firstChild) frag.appendChild(tmp.firstChild);
+                        body.insertBefore(frag, bottom);
+                        S.start = from;
+                        S.end = from + count;
+                        pad();
+                        measure();
+                    })
+                    .catch(function (err) {console.error('__vtable fetch error:', err);});
+            }
+            function schedule() {
+                if (!S.frame) S.frame = requestAnimationFrame(update);
+            }
+            box.addEventListener('scroll', schedule, {passive: true});
+            // Observe the box itself, so nothing outlives it once it is swapped out.
+            if (typeof ResizeObserver === 'function') {
+                new ResizeObserver(schedule).observe(box);
+            } else {
+                var onResize = function () {
+                    if (!box.isConnected) {
+                        window.removeEventListener('resize', onResize);
+                        return;
+                    }
+                    schedule();
+                };
+                window.addEventListener('resize', onResize);
+            }
+            measure();
+        } catch (err) {
+            console.error('__vtable error:', err);
+        }
+    };
+
     // Loading overlay
     var __loader = (function () {
         var S = {count: 0, t: 0, el: null};
@@ -0,0 +1,95 @@
+package jsui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that {@link Data#Async} runs blocking loaders off the caller's
+ * thread and that cancelling a load interrupts it.
+ *
+ * Run tests: mvn test -Dtest=AsyncLoaderTest
+ */
+class AsyncLoaderTest {
+
+    private static Data.LoadResult<String> result(String value) {
+        Data.LoadResult<String> r = new Data.LoadResult<>();
+        r.total = 1;
+        r.filtered = 1;
+        r.data.add(value);
+        return r;
+    }
+
+    @Test
+    void loadsOnAnotherThread() throws Exception {
+        Thread caller = Thread.currentThread();
+        Data.AsyncLoader<String> async = Data.Async(q -> {
+            assertNotSame(caller, Thread.currentThread());
+            return result(q.Search);
+        });
+        Data.TQuery q = new Data.TQuery();
+        q.Search = "abc";
+        assertEquals(List.of("abc"), async.loadAsync(q).get(5, TimeUnit.SECONDS).data);
+    }
+
+    @Test
+    void cancelInterruptsTheRunningLoad() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Data.AsyncLoader<String> async = Data.Async(q -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+                throw ex;
+            }
+            return result("late");
+        });
+
+        CompletableFuture<Data.LoadResult<String>> stale = async.loadAsync(new Data.TQuery());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(stale.cancel(true));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "Superseded load is interrupted");
+        assertThrows(CancellationException.class, stale::get);
+    }
+
+    @Test
+    void cancelHooksRunOnceAndLateHooksRunImmediately() {
+        CancellableFuture<String> future = new CancellableFuture<>();
+        int[] runs = new int[1];
+        future.onCancel(() -> runs[0]++);
+        future.cancel(true);
+        future.cancel(true);
+        assertEquals(1, runs[0]);
+        future.onCancel(() -> runs[0]++);
+        assertEquals(2, runs[0]);
+    }
+
+    @Test
+    void syncLoaderFailingWithExecutionExceptionRendersEmpty() throws Exception {
+        Data.TQuery init = new Data.TQuery();
+        init.Limit = 5;
+        Data.CollateModel<String> model = Data.Collate(init, q -> {
+            throw new ExecutionException(new IllegalStateException("backend down"));
+        });
+        model.Row((row, index) -> "<p>" + row + "</p>");
+
+        String html = model.Render(new Context(new App("en"), "session"));
+        assertFalse(html.contains("<p>"), html);
+        assertTrue(html.contains("No records found"), html);
+    }
+
+    @Test
+    void asyncLoadersPassThrough() {
+        Data.SqlLoader<String> sql = Data.Sql(null, "t", rs -> rs.getString(1));
+        assertSame(sql, Data.Async(sql));
+    }
+}
@@ -0,0 +1,205 @@
+package jsui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks keying, expiry, invalidation and request coalescing of
+ * {@link Data.CachedLoader}.
+ *
+ * Run tests: mvn test -Dtest=CachedLoaderTest
+ */
+class CachedLoaderTest {
+
+    private static Data.TQuery query(String order, String search, int offset) {
+        Data.TQuery q = new Data.TQuery();
+        q.Limit = 10;
+        q.Offset = offset;
+        q.Order = order;
+        q.Search = search;
+        return q;
+    }
+
+    private static Data.LoadResult<String> result(String value) {
+        Data.LoadResult<String> r = new Data.LoadResult<>();
+        r.total = 1;
+        r.filtered = 1;
+        r.data = new ArrayList<>(List.of(value));
+        return r;
+    }
+
+    @Test
+    void servesRepeatedAndEquivalentQueriesFromCache() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Data.CachedLoader<String> cache = Data.Cached(q -> result("v" + calls.incrementAndGet()), 60_000, 10);
+
+        Data.TQuery first = query("name asc", "ann", 0);
+        Data.TQuery same = query("  NAME   asc ", " ann ", 0);
+        Data.TField inactive = new Data.TField();
+        inactive.DB = "city";
+        same.Filter.add(inactive);
+
+        assertEquals("v1", cache.load(first).data.get(0));
+        assertEquals("v1", cache.load(same).data.get(0));
+        assertEquals("v2", cache.load(query("name asc", "ann", 10)).data.get(0), "Offset is part of the key");
+
+        Data.TQuery filtered = query("name asc", "ann", 0);
+        Data.TField active = new Data.TField();
+        active.DB = "city";
+        active.Value = "Vienna";
+        filtered.Filter.add(active);
+        assertEquals("v3", cache.load(filtered).data.get(0), "Active filters are part of the key");
+
+        assertEquals(3, calls.get());
+        assertEquals(1, cache.hits());
+        assertEquals(3, cache.misses());
+        assertThrows(UnsupportedOperationException.class, () -> cache.load(first).data.add("x"));
+    }
+
+    @Test
+    void expiresAndEvictsLeastRecentlyUsed() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Data.CachedLoader<String> cache = Data.Cached(q -> result(q.Search + calls.incrementAndGet()), 60_000, 2);
+
+        cache.load(query("", "a", 0));
+        cache.load(query("", "b", 0));
+        cache.load(query("", "a", 0));
+        cache.load(query("", "c", 0));
+        assertEquals(2, cache.size());
+        assertEquals(3, calls.get());
+        cache.load(query("", "b", 0));
+        assertEquals(4, calls.get(), "Least recently used entry was evicted");
+
+        Data.CachedLoader<String> shortLived = Data.Cached(q -> result("x" + calls.incrementAndGet()), 50, 10);
+        shortLived.load(query("", "a", 0));
+        Thread.sleep(100);
+        shortLived.load(query("", "a", 0));
+        assertEquals(2, shortLived.misses());
+    }
+
+    @Test
+    void invalidatesMatchingQueries() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Data.CachedLoader<String> cache = Data.Cached(q -> result(q.Search + calls.incrementAndGet()), 60_000, 10);
+
+        cache.load(query("", "a", 0));
+        cache.load(query("", "b", 0));
+        cache.invalidate(q -> "a".equals(q.Search));
+        cache.load(query("", "a", 0));
+        cache.load(query("", "b", 0));
+        assertEquals(3, calls.get());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void coalescesConcurrentIdenticalLoads() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Data.CachedLoader<String> cache = Data.Cached(q -> {
+            calls.incrementAndGet();
+            release.await();
+            return result("shared");
+        }, 60_000, 10);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Data.LoadResult<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(pool.submit(() -> cache.load(query("", "same", 0))));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (cache.coalesced() < 7 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            for (Future<Data.LoadResult<String>> f : futures) {
+                assertEquals("shared", f.get(5, TimeUnit.SECONDS).data.get(0));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+        assertEquals(7, cache.coalesced());
+        assertEquals(7.0 / 8.0, cache.hitRate(), 1e-9);
+    }
+
+    @Test
+    void waitersRetryWhenTheOwnerIsInterrupted() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch ownerStarted = new CountDownLatch(1);
+        Data.CachedLoader<String> cache = Data.Cached(q -> {
+            if (calls.incrementAndGet() == 1) {
+                ownerStarted.countDown();
+                Thread.sleep(10_000);
+            }
+            return result("retried");
+        }, 60_000, 10);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Data.LoadResult<String>> owner = pool.submit(() -> cache.load(query("", "same", 0)));
+            assertTrue(ownerStarted.await(5, TimeUnit.SECONDS));
+            Future<Data.LoadResult<String>> waiter = pool.submit(() -> cache.load(query("", "same", 0)));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (cache.coalesced() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, cache.coalesced());
+
+            owner.cancel(true);
+            assertEquals("retried", waiter.get(5, TimeUnit.SECONDS).data.get(0), "Waiter loads again instead of failing");
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(2, calls.get());
+        assertEquals(2, cache.misses());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void waitersRetryWhenTheOwnerIsCancelled() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch joined = new CountDownLatch(1);
+        Data.CachedLoader<String> cache = Data.Cached(q -> {
+            if (calls.incrementAndGet() == 1) {
+                joined.await();
+                throw new CancellationException("superseded");
+            }
+            return result("retried");
+        }, 60_000, 10);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Data.LoadResult<String>> owner = pool.submit(() -> cache.load(query("", "same", 0)));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (calls.get() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Future<Data.LoadResult<String>> waiter = pool.submit(() -> cache.load(query("", "same", 0)));
+            while (cache.coalesced() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            joined.countDown();
+
+            assertThrows(ExecutionException.class, () -> owner.get(5, TimeUnit.SECONDS));
+            assertEquals("retried", waiter.get(5, TimeUnit.SECONDS).data.get(0));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(2, calls.get());
+    }
+}
@@ -0,0 +1,179 @@
+package jsui;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives a {@link Data.CollateModel} defined once through its actions, the way
+ * the browser does, without a server.
+ *
+ * Run tests: mvn test -Dtest=CollateTest
+ */
+class CollateTest {
+
+    static final class Row {
+        final int id;
+        final String name;
+        final String role;
+
+        Row(int id, String name, String role) {
+            this.id = id;
+            this.name = name;
+            this.role = role;
+        }
+    }
+
+    private static final Pattern VIEW = Pattern.compile("value=\"([A-Za-z0-9]+)\" name=\"CollateView\"");
+
+    private static Data.InMemoryLoader<Row> loader() {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 1; i <= 25; i++) {
+            rows.add(new Row(i, "Item " + i, i % 5 == 0 ? "admin" : "user"));
+        }
+        return Data.InMemory(rows)
+                .Search(r -> r.name)
+                .Sort("name", Comparator.comparing((Row r) -> r.name, String.CASE_INSENSITIVE_ORDER))
+                .Filter("role", r -> r.role);
+    }
+
+    private static Data.CollateModel<Row> model() {
+        return model(loader());
+    }
+
+    private static Data.CollateModel<Row> model(Data.Loader<Row> loader) {
+        Data.TQuery init = new Data.TQuery();
+        init.Limit = 5;
+        init.Order = "name asc";
+        Data.CollateModel<Row> model = Data.Collate(init, loader);
+        model.Row((row, index) -> "<p>" + index + ":" + row.name + "</p>");
+        return model;
+    }
+
+    private static List<Data.TField> roleFilter() {
+        Data.TField role = new Data.TField();
+        role.DB = "role";
+        role.Text = "Role";
+        role.As = Data.SELECT;
+        role.Options = List.of(new ui.AOption("", "All"), new ui.AOption("admin", "Admin"), new ui.AOption("user", "User"));
+        return List.of(role);
+    }
+
+    private static String viewId(String html) {
+        Matcher m = VIEW.matcher(html);
+        assertTrue(m.find(), "Rendered collate posts its view id back");
+        return m.group(1);
+    }
+
+    private static Context post(App app, String path, String form) {
+        return new Context(app, "session", "POST", path,
+                Map.of("content-type", "application/x-www-form-urlencoded"), form.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void staticModelServesEveryRenderThroughStableRoutes() throws Exception {
+        App app = new App("en");
+        Data.CollateModel<Row> model = model();
+        model.setRoutes(app, "people");
+        for (String action : new String[] { "search", "sort", "reset", "more" }) {
+            assertNotNull(app.routeForPath("/act/people/" + action), "Registered before the first render: " + action);
+        }
+
+        String first = model.Render(new Context(app, "session"));
+        String second = model.Render(new Context(app, "session"));
+        String id = viewId(first);
+        assertNotEquals(id, viewId(second), "Every render gets its own element ids");
+        assertTrue(first.contains("/act/people/search") && second.contains("/act/people/search"));
+        assertFalse(first.contains("/call/") || second.contains("/call/"), "Renders add no generated routes");
+
+        Context search = post(app, "/act/people/search", "CollateView=" + id + "&Search=item+1&Limit=5");
+        String html = app.invoke("/act/people/search", search);
+        assertTrue(html.contains("id=\"" + id + "\""), "Search replaces the posting render's container");
+        assertTrue(html.contains("id=\"" + id + "-rows\""));
+        assertTrue(html.contains("<p>0:Item 1</p>") && html.contains("<p>4:Item 13</p>"));
+        assertFalse(html.contains("Item 2<"), "Search applied");
+
+        Context more = post(app, "/act/people/more", "CollateView=" + id + "&Search=item+1&Limit=5&Offset=5");
+        String rows = app.invoke("/act/people/more", more);
+        assertTrue(rows.contains("<p>5:Item 14</p>"), "Load more continues the same query");
+        assertTrue(String.join("", more.append).contains(id + "-pager"), "The pager of the same render is patched");
+    }
+
+    @Test
+    void facetsAreOptInAndSortingReusesThem() throws Exception {
+        App app = new App("en");
+        Data.InMemoryLoader<Row> rows = loader();
+        List<List<String>> requested = new ArrayList<>();
+        Data.CollateModel<Row> model = model(query -> {
+            requested.add(new ArrayList<>(query.Facets));
+            return rows.load(query);
+        });
+        model.setFilter(roleFilter());
+        model.setRoutes(app, "people");
+
+        String plain = model.Render(new Context(app, "session"));
+        assertEquals(List.of(), requested.get(0), "No counts unless asked for");
+        assertFalse(plain.contains("Admin ("));
+
+        model.setFacets(roleFilter());
+        String id = viewId(model.Render(new Context(app, "session")));
+        assertEquals(List.of("role"), requested.get(1));
+
+        String searched = app.invoke("/act/people/search",
+                post(app, "/act/people/search", "CollateView=" + id + "&Search=item+1"));
+        assertEquals(List.of("role"), requested.get(2));
+        assertTrue(searched.contains("Admin (2)") && searched.contains("User (9)"), "Counts of the search");
+
+        String sorted = app.invoke("/act/people/sort",
+                post(app, "/act/people/sort", "CollateView=" + id + "&Search=item+1&Order=name+desc"));
+        assertEquals(List.of(), requested.get(3), "Sorting does not count again");
+        assertTrue(sorted.contains("Admin (2)") && sorted.contains("User (9)"), "Sorted view keeps the counts");
+        assertTrue(sorted.contains("<p>0:Item 19</p>"));
+    }
+
+    @Test
+    void loadMoreAppendsTheNextSliceAndPatchesThePager() throws Exception {
+        App app = new App("en");
+        Data.CollateModel<Row> model = model();
+        model.setRoutes(app, "people");
+        String html = model.Render(new Context(app, "session"));
+        String id = viewId(html);
+        assertTrue(html.contains("Showing 5 / 25"));
+        assertTrue(html.contains("<p>4:Item 13</p>") && !html.contains("<p>5:"));
+        Matcher more = Pattern.compile("<form[^>]*onsubmit=\"([^\"]*/act/people/more[^\"]*)\"").matcher(html);
+        assertTrue(more.find(), "Load more posts to the stable route");
+        assertTrue(more.group(1).contains("append") && more.group(1).contains(id + "-rows"),
+                "Load more appends to the rows of the same render: " + more.group(1));
+
+        // Without a WebSocket the pager patch falls back to an inline script after the rows.
+        Context inline = post(app, "/act/people/more", "CollateView=" + id + "&Order=name+asc&Limit=5&Offset=5");
+        String rows = app.invoke("/act/people/more", inline);
+        assertTrue(rows.contains("<p>5:Item 14</p>") && rows.contains("<p>9:Item 18</p>"), "Indexes continue: " + rows);
+        assertFalse(rows.contains("<p>4:") || rows.contains("<p>10:"), "Only the next slice is returned");
+        assertFalse(rows.contains(id + "-rows"), "Rows are appended, not wrapped in a new container");
+        String script = String.join("", inline.append);
+        assertTrue(script.contains(id + "-pager") && script.contains("Showing 10 / 25"), script);
+
+        List<String> patches = new ArrayList<>();
+        Context socket = new Context(app, "session", "POST", "/act/people/more",
+                Map.of("content-type", "application/x-www-form-urlencoded"),
+                ("CollateView=" + id + "&Order=name+asc&Limit=5&Offset=20").getBytes(StandardCharsets.UTF_8),
+                Map.of(), "", (sessionId, message) -> patches.add(message));
+        rows = app.invoke("/act/people/more", socket);
+        assertTrue(rows.contains("<p>20:Item 5</p>") && rows.contains("<p>24:Item 9</p>"), rows);
+        assertTrue(socket.append.isEmpty(), "Pager goes over the WebSocket when connected");
+        assertEquals(1, patches.size());
+        assertTrue(patches.get(0).contains("\"id\":\"" + id + "-pager\"") && patches.get(0).contains("\"swap\":\"inline\""),
+                patches.get(0));
+        assertTrue(patches.get(0).contains("Showing 25 / 25") && patches.get(0).contains("disabled"),
+                "Last slice disables load more: " + patches.get(0));
+    }
+}
@@ -0,0 +1,186 @@
+package jsui;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fetches one-time download URLs from the real server and checks who may use
+ * them, when they are released and how the body is framed.
+ *
+ * Run tests: mvn test -Dtest=DownloadTest
+ */
+class DownloadTest {
+
+    private static final int PORT = 1433;
+    private static App app;
+    private static Server server;
+
+    @BeforeAll
+    static void startServer() throws IOException, InterruptedException {
+        app = new App("en");
+        server = Server.builder(app).httpPort(PORT).start();
+        assertNotNull(server, "Server should be initialized");
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /** Raw response split into its status line, header block and body bytes. */
+    private record Response(String status, String headers, byte[] body) {
+        /** Value of header {@code name}, or null when it is missing. */
+        String header(String name) {
+            for (String line : headers.split("\r\n")) {
+                int colon = line.indexOf(':');
+                if (colon > 0 && line.substring(0, colon).equalsIgnoreCase(name)) {
+                    return line.substring(colon + 1).trim();
+                }
+            }
+            return null;
+        }
+
+        String text() {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Response get(String path, String session) throws IOException {
+        try (Socket socket = new Socket("localhost", PORT)) {
+            socket.setSoTimeout(10_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET " + path + " HTTP/1.1\r\nHost: localhost\r\n"
+                    + (session != null ? "Cookie: jsui_session=" + session + "\r\n" : "")
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            byte[] all = socket.getInputStream().readAllBytes();
+            // One char per byte, so the end of the headers is also the byte offset of the body
+            String raw = new String(all, StandardCharsets.ISO_8859_1);
+            int end = raw.indexOf("\r\n\r\n");
+            assertTrue(end > 0, raw);
+            String head = raw.substring(0, end);
+            byte[] body = new byte[all.length - end - 4];
+            System.arraycopy(all, end + 4, body, 0, body.length);
+            return new Response(head.substring(0, head.indexOf("\r\n")), head, body);
+        }
+    }
+
+    private static String register(String session, String name, byte[] content, long length, AtomicInteger cleanups) {
+        return app.registerDownload(session, name, "text/plain; charset=UTF-8", length,
+                () -> new ByteArrayInputStream(content), cleanups::incrementAndGet);
+    }
+
+    /** Decodes a chunked body, failing on malformed framing. */
+    private static byte[] dechunk(byte[] body) throws IOException {
+        InputStream in = new ByteArrayInputStream(body);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while (true) {
+            StringBuilder size = new StringBuilder();
+            int c;
+            while ((c = in.read()) != '\r') {
+                assertTrue(c >= 0, "Chunk size line ends");
+                size.append((char) c);
+            }
+            assertEquals('\n', in.read());
+            int n = Integer.parseInt(size.toString(), 16);
+            byte[] chunk = in.readNBytes(n);
+            assertEquals(n, chunk.length, "Chunk is complete");
+            assertEquals('\r', in.read());
+            assertEquals('\n', in.read());
+            if (n == 0) {
+                assertEquals(-1, in.read(), "Nothing follows the last chunk");
+                return out.toByteArray();
+            }
+            out.write(chunk);
+        }
+    }
+
+    @Test
+    void tokenServesOnceWithItsLength() throws IOException {
+        AtomicInteger cleanups = new AtomicInteger();
+        String path = register("owner", "report.txt", "hello".getBytes(StandardCharsets.UTF_8), 5, cleanups);
+
+        Response first = get(path, "owner");
+        assertEquals("HTTP/1.1 200 OK", first.status());
+        assertEquals("5", first.header("Content-Length"));
+        assertNull(first.header("Transfer-Encoding"));
+        assertEquals("no-store", first.header("Cache-Control"));
+        assertEquals("hello", first.text());
+        assertEquals(1, cleanups.get(), "Released once sent");
+
+        Response second = get(path, "owner");
+        assertTrue(second.status().startsWith("HTTP/1.1 404"), second.status());
+        assertEquals(1, cleanups.get());
+    }
+
+    @Test
+    void otherSessionsCannotUseTheToken() throws IOException {
+        AtomicInteger cleanups = new AtomicInteger();
+        String path = register("owner", "report.txt", "secret".getBytes(StandardCharsets.UTF_8), 6, cleanups);
+
+        assertTrue(get(path, "intruder").status().startsWith("HTTP/1.1 404"));
+        assertTrue(get(path, null).status().startsWith("HTTP/1.1 404"), "No cookie, no download");
+        assertEquals(0, cleanups.get(), "A refused fetch does not release the download");
+
+        Response owner = get(path, "owner");
+        assertEquals("HTTP/1.1 200 OK", owner.status());
+        assertEquals("secret", owner.text());
+        assertEquals(1, cleanups.get());
+    }
+
+    @Test
+    void expiredTokenIsRefusedAndReleased() throws Exception {
+        AtomicInteger cleanups = new AtomicInteger();
+        app.downloadTtl(1000);
+        String path;
+        try {
+            path = register("owner", "report.txt", "late".getBytes(StandardCharsets.UTF_8), 4, cleanups);
+        } finally {
+            app.downloadTtl(5 * 60 * 1000L);
+        }
+        Thread.sleep(1200);
+
+        assertTrue(get(path, "owner").status().startsWith("HTTP/1.1 404"));
+        assertEquals(1, cleanups.get(), "Expired download is released");
+    }
+
+    @Test
+    void unknownLengthIsChunked() throws IOException {
+        byte[] content = new byte[70_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        String path = register("owner", "data.txt", content, -1, new AtomicInteger());
+
+        Response response = get(path, "owner");
+        assertEquals("HTTP/1.1 200 OK", response.status());
+        assertEquals("chunked", response.header("Transfer-Encoding"));
+        assertNull(response.header("Content-Length"));
+        assertArrayEquals(content, dechunk(response.body()));
+    }
+
+    @Test
+    void nonAsciiNamesUseRfc6266() throws IOException {
+        String path = register("owner", "Přehled \"€\".csv", new byte[0], 0, new AtomicInteger());
+
+        Response response = get(path, "owner");
+        assertEquals("attachment; filename=\"P_ehled ___.csv\"; filename*=UTF-8''P%C5%99ehled%20%22%E2%82%AC%22.csv",
+                response.header("Content-Disposition"));
+        assertEquals("0", response.header("Content-Length"));
+        assertEquals(0, response.body().length);
+    }
+}
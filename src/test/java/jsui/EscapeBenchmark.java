@@ -0,0 +1,85 @@
+package jsui;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of {@link Escape} with the regex implementations it replaced.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main
+ * -Dexec.args=EscapeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EscapeBenchmark {
+
+    @Param({ "post", "patch", "classes", "table" })
+    public String fragment;
+
+    private String input;
+
+    @Setup
+    public void setup() {
+        input = switch (fragment) {
+            case "post" -> RegexEscape.POST_SCRIPT;
+            case "patch" -> RegexEscape.PATCH_SCRIPT;
+            case "classes" -> RegexEscape.CLASSES;
+            default -> RegexEscape.TABLE;
+        };
+    }
+
+    @Benchmark
+    public String trimRegex() {
+        return RegexEscape.trim(input);
+    }
+
+    @Benchmark
+    public String trimScanner() {
+        return Escape.trim(input);
+    }
+
+    @Benchmark
+    public String normalizeRegex() {
+        return RegexEscape.normalize(input);
+    }
+
+    @Benchmark
+    public String normalizeScanner() {
+        return Escape.normalize(input);
+    }
+
+    @Benchmark
+    public String jsonBaseline() {
+        return RegexEscape.json(input);
+    }
+
+    @Benchmark
+    public String jsonScanner() {
+        return Escape.json(input);
+    }
+
+    @Benchmark
+    public String attrBaseline() {
+        return RegexEscape.attr(input);
+    }
+
+    @Benchmark
+    public String attrScanner() {
+        return Escape.attr(input);
+    }
+}
@@ -0,0 +1,76 @@
+package jsui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks {@link Escape} against the regex implementations it replaced.
+ *
+ * Run tests: mvn test -Dtest=EscapeTest
+ */
+class EscapeTest {
+
+    private static final String[] FRAGMENTS = {
+            RegexEscape.POST_SCRIPT, RegexEscape.PATCH_SCRIPT, RegexEscape.CLASSES, RegexEscape.TABLE,
+            "", " ", "a    b", "  lead and trail \t\n", "<a href=\"http://example.com\">x</a>",
+            "line\r\n// comment\r\nnext", "/* open", "<!-- open", "x = 'It''s' & \"quoted\" <b>",
+            "\u0001\u001f\b\f", " // after separator ", "žluťoučký kůň 😀",
+            "a<!-- x --/**/>b", "a<!-- x -/**/->b", "a<!-/**/- x -->b", "<!-- /* --> */ x -->y", "<!--/**/->"
+    };
+
+    private static final String[] TOKENS = {
+            " ", "  ", "\t", "\n", "\r", "\r\n", "a", "b", "/*", "*/", "//", "<!--", "-->", "\"", "\\", "/", "*",
+            "x=1;", "\u000b", "\f", "http://x", "'", "&", "<", ">",
+            "-", "--", "!", "/**/", "--/**/>", "<!/**/--"
+    };
+
+    @Test
+    void matchesRegexImplementationOnFragments() {
+        for (String s : FRAGMENTS) {
+            assertEquivalent(s);
+        }
+    }
+
+    @Test
+    void matchesRegexImplementationOnRandomInput() {
+        Random random = new Random(42);
+        for (int k = 0; k < 100_000; k++) {
+            StringBuilder sb = new StringBuilder();
+            int parts = random.nextInt(16);
+            for (int j = 0; j < parts; j++) {
+                sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+            }
+            assertEquivalent(sb.toString());
+        }
+    }
+
+    @Test
+    void returnsInputWhenNothingChanges() {
+        String clean = "flex items-center gap-2";
+        assertSame(clean, Escape.trim(clean));
+        assertSame(clean, Escape.normalize(clean));
+        assertSame(clean, Escape.json(clean));
+        assertSame(clean, Escape.attr(clean));
+        assertSame(clean, Escape.html(clean));
+    }
+
+    @Test
+    void appendsIntoCallerBuffer() {
+        StringBuilder sb = new StringBuilder("<p title=\"");
+        Escape.attr(sb, "a\"b");
+        sb.append("\">");
+        Escape.trim(sb, "  x    y  ");
+        assertEquals("<p title=\"a&quot;b\">x y", sb.toString());
+    }
+
+    private static void assertEquivalent(String s) {
+        assertEquals(RegexEscape.trim(s), Escape.trim(s), () -> "trim: " + s);
+        assertEquals(RegexEscape.normalize(s), Escape.normalize(s), () -> "normalize: " + s);
+        assertEquals(RegexEscape.json(s), Escape.json(s), () -> "json: " + s);
+        assertEquals(RegexEscape.attr(s), Escape.attr(s), () -> "attr: " + s);
+        assertEquals(RegexEscape.html(s), Escape.html(s), () -> "html: " + s);
+    }
+}
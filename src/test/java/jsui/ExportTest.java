@@ -0,0 +1,155 @@
+package jsui;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads the CSV and NDJSON downloads of a {@link Data.CollateModel} the way
+ * the server streams them.
+ *
+ * Run tests: mvn test -Dtest=ExportTest
+ */
+class ExportTest {
+
+    public static final class Row {
+        public int id;
+        public String name;
+        public double score;
+
+        Row(int id, String name, double score) {
+            this.id = id;
+            this.name = name;
+            this.score = score;
+        }
+    }
+
+    private static final Pattern HREF = Pattern.compile("a\\.href='([^']+)'");
+
+    private static Data.TField column(String field, String text) {
+        Data.TField f = new Data.TField();
+        f.Field = field;
+        f.Text = text;
+        return f;
+    }
+
+    private static Data.CollateModel<Row> model(App app, Data.Loader<Row> loader) {
+        Data.TQuery init = new Data.TQuery();
+        init.Limit = 10;
+        Data.CollateModel<Row> model = Data.Collate(init, loader);
+        model.setExcel(List.of(column("id", "ID"), column("name", "Name"), column("score", "Score")));
+        model.setRoutes(app, "people");
+        return model;
+    }
+
+    /** Runs the export action and reads the download it registered. */
+    private static String export(App app, String format) throws Exception {
+        Context ctx = new Context(app, "session", "POST", "/act/people/" + format,
+                Map.of("content-type", "application/x-www-form-urlencoded"), new byte[0]);
+        app.invoke("/act/people/" + format, ctx);
+        Matcher m = HREF.matcher(String.join("", ctx.append));
+        assertTrue(m.find(), "Export starts a download: " + ctx.append);
+        App.Download download = app.takeDownload("session", m.group(1).substring(App.DOWNLOAD_PATH.length()));
+        assertNotNull(download);
+        try (InputStream in = download.source.open()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } finally {
+            download.discard();
+        }
+    }
+
+    @Test
+    void csvFollowsTheLoaderCursorAcrossPages() throws Exception {
+        int count = Data.EXPORT_PAGE * 2 + 500;
+        List<Data.TQuery> queries = new ArrayList<>();
+        Data.Loader<Row> loader = query -> {
+            queries.add(query);
+            int from = query.hasCursor() ? Integer.parseInt(query.Cursor.get(0)) : query.Offset;
+            Data.LoadResult<Row> page = new Data.LoadResult<>();
+            page.total = count;
+            page.filtered = count;
+            for (int id = from + 1; id <= Math.min(count, from + query.Limit); id++) {
+                page.data.add(new Row(id, "Row " + id, id / 2.0));
+            }
+            if (!page.data.isEmpty()) {
+                page.cursor = List.of(Integer.toString(page.data.get(page.data.size() - 1).id));
+            }
+            return page;
+        };
+        App app = new App("en");
+        model(app, loader);
+
+        String csv = export(app, "csv");
+        assertEquals(3, queries.size(), "One load per page");
+        assertFalse(queries.get(0).hasCursor());
+        assertEquals(List.of(Integer.toString(Data.EXPORT_PAGE)), queries.get(1).Cursor);
+        assertEquals(List.of(Integer.toString(2 * Data.EXPORT_PAGE)), queries.get(2).Cursor);
+        for (Data.TQuery q : queries) {
+            assertEquals(Data.EXPORT_PAGE, q.Limit);
+        }
+
+        assertTrue(csv.startsWith("\uFEFFID,Name,Score\r\n1,Row 1,0.5\r\n"), csv.substring(0, 40));
+        String[] lines = csv.split("\r\n");
+        assertEquals(count + 1, lines.length);
+        assertEquals("1001,Row 1001,500.5", lines[1001], "No row is lost or repeated at a page boundary");
+        assertEquals(count + ",Row " + count + "," + count / 2.0, lines[count]);
+    }
+
+    @Test
+    void csvQuotesAndNeutralizesFormulas() throws Exception {
+        App app = new App("en");
+        model(app, Data.InMemory(List.of(
+                new Row(1, "a,b", -1.5),
+                new Row(2, "say \"hi\"", 0),
+                new Row(3, "two\nlines", 0),
+                new Row(4, "=HYPERLINK(\"x\")", 0),
+                new Row(5, "+1", 0),
+                new Row(6, "-2", 0),
+                new Row(7, "@SUM(A1)", 0),
+                new Row(8, "\tx", 0),
+                new Row(9, "\rx", 0),
+                new Row(10, "a=b", 0))));
+
+        String[] lines = export(app, "csv").split("\r\n(?=\\d+,)");
+        assertEquals("1,\"a,b\",-1.5", lines[1], "Negative numbers stay numbers");
+        assertEquals("2,\"say \"\"hi\"\"\",0.0", lines[2]);
+        assertEquals("3,\"two\nlines\",0.0", lines[3]);
+        assertEquals("4,\"'=HYPERLINK(\"\"x\"\")\",0.0", lines[4]);
+        assertEquals("5,'+1,0.0", lines[5]);
+        assertEquals("6,'-2,0.0", lines[6]);
+        assertEquals("7,'@SUM(A1),0.0", lines[7]);
+        assertEquals("8,'\tx,0.0", lines[8]);
+        assertEquals("9,\"'\rx\",0.0", lines[9]);
+        assertEquals("10,a=b,0.0\r\n", lines[10]);
+    }
+
+    @Test
+    void ndjsonEscapesTextAndNullsNonFiniteNumbers() throws Exception {
+        App app = new App("en");
+        model(app, Data.InMemory(List.of(
+                new Row(1, "say \"hi\"\n", Double.NaN),
+                new Row(2, "=1+1", Double.POSITIVE_INFINITY),
+                new Row(3, "plain", 2.5))));
+
+        assertEquals("{\"id\":1,\"name\":\"say \\\"hi\\\"\\n\",\"score\":null}\n"
+                + "{\"id\":2,\"name\":\"=1+1\",\"score\":null}\n"
+                + "{\"id\":3,\"name\":\"plain\",\"score\":2.5}\n", export(app, "ndjson"));
+    }
+
+    @Test
+    void emptyResultHasOnlyTheHeader() throws Exception {
+        App app = new App("en");
+        model(app, Data.InMemory(new ArrayList<Row>()));
+
+        assertEquals("\uFEFFID,Name,Score\r\n", export(app, "csv"));
+        assertEquals("", export(app, "ndjson"));
+    }
+}
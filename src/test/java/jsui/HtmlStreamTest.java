@@ -0,0 +1,78 @@
+package jsui;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that {@link App#HTML(Context, String, String, Context.Callable...)}
+ * streams the same document it builds as a string, reusing the encoded head.
+ *
+ * Run tests: mvn test -Dtest=HtmlStreamTest
+ */
+class HtmlStreamTest {
+
+    /** Records every write as the list of byte arrays it was given. */
+    private static final class Recorder implements Context.ResponseStream {
+        final List<byte[][]> writes = new ArrayList<>();
+
+        @Override
+        public void write(String html) {
+            write(html.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void write(byte[]... utf8) {
+            writes.add(utf8);
+        }
+
+        @Override
+        public boolean committed() {
+            return !writes.isEmpty();
+        }
+
+        String text() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (byte[][] parts : writes) {
+                for (byte[] part : parts) {
+                    out.writeBytes(part);
+                }
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Recorder stream(App app, String title) throws Exception {
+        Context ctx = new Context(app, "session");
+        Recorder recorder = new Recorder();
+        ctx.stream = recorder;
+        assertEquals("", app.HTML(ctx, title, "bg-white", c -> "<p>žluťoučký</p>"));
+        return recorder;
+    }
+
+    @Test
+    void streamsTheSameDocumentWithTheHeadEncodedOnce() throws Exception {
+        App app = new App("en");
+        String built = app.HTML(new Context(app, "session"), "Přehled", "bg-white", c -> "<p>žluťoučký</p>");
+
+        Recorder first = stream(app, "Přehled");
+        assertEquals(built, first.text());
+        assertEquals(3, first.writes.size(), "Document start, section, document end");
+        assertEquals(2, first.writes.get(0).length, "Title part and cached head part in one write");
+
+        Recorder second = stream(app, "Other");
+        assertSame(first.writes.get(0)[1], second.writes.get(0)[1], "Head bytes are reused");
+        assertSame(first.writes.get(2)[0], second.writes.get(2)[0], "Document end bytes are reused");
+        assertTrue(second.text().contains("<title>Other</title>"));
+
+        app.HTMLHead.add("<meta name=\"x\" content=\"y\">");
+        Recorder changed = stream(app, "Other");
+        assertNotSame(first.writes.get(0)[1], changed.writes.get(0)[1], "Changing the head encodes it again");
+        assertTrue(changed.text().contains("<meta name=\"x\" content=\"y\">"));
+    }
+}
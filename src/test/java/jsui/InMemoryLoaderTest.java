@@ -0,0 +1,244 @@
+package jsui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks {@link Data.InMemoryLoader} against a plain scan-filter-sort of the
+ * same rows, and the single-pass {@link Data#NormalizeForSearch}.
+ *
+ * Run tests: mvn test -Dtest=InMemoryLoaderTest
+ */
+class InMemoryLoaderTest {
+
+    static final class Item {
+        final int id;
+        final String name;
+        final String role;
+        final boolean active;
+        final Date created;
+
+        Item(int id, String name, String role, boolean active, Date created) {
+            this.id = id;
+            this.name = name;
+            this.role = role;
+            this.active = active;
+            this.created = created;
+        }
+    }
+
+    private static final String[] NAMES = { "Žofie Nováková", "Jan Dvořák", "Anna Müller", "Łukasz Kowalski",
+            "Émile Zola", "Ines Sánchez", "Oskar Ølberg", "Petr Černý" };
+    private static final String[] ROLES = { "admin", "user", "support" };
+
+    private static List<Item> items(int n) {
+        Random rnd = new Random(7);
+        long now = System.currentTimeMillis();
+        List<Item> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            out.add(new Item(i, NAMES[rnd.nextInt(NAMES.length)] + " " + i, ROLES[rnd.nextInt(ROLES.length)],
+                    rnd.nextBoolean(), new Date(now - rnd.nextInt(365) * 24L * 60 * 60 * 1000)));
+        }
+        return out;
+    }
+
+    private static Data.InMemoryLoader<Item> loader(List<Item> rows) {
+        return Data.InMemory(rows)
+                .Search(i -> i.name, i -> i.role)
+                .Sort("name", Comparator.comparing((Item i) -> i.name, String.CASE_INSENSITIVE_ORDER))
+                .Filter("Active", i -> i.active)
+                .Filter("Role", i -> i.role)
+                .Date("Created", i -> i.created);
+    }
+
+    private static Data.TQuery query(String order, String search, int offset, int limit) {
+        Data.TQuery q = new Data.TQuery();
+        q.Order = order;
+        q.Search = search;
+        q.Offset = offset;
+        q.Limit = limit;
+        return q;
+    }
+
+    private static Data.TField select(String field, String value) {
+        Data.TField f = new Data.TField();
+        f.Field = field;
+        f.As = Data.SELECT;
+        f.Value = value;
+        return f;
+    }
+
+    private static List<Item> expected(List<Item> rows, Data.TQuery q, Comparator<Item> order) {
+        String needle = Data.NormalizeForSearch(q.Search.trim());
+        List<Item> out = new ArrayList<>();
+        for (Item i : rows) {
+            if (!needle.isEmpty() && !Data.NormalizeForSearch(i.name).contains(needle) && !i.role.contains(needle)) {
+                continue;
+            }
+            boolean keep = true;
+            for (Data.TField f : q.Filter) {
+                if (f.As == Data.SELECT && !i.role.equalsIgnoreCase(f.Value)) {
+                    keep = false;
+                }
+                if (f.As == Data.BOOL && f.Bool && !i.active) {
+                    keep = false;
+                }
+                if (f.As == Data.DATES && f.Dates.From != null && i.created.before(f.Dates.From)) {
+                    keep = false;
+                }
+            }
+            if (keep) {
+                out.add(i);
+            }
+        }
+        out.sort(order);
+        return out;
+    }
+
+    private static List<Integer> ids(List<Item> items) {
+        List<Integer> out = new ArrayList<>();
+        for (Item i : items) {
+            out.add(i.id);
+        }
+        return out;
+    }
+
+    @Test
+    void matchesScanFilterAndSort() throws Exception {
+        List<Item> rows = items(2000);
+        Data.InMemoryLoader<Item> loader = loader(rows);
+        Comparator<Item> byName = Comparator.comparing((Item i) -> i.name, String.CASE_INSENSITIVE_ORDER)
+                .thenComparingInt(i -> i.id);
+
+        Calendar cal = Calendar.getInstance();
+        cal.add(Calendar.DAY_OF_MONTH, -90);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        Data.TField since = new Data.TField();
+        since.Field = "Created";
+        since.As = Data.DATES;
+        since.Dates = new Data.TFieldDates();
+        since.Dates.From = cal.getTime();
+        Data.TField active = new Data.TField();
+        active.Field = "Active";
+        active.As = Data.BOOL;
+        active.Bool = true;
+
+        String[] searches = { "", "nova", "NOVÁ", "dv", "zola 1", "support", "xyz" };
+        for (String search : searches) {
+            for (int variant = 0; variant < 3; variant++) {
+                Data.TQuery q = query("name asc", search, 15, 20);
+                if (variant == 1) {
+                    q.Filter.add(select("Role", "ADMIN"));
+                    q.Filter.add(active);
+                } else if (variant == 2) {
+                    q.Filter.add(since);
+                }
+                List<Item> all = expected(rows, q, byName);
+                Data.LoadResult<Item> page = loader.load(q);
+                assertEquals(rows.size(), page.total);
+                assertEquals(all.size(), page.filtered, search + " / " + variant);
+                assertEquals(ids(all.subList(Math.min(15, all.size()), Math.min(35, all.size()))), ids(page.data),
+                        search + " / " + variant);
+
+                Data.TQuery desc = query("name desc", search, 0, 5);
+                desc.Filter.addAll(q.Filter);
+                List<Item> reversed = new ArrayList<>(all);
+                java.util.Collections.reverse(reversed);
+                assertEquals(ids(reversed.subList(0, Math.min(5, reversed.size()))), ids(loader.load(desc).data));
+            }
+        }
+    }
+
+    @Test
+    void cursorContinuesWhereThePreviousPageEnded() throws Exception {
+        List<Item> rows = items(500);
+        Data.InMemoryLoader<Item> loader = loader(rows);
+        for (String order : new String[] { "name asc", "created desc" }) {
+            Data.TQuery q = query(order, "a", 0, 25);
+            q.Filter.add(select("Role", "user"));
+            List<Integer> paged = new ArrayList<>();
+            Data.LoadResult<Item> page = loader.load(q);
+            while (!page.data.isEmpty()) {
+                paged.addAll(ids(page.data));
+                q.Cursor = new ArrayList<>(page.cursor);
+                q.Offset = paged.size();
+                page = loader.load(q);
+            }
+            Data.TQuery all = query(order, "a", 0, 10_000);
+            all.Filter.add(select("Role", "user"));
+            assertEquals(ids(loader.load(all).data), paged, order);
+        }
+    }
+
+    @Test
+    void searchDoesNotMatchAcrossFields() throws Exception {
+        Data.InMemoryLoader<Item> loader = loader(List.of(
+                new Item(1, "Kim Nova", "admin", true, new Date()),
+                new Item(2, "Lee Stone", "user", true, new Date())));
+        assertEquals(List.of(), ids(loader.load(query("", "nova adm", 0, 10)).data), "End of name plus start of role");
+        assertEquals(List.of(1), ids(loader.load(query("", "nova", 0, 10)).data));
+        assertEquals(List.of(1), ids(loader.load(query("", "adm", 0, 10)).data));
+    }
+
+    @Test
+    void reloadRebuildsTheIndex() throws Exception {
+        List<Item> rows = items(10);
+        Data.InMemoryLoader<Item> loader = loader(rows);
+        assertEquals(10, loader.load(query("", "", 0, 100)).total);
+        loader.Reload(items(20));
+        assertEquals(20, loader.load(query("", "", 0, 100)).total);
+    }
+
+    @Test
+    void facetsCountEachFieldWithoutItsOwnFilter() throws Exception {
+        List<Item> rows = items(1000);
+        Data.TQuery q = query("", "a", 0, 10);
+        q.Filter.add(select("Role", "admin"));
+        Data.TField active = new Data.TField();
+        active.Field = "Active";
+        active.As = Data.BOOL;
+        active.Bool = true;
+        q.Filter.add(active);
+        q.Facets.add("Role");
+        q.Facets.add("Active");
+
+        java.util.Map<String, Integer> roles = new java.util.HashMap<>();
+        java.util.Map<String, Integer> actives = new java.util.HashMap<>();
+        for (Item i : rows) {
+            if (!Data.NormalizeForSearch(i.name).contains("a") && !i.role.contains("a")) {
+                continue;
+            }
+            if (i.active) {
+                roles.merge(i.role, 1, Integer::sum);
+            }
+            if (i.role.equals("admin")) {
+                actives.merge(Boolean.toString(i.active), 1, Integer::sum);
+            }
+        }
+
+        Data.LoadResult<Item> page = loader(rows).load(q);
+        assertEquals(roles, page.facets.get("Role"), "Role counts ignore the role filter");
+        assertEquals(actives, page.facets.get("Active"), "Active counts ignore the active filter");
+        assertEquals((int) actives.get("true"), page.filtered);
+    }
+
+    @Test
+    void normalizeForSearchFoldsInOnePass() {
+        assertEquals("zlutoucky kun", Data.NormalizeForSearch("Žluťoučký KŮŇ"));
+        assertEquals("aeoe strasse", Data.NormalizeForSearch("ÆŒ straSSe"));
+        assertEquals("plain", Data.NormalizeForSearch("plain"));
+        assertEquals("", Data.NormalizeForSearch(null));
+        assertEquals("angstrom ore st", Data.NormalizeForSearch("Ångström Øre ȘȚ"));
+    }
+}
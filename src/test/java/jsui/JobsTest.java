@@ -0,0 +1,120 @@
+package jsui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the ordering, limits and cancellation of the {@link Jobs} queue.
+ *
+ * Run tests: mvn test -Dtest=JobsTest
+ */
+class JobsTest {
+
+    private static Jobs.Progress job(String session, Jobs.Priority priority) {
+        return new Jobs.Progress(session, priority, null);
+    }
+
+    @Test
+    void runsHigherPriorityFirstAndRejectsWhenFull() throws Exception {
+        Jobs jobs = new Jobs(1, 2, 1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+
+        assertTrue(jobs.submit(job("a", Jobs.Priority.NORMAL), p -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(jobs.submit(job("b", Jobs.Priority.LOW), p -> {
+            order.add("low");
+            done.countDown();
+        }));
+        assertTrue(jobs.submit(job("c", Jobs.Priority.HIGH), p -> {
+            order.add("high");
+            done.countDown();
+        }));
+        assertFalse(jobs.submit(job("d", Jobs.Priority.HIGH), p -> order.add("rejected")), "Queue is full");
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("high", "low"), order);
+    }
+
+    @Test
+    void limitsJobsPerSession() throws Exception {
+        Jobs jobs = new Jobs(2, 10, 1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch other = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        jobs.submit(job("a", Jobs.Priority.NORMAL), p -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+            order.add("a1");
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        jobs.submit(job("a", Jobs.Priority.HIGH), p -> {
+            order.add("a2");
+            done.countDown();
+        });
+        jobs.submit(job("b", Jobs.Priority.NORMAL), p -> {
+            order.add("b1");
+            other.countDown();
+        });
+
+        assertTrue(other.await(5, TimeUnit.SECONDS), "Another session uses the free worker");
+        assertEquals(List.of("b1"), order);
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("b1", "a1", "a2"), order);
+    }
+
+    @Test
+    void cancelRemovesQueuedAndInterruptsRunning() throws Exception {
+        Jobs jobs = new Jobs(1, 10, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+
+        Jobs.Progress running = job("a", Jobs.Priority.NORMAL);
+        jobs.submit(running, p -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Jobs.Progress queued = job("b", Jobs.Priority.NORMAL);
+        jobs.submit(queued, p -> ran.add("queued"));
+
+        jobs.cancel(queued);
+        jobs.cancel(running);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(running.cancelled());
+
+        CountDownLatch next = new CountDownLatch(1);
+        jobs.submit(job("c", Jobs.Priority.NORMAL), p -> next.countDown());
+        assertTrue(next.await(5, TimeUnit.SECONDS));
+        assertTrue(ran.isEmpty(), "Cancelled job must not run");
+    }
+}
@@ -0,0 +1,59 @@
+package jsui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that {@link Context#Lazy} adds its cleanup to the target's existing
+ * one instead of replacing it.
+ *
+ * Run tests: mvn test -Dtest=LazyClearTest
+ */
+class LazyClearTest {
+
+    private static String lazyRoute(String html) {
+        Matcher m = Pattern.compile("__lazy\\('[^']*','([^']*)'").matcher(html);
+        assertTrue(m.find(), html);
+        return m.group(1);
+    }
+
+    @Test
+    void lazyKeepsTheCleanupAlreadyOnItsTarget() {
+        App app = new App("en");
+        Context ctx = new Context(app, "session");
+        ui.Target target = ui.Target();
+        List<String> cleared = new ArrayList<>();
+
+        ctx.Patch(target.Render, "<p>patched</p>", () -> cleared.add("patch"));
+        String route = lazyRoute(ctx.Lazy(target, lazy -> "<p>lazy</p>"));
+        assertNotNull(app.routeForPath(route));
+
+        app.ClearSessionTargets("session");
+        assertEquals(List.of("patch"), cleared, "Earlier cleanup still runs");
+        assertNull(app.routeForPath(route), "Lazy route is dropped as well");
+    }
+
+    @Test
+    void chainedCleanupsRunInOrderDespiteFailures() {
+        App app = new App("en");
+        List<String> cleared = new ArrayList<>();
+        app.registerClear("session", "target", () -> {
+            cleared.add("first");
+            throw new IllegalStateException("broken cleanup");
+        });
+        app.chainClear("session", "target", () -> cleared.add("second"));
+        app.chainClear("session", "target", () -> cleared.add("third"));
+
+        app.triggerClear("session", "target");
+        assertEquals(List.of("first", "second", "third"), cleared);
+
+        app.triggerClear("session", "target");
+        assertEquals(3, cleared.size(), "Cleanups run once");
+    }
+}
@@ -0,0 +1,94 @@
+package jsui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks eviction, counters and id substitution of {@link ui.MemoCache}.
+ *
+ * Run tests: mvn test -Dtest=MemoTest
+ */
+class MemoTest {
+
+    private static Supplier<String> counted(AtomicInteger renders, String html) {
+        return () -> {
+            renders.incrementAndGet();
+            return html;
+        };
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedAtCapacity() {
+        ui.MemoCache cache = new ui.MemoCache(2);
+        AtomicInteger renders = new AtomicInteger();
+
+        assertEquals("<a>", cache.get("a", counted(renders, "<a>")));
+        cache.get("b", counted(renders, "<b>"));
+        cache.get("a", counted(renders, "<a>"));
+        cache.get("c", counted(renders, "<c>"));
+        assertEquals(2, cache.size());
+        assertEquals(3, renders.get());
+
+        cache.get("a", counted(renders, "<a>"));
+        assertEquals(3, renders.get(), "Recently used entry is kept");
+        cache.get("b", counted(renders, "<b>"));
+        assertEquals(4, renders.get(), "Least recently used entry was evicted");
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        ui.MemoCache cache = new ui.MemoCache(8);
+        assertEquals(0.0, cache.hitRate(), 1e-9);
+
+        cache.get("a", () -> "<a>");
+        cache.get("a", () -> "<a>");
+        cache.get("a", "id1", id -> "<a id=\"" + id + "\">");
+        cache.get("b", "id2", id -> "<b id=\"" + id + "\">");
+        assertEquals(2, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(0.5, cache.hitRate(), 1e-9);
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        cache.get("a", () -> "<a>");
+        assertEquals(3, cache.misses(), "Cleared entries render again");
+        assertEquals(2, cache.hits(), "Counters survive clear");
+    }
+
+    @Test
+    void fillsFreshIdIntoCachedFragment() {
+        ui.MemoCache cache = new ui.MemoCache(8);
+        AtomicInteger renders = new AtomicInteger();
+        Function<String, String> render = id -> {
+            renders.incrementAndGet();
+            return "<div id=\"" + id + "\"><label for=\"" + id + "\">x</label></div>";
+        };
+
+        assertEquals("<div id=\"one\"><label for=\"one\">x</label></div>", cache.get("card", "one", render));
+        assertEquals("<div id=\"two\"><label for=\"two\">x</label></div>", cache.get("card", "two", render));
+        assertEquals("<div id=\"\"><label for=\"\">x</label></div>", cache.get("card", null, render));
+        assertEquals(1, renders.get(), "Fragment is rendered once");
+
+        assertEquals("<p>static</p>", cache.get("plain", "three", id -> "<p>static</p>"));
+        assertEquals("<p>static</p>", cache.get("plain", "four", id -> "<p>other</p>"), "Fragments without an id are reused");
+    }
+
+    @Test
+    void skeletonsShareMarkupButNotIds() {
+        ui.Target first = ui.Target();
+        ui.Target second = ui.Target();
+        String a = first.Skeleton(ui.SkeletonType.component);
+        String b = second.Skeleton(ui.SkeletonType.component);
+
+        assertTrue(a.contains("id=\"" + first.id + "\""), a);
+        assertTrue(b.contains("id=\"" + second.id + "\""), b);
+        assertFalse(b.contains(first.id));
+        assertEquals(a.replace(first.id, "ID"), b.replace(second.id, "ID"));
+    }
+}
@@ -0,0 +1,120 @@
+package jsui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the timeout and failure paths of {@link Context#Parallel}.
+ *
+ * Run tests: mvn test -Dtest=ParallelTest
+ */
+class ParallelTest {
+
+    private static Context context(App app, BlockingQueue<String> patches) {
+        return new Context(app, "session", "GET", "/", Collections.emptyMap(), new byte[0], Collections.emptyMap(), "",
+                (sessionId, message) -> patches.add(message));
+    }
+
+    @Test
+    void joinsSectionsInOrder() throws Exception {
+        App app = new App("en");
+        String html = context(app, new LinkedBlockingQueue<>()).Parallel(
+                ctx -> {
+                    Thread.sleep(100);
+                    return "<p>first</p>";
+                },
+                null,
+                ctx -> "<p>second</p>");
+        assertEquals("<p>first</p> <p>second</p>", html);
+    }
+
+    @Test
+    void lateSectionBecomesSkeletonAndIsDeferred() throws Exception {
+        App app = new App("en");
+        BlockingQueue<String> patches = new LinkedBlockingQueue<>();
+        long start = System.currentTimeMillis();
+        String html = context(app, patches).Parallel(200, ui.SkeletonType.component,
+                ctx -> "<p>fast</p>",
+                ctx -> {
+                    Thread.sleep(1000);
+                    return "<p>slow</p>";
+                });
+        assertTrue(System.currentTimeMillis() - start < 900, "Page does not wait for the late section");
+        assertTrue(html.startsWith("<p>fast</p>"), html);
+        assertFalse(html.contains("slow"));
+
+        Matcher skeleton = Pattern.compile("id=\"([^\"]+)\"").matcher(html);
+        assertTrue(skeleton.find(), "Late section is a skeleton with a target id");
+
+        String patch = patches.poll(5, TimeUnit.SECONDS);
+        assertNotNull(patch, "Late section is patched in once it finishes");
+        assertTrue(patch.contains("\"id\":\"" + skeleton.group(1) + "\""), patch);
+        assertTrue(patch.contains("\"swap\":\"outline\"") && patch.contains("slow"), patch);
+    }
+
+    @Test
+    void failingSectionCancelsItsSiblings() throws Exception {
+        App app = new App("en");
+        CountDownLatch interrupted = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> context(app, new LinkedBlockingQueue<>())
+                .Parallel(
+                        ctx -> {
+                            try {
+                                Thread.sleep(10_000);
+                            } catch (InterruptedException e) {
+                                interrupted.countDown();
+                                throw e;
+                            }
+                            return "<p>slow</p>";
+                        },
+                        ctx -> {
+                            Thread.sleep(100);
+                            throw new IllegalStateException("broken section");
+                        }));
+        assertEquals("broken section", ex.getMessage());
+        assertTrue(System.currentTimeMillis() - start < 5000, "Failure does not wait for earlier sections");
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "Sibling section is cancelled");
+    }
+
+    @Test
+    void interruptedWaitCancelsTheSections() throws Exception {
+        App app = new App("en");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread page = new Thread(() -> {
+            try {
+                context(app, new LinkedBlockingQueue<>()).Parallel(ctx -> {
+                    started.countDown();
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                    return "<p>slow</p>";
+                });
+            } catch (Throwable t) {
+                thrown.set(t);
+            }
+        });
+        page.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        page.interrupt();
+        page.join(5000);
+
+        assertTrue(thrown.get() instanceof InterruptedException, "Waiting page sees the interrupt: " + thrown.get());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "Running section is cancelled");
+    }
+}
@@ -0,0 +1,117 @@
+package jsui;
+
+/**
+ * The regex based implementations {@link Escape} replaced, kept as the
+ * reference for equivalence tests and as the benchmark baseline.
+ */
+final class RegexEscape {
+    private RegexEscape() {
+    }
+
+    static String trim(String s) {
+        if (s == null)
+            return "";
+        String x = s;
+        x = x.replaceAll("(?s)/\\*.*?\\*/", "");
+        x = x.replaceAll("(?s)<!--.*?-->", "");
+        x = x.replaceAll("(?m)^[ \t]*//.*$", "");
+        x = x.replaceAll("[\t\n]+", "");
+        x = x.replaceAll("\\s{4,}", " ");
+        return x.trim();
+    }
+
+    static String normalize(String s) {
+        if (s == null)
+            return "";
+        String x = s.replace("\\", "\\\\");
+        x = x.replace("\"", "\\\"");
+        x = x.replaceAll("(?s)/\\*.*?\\*/", "");
+        x = x.replaceAll("(?s)<!--.*?-->", "");
+        x = x.replaceAll("(?m)^[ \t]*//.*$", "");
+        x = x.replace("\t", "\\t");
+        x = x.replace("\n", "\\n");
+        x = x.replace("\r", "\\r");
+        x = x.replaceAll("\\s{4,}", " ");
+        return x.trim();
+    }
+
+    static String json(String s) {
+        if (s == null)
+            return "";
+        StringBuilder sb = new StringBuilder(s.length() + 20);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\b':
+                    sb.append("\\b");
+                    break;
+                case '\f':
+                    sb.append("\\f");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < ' ') {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.toString();
+    }
+
+    static String attr(String v) {
+        if (v == null)
+            return "";
+        return v.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    static String html(String input) {
+        if (input == null || input.isEmpty())
+            return "";
+        return attr(input).replace("'", "&#x27;");
+    }
+
+    /** Markup and script fragments shaped like the ones rendered on every request. */
+    static final String POST_SCRIPT = """
+            try{if(event&&event.preventDefault)event.preventDefault();}catch(_){}return window.__post?__post('','/act/kfjdhsyeiwoqpalz','outline','ieNEEMgqZv47fo5y','',event):false;""";
+
+    static final String PATCH_SCRIPT = """
+            (function(){
+                // swap the target once the element exists
+                var el = document.getElementById('ibdvqwemabuvqoDY');
+                if (!el) return;
+                /* keep focus on the input while patching */
+                el.innerHTML = "<div class=\\"p-2\\">Saved</div>";
+            })();
+            """;
+
+    static final String CLASSES = "flex items-center gap-2 px-4 py-2 rounded-lg bg-blue-800 text-white hover:bg-blue-700";
+
+    static final String TABLE = table(50);
+
+    private static String table(int rows) {
+        StringBuilder sb = new StringBuilder("<div><table class=\"table-auto w-full\"><tbody>");
+        for (int i = 0; i < rows; i++) {
+            sb.append("<tr><td class=\"p-2\">Row ").append(i)
+                    .append("</td><td class=\"p-2\"><button class=\"rounded bg-gray-100\" onclick=\"")
+                    .append(POST_SCRIPT.replace("\"", "&quot;"))
+                    .append("\">Edit</button></td></tr>\n    ");
+        }
+        return sb.append("</tbody></table></div>").toString();
+    }
+}
@@ -0,0 +1,271 @@
+package jsui;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link Data.SqlLoader} against an embedded H2 database and compares
+ * its pages with the same query evaluated in Java.
+ *
+ * Run tests: mvn test -Dtest=SqlLoaderTest
+ */
+class SqlLoaderTest {
+
+    record Person(int id, String name, String role, boolean active, Timestamp created, Timestamp deleted) {
+    }
+
+    private static final String[] NAMES = { "Adams", "Baker", "Clark", "Davis", "Evans", "Foster", "Green", "Hill" };
+    private static final String[] ROLES = { "admin", "user", "support" };
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final long BASE = Timestamp.valueOf("2024-01-01 12:00:00").getTime();
+
+    private static JdbcDataSource dataSource;
+    private static Connection keepAlive;
+    private static final List<Person> people = new ArrayList<>();
+
+    @BeforeAll
+    static void createDatabase() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:sqlloader;DB_CLOSE_DELAY=-1");
+        keepAlive = dataSource.getConnection();
+        try (Statement st = keepAlive.createStatement()) {
+            st.execute("CREATE TABLE people (id INT PRIMARY KEY, name VARCHAR(64), role VARCHAR(16), "
+                    + "active BOOLEAN, created TIMESTAMP, deleted TIMESTAMP)");
+            st.execute("CREATE TABLE roles (code VARCHAR(16) PRIMARY KEY, label VARCHAR(32))");
+            st.execute("INSERT INTO roles VALUES ('admin', 'Administrator'), ('user', 'User'), ('support', 'Support')");
+        }
+        try (PreparedStatement ps = keepAlive.prepareStatement("INSERT INTO people VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= 300; i++) {
+                Person p = new Person(i, NAMES[i % NAMES.length] + " " + (i % 37), ROLES[i % ROLES.length], i % 4 != 0,
+                        new Timestamp(BASE + (i % 50) * DAY), i % 10 == 0 ? new Timestamp(BASE) : null);
+                people.add(p);
+                ps.setInt(1, p.id());
+                ps.setString(2, p.name());
+                ps.setString(3, p.role());
+                ps.setBoolean(4, p.active());
+                ps.setTimestamp(5, p.created());
+                ps.setTimestamp(6, p.deleted());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    @AfterAll
+    static void dropDatabase() throws Exception {
+        try (Statement st = keepAlive.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        }
+        keepAlive.close();
+    }
+
+    private static Data.SqlLoader<Person> loader() {
+        return Data.Sql(dataSource, "people", rs -> new Person(rs.getInt("id"), rs.getString("name"),
+                rs.getString("role"), rs.getBoolean("active"), rs.getTimestamp("created"), rs.getTimestamp("deleted")))
+                .Key("id")
+                .Search("name")
+                .Columns("role", "active", "created", "deleted");
+    }
+
+    private static Data.TQuery query(String order, String search, int offset, int limit) {
+        Data.TQuery q = new Data.TQuery();
+        q.Order = order;
+        q.Search = search;
+        q.Offset = offset;
+        q.Limit = limit;
+        return q;
+    }
+
+    private static Data.TField filter(String field, int as) {
+        Data.TField f = new Data.TField();
+        f.Field = field;
+        f.As = as;
+        return f;
+    }
+
+    private static List<Integer> ids(List<Person> list) {
+        List<Integer> out = new ArrayList<>();
+        for (Person p : list) {
+            out.add(p.id());
+        }
+        return out;
+    }
+
+    @Test
+    void compilesSearchFiltersOrderAndPaging() throws Exception {
+        Data.TQuery q = query("created desc", "AR", 5, 10);
+        Data.TField role = filter("ROLE", Data.SELECT);
+        role.Value = "user";
+        Data.TField active = filter("active", Data.BOOL);
+        active.Bool = true;
+        Data.TField created = filter("created", Data.DATES);
+        created.Dates = new Data.TFieldDates();
+        created.Dates.From = new java.util.Date(BASE + 10 * DAY);
+        q.Filter.add(role);
+        q.Filter.add(active);
+        q.Filter.add(created);
+
+        List<Person> expected = new ArrayList<>();
+        for (Person p : people) {
+            if (p.name().toLowerCase().contains("ar") && p.role().equals("user") && p.active()
+                    && p.created().getTime() >= BASE + 10 * DAY - 12 * 60 * 60 * 1000) {
+                expected.add(p);
+            }
+        }
+        expected.sort(Comparator.comparing(Person::created).thenComparing(Person::id).reversed());
+
+        Data.LoadResult<Person> page = loader().load(q);
+        assertEquals(300, page.total);
+        assertEquals(expected.size(), page.filtered);
+        assertEquals(ids(expected.subList(5, Math.min(15, expected.size()))), ids(page.data));
+    }
+
+    @Test
+    void zeroDateFilters() throws Exception {
+        Data.TQuery q = query("id asc", "", 0, 1000);
+        Data.TField deleted = filter("deleted", Data.NOT_ZERO_DATE);
+        deleted.Bool = true;
+        q.Filter.add(deleted);
+        assertEquals(30, loader().load(q).filtered);
+
+        deleted.As = Data.ZERO_DATE;
+        assertEquals(270, loader().load(q).filtered);
+    }
+
+    @Test
+    void cursorPagesMatchOffsetPages() throws Exception {
+        Data.SqlLoader<Person> loader = loader();
+        for (String order : new String[] { "name asc", "created desc", "id desc", "deleted asc", "deleted desc" }) {
+            List<Integer> all = ids(loader.load(query(order, "", 0, 1000)).data);
+            Data.TQuery q = query(order, "", 0, 40);
+            List<Integer> paged = new ArrayList<>();
+            Data.LoadResult<Person> page = loader.load(q);
+            while (!page.data.isEmpty()) {
+                paged.addAll(ids(page.data));
+                q.Cursor = new ArrayList<>(page.cursor);
+                q.Offset = paged.size();
+                page = loader.load(q);
+            }
+            assertEquals(all, paged, order);
+            assertEquals(300, paged.size(), order);
+        }
+
+        List<Integer> nullsFirst = ids(loader.load(query("deleted asc", "", 0, 1000)).data);
+        assertTrue(nullsFirst.subList(0, 270).stream().allMatch(id -> id % 10 != 0), "NULL deleted sorts first ascending");
+    }
+
+    @Test
+    void cursorReadsQualifiedColumnsOfAJoin() throws Exception {
+        Data.SqlLoader<Person> loader = Data.Sql(dataSource, "people p JOIN roles r ON r.code = p.role",
+                rs -> new Person(rs.getInt("id"), rs.getString("label"), rs.getString("role"), rs.getBoolean("active"),
+                        rs.getTimestamp("created"), rs.getTimestamp("deleted")))
+                .Key("p.id")
+                .Columns("p.created", "r.label");
+        for (String order : new String[] { "p.created desc", "r.label asc", "p.id asc" }) {
+            List<Integer> all = ids(loader.load(query(order, "", 0, 1000)).data);
+            Data.TQuery q = query(order, "", 0, 70);
+            List<Integer> paged = new ArrayList<>();
+            Data.LoadResult<Person> page = loader.load(q);
+            while (!page.data.isEmpty()) {
+                assertEquals(order.split(" ")[0], page.cursor.get(0), order);
+                paged.addAll(ids(page.data));
+                q.Cursor = new ArrayList<>(page.cursor);
+                q.Offset = paged.size();
+                page = loader.load(q);
+            }
+            assertEquals(all, paged, order);
+            assertEquals(300, paged.size(), order);
+        }
+    }
+
+    @Test
+    void offsetFetchPagesLikeLimitOffset() throws Exception {
+        Data.TQuery q = query("name desc", "a", 10, 15);
+        Data.LoadResult<Person> limit = loader().load(q);
+        Data.LoadResult<Person> fetch = loader().OffsetFetch().load(q);
+        assertEquals(15, fetch.data.size());
+        assertEquals(ids(limit.data), ids(fetch.data));
+        assertEquals(limit.filtered, fetch.filtered);
+    }
+
+    @Test
+    void ignoresUnknownColumnsAndConditions() throws Exception {
+        Data.TQuery q = query("name; DROP TABLE people", "", 0, 5);
+        Data.TField injected = filter("1=1 OR role", Data.SELECT);
+        injected.Value = "x";
+        Data.TField condition = filter("active", Data.BOOL);
+        condition.Bool = true;
+        condition.Condition = "1=1; DROP TABLE people";
+        q.Filter.add(injected);
+        q.Filter.add(condition);
+
+        Data.LoadResult<Person> page = loader().load(q);
+        assertEquals(List.of(1, 2, 3, 5, 6), ids(page.data), "Falls back to key order, applies only the known filter");
+        assertEquals(300, loader().load(query("", "", 0, 1)).total, "Table is intact");
+    }
+
+    @Test
+    void countsFacetsInOneGroupedQuery() throws Exception {
+        Data.TQuery q = query("id asc", "ar", 0, 5);
+        Data.TField role = filter("role", Data.SELECT);
+        role.Value = "admin";
+        Data.TField active = filter("active", Data.BOOL);
+        active.Bool = true;
+        q.Filter.add(role);
+        q.Filter.add(active);
+        q.Facets.add("role");
+        q.Facets.add("active");
+        q.Facets.add("unknown");
+
+        java.util.Map<String, Integer> roles = new java.util.HashMap<>();
+        java.util.Map<String, Integer> actives = new java.util.HashMap<>();
+        for (Person p : people) {
+            if (!p.name().toLowerCase().contains("ar")) {
+                continue;
+            }
+            if (p.active()) {
+                roles.merge(p.role(), 1, Integer::sum);
+            }
+            if (p.role().equals("admin")) {
+                actives.merge(Boolean.toString(p.active()), 1, Integer::sum);
+            }
+        }
+
+        Data.LoadResult<Person> page = loader().load(q);
+        assertEquals(roles, page.facets.get("role"));
+        assertEquals(actives, page.facets.get("active"));
+        assertFalse(page.facets.containsKey("unknown"), "Only whitelisted columns are grouped");
+    }
+
+    @Test
+    void runsCountsOnTheExecutor() throws Exception {
+        AtomicInteger submitted = new AtomicInteger();
+        Executor counting = task -> {
+            submitted.incrementAndGet();
+            new Thread(task).start();
+        };
+        Data.TQuery q = query("id asc", "Adams", 0, 5);
+        Data.LoadResult<Person> page = loader().Executor(counting).load(q);
+        assertEquals(2, submitted.get(), "Total and filtered counts run beside the page query");
+        assertEquals(300, page.total);
+        assertTrue(page.filtered > 0 && page.filtered < 300);
+
+        submitted.set(0);
+        loader().Executor(counting).load(query("id asc", "", 0, 5));
+        assertEquals(1, submitted.get(), "Without conditions the filtered count is the total");
+    }
+}
@@ -0,0 +1,190 @@
+package jsui;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import jsui.examples.pages.ShowcaseTemplatesImpl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compiles {@link Template} interfaces with {@link TemplateProcessor} and
+ * checks the generated code against the equivalent {@link ui} builder markup.
+ *
+ * Run tests: mvn test -Dtest=TemplateProcessorTest
+ */
+class TemplateProcessorTest {
+
+    private static final String CARDS = """
+            package demo;
+
+            import jsui.Template;
+
+            public interface CardTemplates {
+                @Template("<div class=\\"card\\"><h3>{title}</h3>{!body}<style>.card{color:red}</style></div>")
+                String Card(String title, String body);
+
+                @Template("<span>{count} × {unknown}</span>")
+                String Count(int count);
+            }
+            """;
+
+    private static final String DYNAMIC = "<b class=\"x\">Tom & 'Jerry'</b> Grüße";
+
+    private static final class Source extends SimpleJavaFileObject {
+        private final String code;
+
+        Source(String name, String code) {
+            super(URI.create("string:///" + name.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    /** Compiles {@code code} with the processor and returns the diagnostics; classes go to {@code out}. */
+    private static DiagnosticCollector<JavaFileObject> compile(Path out, String name, String code) throws Exception {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        assertNotNull(javac, "Tests run on a JDK");
+        Path classes = Path.of(Template.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager files = javac.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = javac.getTask(null, files, diagnostics,
+                    List.of("-classpath", classes.toString(), "-d", out.toString(), "-s", out.toString()),
+                    null, List.of(new Source(name, code)));
+            task.setProcessors(List.of(new TemplateProcessor()));
+            task.call();
+        }
+        return diagnostics;
+    }
+
+    private static boolean reported(DiagnosticCollector<JavaFileObject> diagnostics, Diagnostic.Kind kind, String text) {
+        return diagnostics.getDiagnostics().stream()
+                .anyMatch(d -> d.getKind() == kind && d.getMessage(null).contains(text));
+    }
+
+    @Test
+    void generatedTemplatesMatchBuilderMarkup() throws Exception {
+        Path out = Files.createTempDirectory("jsui-templates");
+        DiagnosticCollector<JavaFileObject> diagnostics = compile(out, "demo.CardTemplates", CARDS);
+        assertFalse(reported(diagnostics, Diagnostic.Kind.ERROR, ""), diagnostics.getDiagnostics().toString());
+        assertTrue(Files.exists(out.resolve("demo/CardTemplatesImpl.java")));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { out.toUri().toURL() }, getClass().getClassLoader())) {
+            Class<?> type = loader.loadClass("demo.CardTemplatesImpl");
+            Object templates = type.getConstructor().newInstance();
+            Method card = type.getMethod("Card", String.class, String.class);
+            Method cardOut = type.getMethod("Card", OutputStream.class, String.class, String.class);
+            Method count = type.getMethod("Count", int.class);
+
+            String body = ui.div("text-gray-600").render("<i>raw</i>");
+            String expected = ui.div("card").render("<h3>" + Escape.html(DYNAMIC) + "</h3>" + body
+                    + "<style>.card{color:red}</style>");
+            assertEquals(expected, card.invoke(templates, DYNAMIC, body), "{title} is escaped, {!body} is raw");
+            assertEquals(ui.div("card").render("<h3></h3><style>.card{color:red}</style>"),
+                    card.invoke(templates, null, null), "Null holes are empty");
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            cardOut.invoke(templates, bytes, DYNAMIC, body);
+            assertEquals(expected, bytes.toString(StandardCharsets.UTF_8), "OutputStream form writes the same UTF-8");
+
+            assertEquals("<span>42 × {unknown}</span>", count.invoke(templates, 42), "Unknown names stay text");
+        }
+    }
+
+    @Test
+    void reportsUnusedParametersAndInvalidMethods() throws Exception {
+        Path out = Files.createTempDirectory("jsui-templates");
+        DiagnosticCollector<JavaFileObject> unused = compile(out, "demo.Unused", """
+                package demo;
+
+                interface Unused {
+                    @jsui.Template("<p>{a}</p>")
+                    String P(String a, String b);
+                }
+                """);
+        assertTrue(reported(unused, Diagnostic.Kind.WARNING, "Parameter 'b' is not used"));
+
+        DiagnosticCollector<JavaFileObject> invalid = compile(out, "demo.Invalid", """
+                package demo;
+
+                interface Invalid {
+                    @jsui.Template("<p>{a}</p>")
+                    int P(String a);
+                }
+                """);
+        assertTrue(reported(invalid, Diagnostic.Kind.ERROR, "must return String"));
+    }
+
+    @Test
+    void overloadsAndParametersNamedLikeLocalsCompile() throws Exception {
+        Path out = Files.createTempDirectory("jsui-templates");
+        DiagnosticCollector<JavaFileObject> diagnostics = compile(out, "demo.Overloads", """
+                package demo;
+
+                public interface Overloads {
+                    @jsui.Template("<p>{a}</p>")
+                    String P(String a);
+
+                    @jsui.Template("<p class=\\"two\\">{a}{b}</p>")
+                    String P(String a, String b);
+
+                    @jsui.Template("<i>{sb}</i><b>{out}</b>")
+                    String Locals(String sb, String out);
+                }
+                """);
+        assertFalse(reported(diagnostics, Diagnostic.Kind.ERROR, ""), diagnostics.getDiagnostics().toString());
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { out.toUri().toURL() }, getClass().getClassLoader())) {
+            Class<?> type = loader.loadClass("demo.OverloadsImpl");
+            Object templates = type.getConstructor().newInstance();
+            assertEquals("<p>x</p>", type.getMethod("P", String.class).invoke(templates, "x"));
+            assertEquals("<p class=\"two\">xy</p>",
+                    type.getMethod("P", String.class, String.class).invoke(templates, "x", "y"));
+            assertEquals("<i>a&amp;</i><b>b</b>",
+                    type.getMethod("Locals", String.class, String.class).invoke(templates, "a&", "b"));
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            type.getMethod("Locals", OutputStream.class, String.class, String.class).invoke(templates, bytes, "a", "b");
+            assertEquals("<i>a</i><b>b</b>", bytes.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void showcaseTemplatesMatchTheBuilderMarkupTheyReplaced() throws Exception {
+        ShowcaseTemplatesImpl templates = new ShowcaseTemplatesImpl();
+
+        assertEquals(ui.div("text-3xl font-bold").render(Escape.html(DYNAMIC)) + " "
+                + ui.div("text-gray-600").render("A &lt;subtitle&gt;"),
+                templates.Header(DYNAMIC, "A <subtitle>"));
+
+        String content = ui.div("flex flex-col gap-6").render("<b>raw</b>");
+        String section = ui.div("").render(ui.div("text-2xl font-bold mb-4").render(Escape.html(DYNAMIC)), content);
+        assertEquals(section, templates.Section(DYNAMIC, content));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        templates.Section(bytes, DYNAMIC, content);
+        assertArrayEquals(section.getBytes(StandardCharsets.UTF_8), bytes.toByteArray());
+    }
+}
@@ -0,0 +1,121 @@
+package jsui.examples;
+
+import jsui.App;
+import jsui.Server;
+import jsui.ui;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for app.HTML(ctx, title, bodyClass, sections...) on the real server.
+ *
+ * Reads the raw response so the transfer encoding and the arrival time of
+ * each part can be checked.
+ *
+ * Run tests: mvn test -Dtest=ChunkedHtmlTest
+ */
+class ChunkedHtmlTest {
+
+    private static final int PORT = 1432;
+    private static final long SLOW_MILLIS = 1500;
+    private static Server server;
+
+    @BeforeAll
+    static void startServer() throws IOException, InterruptedException {
+        App app = new App("en");
+
+        app.Page("/chunked", ctx -> app.HTML(ctx, "Chunked Test", "bg-gray-100",
+                sectionCtx -> ui.div("text-xl").render("Fast section"),
+                sectionCtx -> {
+                    Thread.sleep(SLOW_MILLIS);
+                    return ui.div("text-green-800").render("Slow section done");
+                }));
+
+        app.Page("/chunked-error", ctx -> app.HTML(ctx, "Chunked Error Test", "bg-gray-100",
+                sectionCtx -> ui.div("text-xl").render("Fast section"),
+                sectionCtx -> {
+                    throw new IllegalStateException("section failed");
+                }));
+
+        server = Server.builder(app).httpPort(PORT).start();
+        assertNotNull(server, "Server should be initialized");
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /** Reads from {@code in} into {@code seen} until it contains {@code marker} or the stream ends. */
+    private static String readUntil(InputStream in, ByteArrayOutputStream seen, String marker) throws IOException {
+        byte[] buf = new byte[4096];
+        String text = seen.toString(StandardCharsets.UTF_8);
+        while (marker == null || !text.contains(marker)) {
+            int n = in.read(buf);
+            if (n < 0) {
+                break;
+            }
+            seen.write(buf, 0, n);
+            text = seen.toString(StandardCharsets.UTF_8);
+        }
+        return text;
+    }
+
+    private static Socket get(String path) throws IOException {
+        Socket socket = new Socket("localhost", PORT);
+        socket.setSoTimeout(10_000);
+        OutputStream out = socket.getOutputStream();
+        out.write(("GET " + path + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return socket;
+    }
+
+    @Test
+    @DisplayName("Head is flushed in a chunked response before a slow section finishes")
+    void testHeadArrivesBeforeSlowSection() throws IOException {
+        long start = System.currentTimeMillis();
+        try (Socket socket = get("/chunked")) {
+            InputStream in = socket.getInputStream();
+            ByteArrayOutputStream seen = new ByteArrayOutputStream();
+
+            String early = readUntil(in, seen, "Fast section");
+            long elapsed = System.currentTimeMillis() - start;
+            String headers = early.substring(0, early.indexOf("\r\n\r\n")).toLowerCase();
+            assertTrue(early.startsWith("HTTP/1.1 200"), early);
+            assertTrue(headers.contains("transfer-encoding: chunked"), headers);
+            assertFalse(headers.contains("content-length"), headers);
+            assertTrue(early.contains("</head>"), "Head is sent with the first section");
+            assertFalse(early.contains("Slow section done"));
+            assertTrue(elapsed < SLOW_MILLIS, "Head arrived after " + elapsed + " ms");
+
+            String all = readUntil(in, seen, null);
+            assertTrue(System.currentTimeMillis() - start >= SLOW_MILLIS);
+            assertTrue(all.contains("Slow section done") && all.contains("</body></html>"));
+            assertTrue(all.endsWith("\r\n0\r\n\r\n"), "Response ends with the last chunk");
+        }
+    }
+
+    @Test
+    @DisplayName("A section failing after the response started is reported, not a complete 200")
+    void testErrorAfterCommit() throws IOException {
+        try (Socket socket = get("/chunked-error")) {
+            String all = readUntil(socket.getInputStream(), new ByteArrayOutputStream(), null);
+            assertTrue(all.startsWith("HTTP/1.1 200"), "Status was committed with the head");
+            assertTrue(all.contains("Fast section"));
+            assertTrue(all.contains("__error("), "Page shows the error toast");
+            assertFalse(all.contains("</body></html>"), "Document is not completed");
+            assertFalse(all.endsWith("\r\n0\r\n\r\n"), "Body is left unterminated so clients see a failed response");
+        }
+    }
+}
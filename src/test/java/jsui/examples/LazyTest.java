@@ -0,0 +1,117 @@
+package jsui.examples;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import jsui.App;
+import jsui.Server;
+import jsui.ui;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for ctx.Lazy.
+ *
+ * The section below the fold must not be rendered until it is scrolled into
+ * view, and it must be rendered only once.
+ *
+ * Run tests: mvn test -Dtest=LazyTest
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class LazyTest {
+
+    private static final int PORT = 1430;
+    private static final String BASE_URL = "http://localhost:" + PORT;
+    private static final AtomicInteger renders = new AtomicInteger();
+    private static Server server;
+    private static Playwright playwright;
+    private static Browser browser;
+    private BrowserContext context;
+    private Page page;
+
+    @BeforeAll
+    static void startServerAndBrowser() throws IOException, InterruptedException {
+        App app = new App("en");
+
+        app.Page("/lazy", ctx -> {
+            ui.Target below = ui.Target();
+            return app.HTML("Lazy Test", "bg-gray-100 min-h-screen p-8",
+                    ui.div("space-y-4").render(
+                            ui.div("p-4 border").render("Above the fold"),
+                            ui.div("", ui.Attr.of().style("height:4000px")).render(),
+                            ctx.Lazy(below, lazyCtx -> {
+                                renders.incrementAndGet();
+                                return ui.div("p-4 border text-green-800", below.id()).render("Lazy section done");
+                            })));
+        });
+
+        server = Server.builder(app).httpPort(PORT).start();
+        assertNotNull(server, "Server should be initialized");
+
+        playwright = Playwright.create();
+        browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
+    }
+
+    @AfterAll
+    static void stopServerAndBrowser() throws IOException {
+        if (browser != null) {
+            browser.close();
+        }
+        if (playwright != null) {
+            playwright.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        context = browser.newContext(new Browser.NewContextOptions().setViewportSize(1280, 800));
+        page = context.newPage();
+        renders.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Lazy section is not rendered before it is scrolled into view")
+    void testNotRenderedUpFront() {
+        page.navigate(BASE_URL + "/lazy");
+        page.waitForSelector("text=Above the fold");
+        page.waitForTimeout(500);
+
+        assertEquals(0, renders.get(), "Lazy job should not run while off screen");
+        assertEquals(0, page.locator("text=Lazy section done").count());
+        assertEquals(1, page.locator(".animate-pulse").count(), "Skeleton should be shown");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Lazy section renders once when scrolled into view")
+    void testRenderedOnScroll() {
+        page.navigate(BASE_URL + "/lazy");
+        page.waitForSelector("text=Above the fold");
+        page.evaluate("window.scrollTo(0, document.body.scrollHeight)");
+
+        page.waitForSelector("text=Lazy section done", new Page.WaitForSelectorOptions().setTimeout(5000));
+        assertEquals(0, page.locator(".animate-pulse").count(), "Skeleton should be replaced");
+
+        page.evaluate("window.scrollTo(0, 0)");
+        page.evaluate("window.scrollTo(0, document.body.scrollHeight)");
+        page.waitForTimeout(300);
+        assertEquals(1, renders.get(), "Lazy job should run exactly once");
+    }
+}
@@ -0,0 +1,135 @@
+package jsui.examples;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import jsui.App;
+import jsui.Context;
+import jsui.Server;
+import jsui.State;
+import jsui.ui;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for State and ctx.Bind.
+ *
+ * Changing a state must re-render only the bound fragments that read it.
+ *
+ * Run tests: mvn test -Dtest=StateTest
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class StateTest {
+
+    private static final int PORT = 1429;
+    private static final String BASE_URL = "http://localhost:" + PORT;
+    private static final State<Integer> count = State.of(0);
+    private static final State<String> label = State.of("Counter");
+    private static final AtomicInteger labelRenders = new AtomicInteger();
+    private static Server server;
+    private static Playwright playwright;
+    private static Browser browser;
+    private BrowserContext context;
+    private Page page;
+
+    static String increment(Context ctx) {
+        count.update(n -> n + 1);
+        return "";
+    }
+
+    static String incrementTwice(Context ctx) {
+        State.Batch(() -> {
+            count.update(n -> n + 1);
+            count.update(n -> n + 1);
+            label.set("Batched");
+        });
+        return "";
+    }
+
+    @BeforeAll
+    static void startServerAndBrowser() throws IOException {
+        App app = new App("en");
+
+        app.Page("/state-test", ctx -> app.HTML("State Test", "bg-gray-100 min-h-screen p-8",
+                ui.div("space-y-4").render(
+                        ctx.Bind(c -> {
+                            labelRenders.incrementAndGet();
+                            return ui.div("text-xl", ui.Attr.of().id("label")).render(label.get());
+                        }),
+                        ctx.Bind(c -> ui.div("text-2xl", ui.Attr.of().id("count")).render("Count: " + count.get())),
+                        ui.Button().Class("rounded").Color(ui.Blue)
+                                .Click(ctx.Call(StateTest::increment).None()).Render("Increment"),
+                        ui.Button().Class("rounded").Color(ui.Gray)
+                                .Click(ctx.Call(StateTest::incrementTwice).None()).Render("Batch"))));
+
+        server = Server.builder(app).httpPort(PORT).start();
+        assertNotNull(server, "Server should be initialized");
+
+        playwright = Playwright.create();
+        browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
+    }
+
+    @AfterAll
+    static void stopServerAndBrowser() throws IOException {
+        if (browser != null) {
+            browser.close();
+        }
+        if (playwright != null) {
+            playwright.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        context = browser.newContext();
+        page = context.newPage();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Changing a state patches only the fragments that read it")
+    void testStatePatchesDependents() {
+        page.navigate(BASE_URL + "/state-test");
+        page.waitForLoadState();
+        page.waitForTimeout(500);
+        int rendersBefore = labelRenders.get();
+        int before = count.peek();
+
+        page.locator("button:has-text('Increment')").click();
+        page.waitForSelector("#count:has-text('Count: " + (before + 1) + "')",
+                new Page.WaitForSelectorOptions().setTimeout(5000));
+
+        assertEquals(rendersBefore, labelRenders.get(), "Label fragment should not re-render");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Batch applies several changes with one re-render per fragment")
+    void testBatch() {
+        page.navigate(BASE_URL + "/state-test");
+        page.waitForLoadState();
+        page.waitForTimeout(500);
+        int before = count.peek();
+
+        page.locator("button:has-text('Batch')").click();
+        page.waitForSelector("#label:has-text('Batched')", new Page.WaitForSelectorOptions().setTimeout(5000));
+        page.waitForSelector("#count:has-text('Count: " + (before + 2) + "')",
+                new Page.WaitForSelectorOptions().setTimeout(5000));
+    }
+}
@@ -0,0 +1,146 @@
+package jsui.examples;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import jsui.App;
+import jsui.Server;
+import jsui.ui;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for ctx.Defer with app.streamedDefer(true).
+ *
+ * Deferred results are written into the still open page response, so the
+ * targets must be patched even when the WebSocket never connects.
+ *
+ * Run tests: mvn test -Dtest=StreamedDeferTest
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class StreamedDeferTest {
+
+    private static final int PORT = 1428;
+    private static final String BASE_URL = "http://localhost:" + PORT;
+    private static Server server;
+    private static Playwright playwright;
+    private static Browser browser;
+    private BrowserContext context;
+    private Page page;
+
+    @BeforeAll
+    static void startServerAndBrowser() throws IOException, InterruptedException {
+        App app = new App("en");
+        app.streamedDefer(true);
+        app.smoothNav(true);
+
+        app.Page("/streamed-defer", ctx -> {
+            ui.Target slow = ui.Target();
+            ui.Target fast = ui.Target();
+
+            ctx.Defer(slow.Replace, deferredCtx -> {
+                Thread.sleep(1000);
+                return ui.div("text-green-800", slow.id()).render("Slow section done");
+            });
+            ctx.Defer(fast.Render, deferredCtx -> {
+                Thread.sleep(200);
+                return ui.div("text-blue-800").render("Fast section done");
+            });
+
+            return app.HTML("Streamed Defer Test", "bg-gray-100 min-h-screen p-8",
+                    ui.div("space-y-4").render(
+                            ui.div("p-4 border", slow.id()).render(slow.Skeleton(ui.SkeletonType.component)),
+                            ui.div("p-4 border", fast.id()).render(fast.Skeleton(ui.SkeletonType.component))));
+        });
+
+        app.Page("/streamed-nav", ctx -> {
+            ui.Target slow = ui.Target();
+            ctx.Defer(slow.Replace, deferredCtx -> {
+                Thread.sleep(3000);
+                return ui.div("text-green-800", slow.id()).render("Navigated section done");
+            });
+            return app.HTML("Streamed Nav Test", "bg-gray-100 min-h-screen p-8",
+                    ui.div("space-y-4").render(
+                            ui.div("text-xl").render("Navigated page"),
+                            ui.div("p-4 border", slow.id()).render(slow.Skeleton(ui.SkeletonType.component))));
+        });
+
+        server = Server.builder(app).httpPort(PORT).start();
+        assertNotNull(server, "Server should be initialized");
+
+        playwright = Playwright.create();
+        browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
+    }
+
+    @AfterAll
+    static void stopServerAndBrowser() throws IOException {
+        if (browser != null) {
+            browser.close();
+        }
+        if (playwright != null) {
+            playwright.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        context = browser.newContext();
+        page = context.newPage();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Deferred sections arrive in the page response without a WebSocket")
+    void testDeferredSectionsStreamed() {
+        // Block the WebSocket so only the streamed response can deliver patches
+        page.routeWebSocket("**/*", ws -> ws.close());
+        page.navigate(BASE_URL + "/streamed-defer");
+
+        page.waitForSelector("text=Fast section done", new Page.WaitForSelectorOptions().setTimeout(5000));
+        page.waitForSelector("text=Slow section done", new Page.WaitForSelectorOptions().setTimeout(5000));
+
+        assertEquals(0, page.locator("template").count(), "Streamed templates should be removed after swapping");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Page response completes once all deferred work is done")
+    void testResponseCompletes() {
+        var response = page.navigate(BASE_URL + "/streamed-defer");
+        assertNotNull(response);
+        String html = response.text();
+        assertTrue(html.contains("Fast section done"), "Fast result should be part of the response");
+        assertTrue(html.indexOf("Fast section done") < html.indexOf("Slow section done"),
+                "Results should be written in completion order");
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Smooth navigation swaps the page without waiting for deferred sections")
+    void testSmoothNavigationDoesNotWaitForDefer() {
+        page.navigate(BASE_URL + "/streamed-defer");
+        page.waitForSelector("text=Slow section done", new Page.WaitForSelectorOptions().setTimeout(5000));
+
+        page.evaluate("__load('/streamed-nav')");
+        page.waitForSelector("text=Navigated page", new Page.WaitForSelectorOptions().setTimeout(1500));
+        assertEquals(0, page.locator("text=Navigated section done").count(),
+                "The skeleton should show while the deferred section is still running");
+
+        page.waitForSelector("text=Navigated section done", new Page.WaitForSelectorOptions().setTimeout(8000));
+    }
+}
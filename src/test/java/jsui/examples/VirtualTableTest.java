@@ -0,0 +1,168 @@
+package jsui.examples;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import jsui.App;
+import jsui.Server;
+import jsui.ui;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for ui.Table.Virtual and ui.SimpleTable.Virtual.
+ *
+ * A table with 50,000 rows must only put the visible window into the DOM and
+ * load other windows by index range while scrolling.
+ *
+ * Run tests: mvn test -Dtest=VirtualTableTest
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class VirtualTableTest {
+
+    private static final int PORT = 1431;
+    private static final String BASE_URL = "http://localhost:" + PORT;
+    private static final int TOTAL = 50_000;
+    private static Server server;
+    private static Playwright playwright;
+    private static Browser browser;
+    private BrowserContext context;
+    private Page page;
+
+    @BeforeAll
+    static void startServerAndBrowser() throws IOException, InterruptedException {
+        App app = new App("en");
+
+        app.Page("/virtual-table", ctx -> {
+            ui.Table<Integer> table = ui.<Integer>Table("w-full")
+                    .Head("Row", "text-left")
+                    .FieldText(i -> "Row " + i, "")
+                    .RowHeight(32)
+                    .Viewport(320)
+                    .Overscan(5);
+            return app.HTML("Virtual Table Test", "p-8",
+                    ui.div("", ui.Attr.of().id("table")).render(table.Virtual(ctx, TOTAL, (offset, limit) -> {
+                        List<Integer> rows = new ArrayList<>(limit);
+                        for (int i = offset; i < offset + limit; i++) {
+                            rows.add(i);
+                        }
+                        return rows;
+                    })));
+        });
+
+        app.Page("/virtual-simple-table", ctx -> {
+            ui.SimpleTable table = ui.SimpleTable(2, "w-full").RowHeight(32).Viewport(320);
+            for (int i = 0; i < 2_000; i++) {
+                table.Field("Item " + i).Field(String.valueOf(i * 2));
+            }
+            return app.HTML("Virtual Simple Table Test", "p-8",
+                    ui.div("", ui.Attr.of().id("table")).render(table.Virtual(ctx)));
+        });
+
+        server = Server.builder(app).httpPort(PORT).start();
+        assertNotNull(server, "Server should be initialized");
+
+        playwright = Playwright.create();
+        browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
+    }
+
+    @AfterAll
+    static void stopServerAndBrowser() throws IOException {
+        if (browser != null) {
+            browser.close();
+        }
+        if (playwright != null) {
+            playwright.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        context = browser.newContext();
+        page = context.newPage();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    private int renderedRows() {
+        return page.locator("#table tbody tr:not([aria-hidden])").count();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Only the visible window is rendered")
+    void testInitialWindow() {
+        var response = page.navigate(BASE_URL + "/virtual-table");
+        assertNotNull(response);
+        assertTrue(response.text().length() < 20_000, "Response should not grow with the row count");
+
+        page.waitForSelector("text=Row 0");
+        assertTrue(renderedRows() <= 20, "DOM should hold only the visible rows plus overscan");
+        assertEquals(0, page.locator("text=Row 40000").count());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Scrolling loads the window at the new position")
+    void testScrollLoadsWindow() {
+        page.navigate(BASE_URL + "/virtual-table");
+        page.waitForSelector("text=Row 0");
+
+        page.evaluate("document.querySelector('#table > div').scrollTop = 32 * 40000");
+        page.waitForSelector("text=Row 40000", new Page.WaitForSelectorOptions().setTimeout(5000));
+
+        assertEquals(0, page.locator("text=Row 0").count(), "Rows scrolled out of view should be removed");
+        assertTrue(renderedRows() <= 30, "DOM size should stay bounded after scrolling");
+
+        page.evaluate("document.querySelector('#table > div').scrollTop = 32 * " + TOTAL);
+        page.waitForSelector("text=Row 49999", new Page.WaitForSelectorOptions().setTimeout(5000));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("SimpleTable renders windows of its rows")
+    void testSimpleTable() {
+        page.navigate(BASE_URL + "/virtual-simple-table");
+        page.waitForSelector("text=Item 0");
+        assertTrue(renderedRows() <= 20);
+
+        page.evaluate("document.querySelector('#table > div').scrollTop = 32 * 1500");
+        page.waitForSelector("text=Item 1500", new Page.WaitForSelectorOptions().setTimeout(5000));
+        assertTrue(renderedRows() <= 30);
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Growing the viewport loads more rows without window listeners")
+    void testResizeObservesTheBox() {
+        page.addInitScript("window.__resizeListeners = 0;"
+                + "var add = window.addEventListener;"
+                + "window.addEventListener = function (type) {"
+                + "  if (type === 'resize') window.__resizeListeners++;"
+                + "  return add.apply(this, arguments);"
+                + "};");
+        page.navigate(BASE_URL + "/virtual-table");
+        page.waitForSelector("text=Row 0");
+        assertEquals(0, ((Number) page.evaluate("window.__resizeListeners")).intValue(),
+                "Table should not leave a window listener behind when it is swapped out");
+
+        page.evaluate("var box = document.querySelector('#table > div');"
+                + "box.style.height = '1600px'; box.style.maxHeight = '1600px';");
+        page.waitForSelector("text=Row 45", new Page.WaitForSelectorOptions().setTimeout(5000));
+    }
+}